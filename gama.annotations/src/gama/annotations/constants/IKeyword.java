@@ -205,6 +205,9 @@ public interface IKeyword {
 	/** The color red. */
 	String COLOR_RED = "red";
 
+	/** The columnar. */
+	String COLUMNAR = "columnar";
+
 	/** The condition. */
 	String CONDITION = "condition";
 
@@ -974,6 +977,9 @@ public interface IKeyword {
 	/** The source. */
 	String SOURCE = "source";
 
+	/** The spatial index. */
+	String SPATIAL_INDEX = "spatial_index";
+
 	/** The species. */
 	String SPECIES = "species";
 
@@ -1019,6 +1025,9 @@ public interface IKeyword {
 	/** The switch. */
 	String SWITCH = "switch";
 
+	/** The synchronous. */
+	String SYNCHRONOUS = "synchronous";
+
 	/** The table. */
 	String TABLE = "table";
 
@@ -32,7 +32,10 @@ public enum Generators {
 			" invokes the standard generator provided by the JDK, deterministic and thread-safe, albeit slower than all the other ones; "),
 	/** The threaded. */
 	THREADED("threaded",
-			" is a very fast generator, based on the DotMix algorithm, that can be safely used in parallel simulations as it creates one instance per thread. However, determinism cannot be guaranteed and this algorithm does not accept a seed as each instance will compute its own; ");
+			" is a very fast generator, based on the DotMix algorithm, that can be safely used in parallel simulations as it creates one instance per thread. However, determinism cannot be guaranteed and this algorithm does not accept a seed as each instance will compute its own; "),
+	/** The counter. */
+	COUNTER("counter",
+			" is a counter-based generator, based on the SplitMix algorithm, that gives each agent its own stream of numbers at each cycle (derived from the seed, the cycle and the identity of the agent). It can be safely used in parallel simulations without any lock, and guarantees that parallel and sequential runs produce exactly the same results; ");
 
 	/** The name. */
 	private final String name;
@@ -180,4 +180,7 @@ public interface IGamlIssue {
 	/** The linking error. */
 	String LINKING_ERROR = "gaml.linking.error";
 
+	/** The optimized code. */
+	String OPTIMIZED = "gaml.optimized.code";
+
 }
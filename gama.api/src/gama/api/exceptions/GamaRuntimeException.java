@@ -162,6 +162,8 @@ public class GamaRuntimeException extends RuntimeException {
 		// AD: 18/01/16 Adding this to address Issue #1411
 		this.scope = scope;
 		if (scope != null) {
+			// The exception can outlive the execution: a forked scope must not be reused by another one
+			scope.retain();
 			final ISymbol symbol = scope.getCurrentSymbol();
 			if (symbol != null) { addContext(symbol); }
 		}
@@ -194,6 +196,8 @@ public class GamaRuntimeException extends RuntimeException {
 		// AD: 18/01/16 Adding this to address Issue #1411
 		this.scope = scope;
 		if (scope != null) {
+			// The exception can outlive the execution: a forked scope must not be reused by another one
+			scope.retain();
 			final ISymbol symbol = scope.getCurrentSymbol();
 			if (symbol != null) { addContext(symbol); }
 		}
@@ -14,6 +14,7 @@ import java.util.function.Predicate;
 import gama.api.compilation.descriptions.IGamlDescription;
 import gama.api.compilation.descriptions.IVarDescriptionUser;
 import gama.api.exceptions.GamaRuntimeException;
+import gama.api.gaml.types.Cast;
 import gama.api.gaml.types.IType;
 import gama.api.gaml.types.ITyped;
 import gama.api.runtime.scope.IScope;
@@ -330,6 +331,51 @@ public interface IExpression extends IGamlDescription, ITyped, IDisposable, IVar
 	 */
 	Object value(final IScope scope) throws GamaRuntimeException;
 
+	/**
+	 * Evaluates this expression as a float, i.e. returns the value converted like {@code Cast.asFloat()} does. The
+	 * operators that compute on primitive values override it to avoid boxing their result.
+	 *
+	 * @param scope
+	 *            the current scope
+	 * @return the value of this expression as a double
+	 * @throws GamaRuntimeException
+	 *             if an error occurs during evaluation
+	 * @see #value(IScope)
+	 */
+	default double valueAsDouble(final IScope scope) throws GamaRuntimeException {
+		return Cast.asFloat(scope, value(scope));
+	}
+
+	/**
+	 * Evaluates this expression as an int, i.e. returns the value converted like {@code Cast.asInt()} does. The
+	 * operators that compute on primitive values override it to avoid boxing their result.
+	 *
+	 * @param scope
+	 *            the current scope
+	 * @return the value of this expression as an int
+	 * @throws GamaRuntimeException
+	 *             if an error occurs during evaluation
+	 * @see #value(IScope)
+	 */
+	default int valueAsInt(final IScope scope) throws GamaRuntimeException {
+		return Cast.asInt(scope, value(scope));
+	}
+
+	/**
+	 * Evaluates this expression as a boolean, i.e. returns the value converted like {@code Cast.asBool()} does. The
+	 * operators that compute on primitive values override it to avoid boxing their result.
+	 *
+	 * @param scope
+	 *            the current scope
+	 * @return the value of this expression as a boolean
+	 * @throws GamaRuntimeException
+	 *             if an error occurs during evaluation
+	 * @see #value(IScope)
+	 */
+	default boolean valueAsBoolean(final IScope scope) throws GamaRuntimeException {
+		return Cast.asBool(scope, value(scope));
+	}
+
 	/**
 	 * Indicates whether this expression is constant, meaning it does not depend on runtime scope and always evaluates
 	 * to the same value.
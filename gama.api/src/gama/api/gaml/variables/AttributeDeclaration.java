@@ -61,6 +61,7 @@ import gama.api.types.list.GamaListFactory;
 import gama.api.utils.JavaUtils;
 import gama.api.utils.StringUtils;
 import gama.api.utils.benchmark.StopWatch;
+import gama.api.utils.interfaces.ISlottedAttributes;
 import gama.dev.DEBUG;
 
 /**
@@ -561,6 +562,12 @@ public class AttributeDeclaration extends Symbol implements IVariable {
 
 	/** The must notify of changes. */
 	protected boolean mustNotifyOfChanges;
+
+	/** The slot where agents of {@link #slotLayout} store the value of this attribute, or -1 if they use their map */
+	protected int slot = -1;
+
+	/** The species whose agents store this attribute in {@link #slot} */
+	protected ISpecies slotLayout;
 	// private Object speciesWideValue;
 
 	/**
@@ -611,6 +618,11 @@ public class AttributeDeclaration extends Symbol implements IVariable {
 		addListeners(species);
 		mustNotifyOfChanges =
 				listeners != null && listeners.size() > 0 || onChangeExpression != null || on_changer != null;
+		// Attributes stored by the agents themselves (i.e. not computed nor delegated to skills) get a fixed slot
+		if (getter == null && setter == null && functionExpression == null && !isMicroPopulation()) {
+			slot = species.allocateAttributeSlot(getName());
+			if (slot >= 0) { slotLayout = species; }
+		}
 	}
 
 	/**
@@ -697,6 +709,7 @@ public class AttributeDeclaration extends Symbol implements IVariable {
 		setter = null;
 		sSkill = null;
 		gSkill = null;
+		slotLayout = null;
 	}
 
 	@Override
@@ -899,6 +912,8 @@ public class AttributeDeclaration extends Symbol implements IVariable {
 		val = checkAmong(object, scope, val);
 		if (setter != null && object instanceof IAgent agent) {
 			setter.run(scope, agent, sSkill == null ? agent : sSkill, val);
+		} else if (slot >= 0 && object instanceof ISlottedAttributes sa && sa.getSlotLayout() == slotLayout) {
+			sa.setSlotValue(slot, val);
 		} else {
 			object.setAttribute(name, val);
 		}
@@ -962,6 +977,13 @@ public class AttributeDeclaration extends Symbol implements IVariable {
 		if (getter != null && object instanceof IAgent agent)
 			return getter.run(scope, agent, gSkill == null ? agent : gSkill);
 		if (functionExpression != null) return scope.evaluate(functionExpression, object).getValue();
+		if (slot >= 0 && object instanceof ISlottedAttributes sa && sa.getSlotLayout() == slotLayout) {
+			final Object val = sa.getSlotValue(slot);
+			if (val != ISlottedAttributes.UNSET) return val;
+			if ((isNotModifiable || initExpression != null) && !description.isBuiltIn())
+				return getInitialValue(scope);
+			return null;
+		}
 		// Var not yet initialized. May happen when asking for its value while initializing an editor
 		// See Issue #2781 + Issue #3920
 		if (!object.hasAttribute(name) && (isNotModifiable || initExpression != null /* && initExpression.isConst() */)
@@ -267,6 +267,20 @@ public interface IClock {
 	 */
 	default long getTotalDuration() { return 0; }
 
+	/**
+	 * Gets the number of execution scopes created for the agent of this clock during the latest cycle elapsed so far
+	 * (the forked scopes reused from the pool are not counted again). Allows to monitor the cost of the parallel
+	 * executions.
+	 *
+	 * @return a number of scopes
+	 */
+	default long getNumberOfScopesCreated() { return 0; }
+
+	/**
+	 * Counts an execution scope created for the agent of this clock.
+	 */
+	default void scopeCreated() {}
+
 	/**
 	 * Step.
 	 *
@@ -204,6 +204,8 @@ import gama.api.utils.random.IRandom;
  * <li><b>DURATION:</b> Last cycle execution time (milliseconds)</li>
  * <li><b>TOTAL_DURATION:</b> Cumulative execution time</li>
  * <li><b>AVERAGE_DURATION:</b> Average cycle duration</li>
+ * <li><b>SCOPES_CREATED:</b> Execution scopes created during the last cycle</li>
+ * <li><b>SPECIES_LEVELS:</b> Species stepped concurrently, level by level</li>
  * <li><b>TIME:</b> Elapsed model time (seconds)</li>
  * <li><b>CURRENT_DATE:</b> Current simulation date</li>
  * <li><b>STARTING_DATE:</b> Simulation start date</li>
@@ -239,6 +241,12 @@ public interface ISimulationAgent extends ITopLevelAgent {
 	/** The Constant AVERAGE_DURATION. */
 	String AVERAGE_DURATION = "average_duration";
 
+	/** The Constant SCOPES_CREATED. */
+	String SCOPES_CREATED = "scopes_created";
+
+	/** The Constant SPECIES_LEVELS. */
+	String SPECIES_LEVELS = "species_levels";
+
 	/** The Constant TIME. */
 	String TIME = "time";
 
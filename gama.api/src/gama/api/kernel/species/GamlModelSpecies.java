@@ -142,6 +142,12 @@ import gama.api.ui.IOutputManager;
 						type = IType.BOOL,
 						optional = true,
 						doc = @doc ("Whether the model will be based on a toroidal environment or not")),
+				@facet (
+						name = IKeyword.SPATIAL_INDEX,
+						type = IType.ID,
+						values = { "quadtree", "hash", "snapshot" },
+						optional = true,
+						doc = @doc ("The spatial index used to find the agents of each species (default: 'quadtree'). 'hash' uses a uniform grid of buckets that agents can enter or leave concurrently and that can be queried without locking, which suits dense populations of moving agents, especially when they are scheduled in parallel. 'snapshot' rebuilds a packed, read-only grid at most once per cycle, when it is first queried after agents have moved, instead of updating the index at each move: queries are cheaper and never contend, but see the positions of the agents at the time of the rebuild")),
 				@facet (
 						name = IKeyword.NAME,
 						type = IType.ID,
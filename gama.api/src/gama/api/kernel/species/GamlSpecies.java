@@ -10,8 +10,10 @@
 package gama.api.kernel.species;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -224,13 +226,26 @@ import one.util.streamex.StreamEx;
 						type = IType.STRING,
 						optional = true,
 						doc = { @doc (
-								value = "(grid only),(\"A*\" by default). Allows to specify the algorithm for the shortest path computation (\"BF\", \"Dijkstra\", \"A*\" or \"JPS*\"") }),
+								value = "(grid only),(\"A*\" by default). Allows to specify the algorithm for the shortest path computation (\"BF\", \"Dijkstra\", \"A*\", \"JPS*\", \"flow_field\" or \"HPA*\"). \"flow_field\" computes, once for each target cell, the shortest paths to it from all the cells, and reuses them until the cells that can be crossed change: it is the fastest when many agents go to the same few targets. \"HPA*\" divides the grid in clusters of 16x16 cells and searches the paths between their entrances, refreshing only the clusters whose cells change: it is the fastest on large grids, but the paths are not always the shortest ones: with 4 neighbors, each time the shortest path goes from a cluster to another, the path found can be longer by at most 15 cells") }),
 				@facet (
 						name = "use_neighbors_cache",
 						type = IType.BOOL,
 						optional = true,
 						doc = { @doc (
 								value = "(grid only),(true by default). Allows to turn on or off the use of the neighbors cache used for grids. Note that if a diffusion of variable occurs, GAMA will emit a warning and automatically switch to a caching version") }),
+				@facet (
+						name = IKeyword.COLUMNAR,
+						type = IType.BOOL,
+						optional = true,
+						doc = { @doc (
+								value = "(false by default). Allows to store the int, float and bool attributes of the agents of this species in columns (one primitive array per attribute, indexed by the index of the agents) rather than in the agents themselves. Meant for species with a large number of agents and few behaviors: it reduces the memory footprint of the agents and allows operators like 'sum_of', 'mean_of', 'where' or 'collect' to run directly on the columns when they only access an attribute of 'each'") }),
+				@facet (
+						name = "indexes",
+						type = IType.LIST,
+						of = IType.STRING,
+						optional = true,
+						doc = { @doc (
+								value = "The names of the attributes of this species to index (only int, float, bool, string and agent attributes can be indexed). The population then maintains, for each of them, the agents that have each value (and, for int and float attributes, these values sorted) so that filters like 'each.attribute = value', 'each.attribute < value' (or '<=', '>', '>=') used in 'where', 'first_with' or 'count' on the species are answered without scanning all the agents. Meant for large populations queried often on attributes that change rarely") }),
 				@facet (
 						name = IKeyword.FILE,
 						type = IType.FILE,
@@ -247,6 +262,12 @@ import one.util.streamex.StreamEx;
 						type = IType.BOOL,
 						optional = true,
 						doc = @doc ("is the topology toric (defaut: false). Needs to be defined on the global species.")),
+				@facet (
+						name = IKeyword.SPATIAL_INDEX,
+						type = IType.ID,
+						values = { "quadtree", "hash", "snapshot" },
+						optional = true,
+						doc = @doc ("the spatial index used to find agents (default: 'quadtree'). 'hash' uses a uniform grid of buckets that agents can enter or leave concurrently and that can be queried without locking, which suits dense populations of moving agents, especially when they are scheduled in parallel. 'snapshot' rebuilds a packed, read-only grid at most once per cycle, when it is first queried after agents have moved, instead of updating the index at each move: queries are cheaper and never contend, but see the positions of the agents at the time of the rebuild. Needs to be defined on the global species.")),
 				@facet (
 						name = IKeyword.NAME,
 						type = IType.ID,
@@ -292,6 +313,13 @@ import one.util.streamex.StreamEx;
 						doc = @doc (
 								value = "The execution frequency of the species (default value: 1). For instance, if frequency is set to 10, the population of agents will be executed only every 10 cycles.",
 								see = { "schedules" })),
+				@facet (
+						name = IKeyword.SYNCHRONOUS,
+						type = IType.BOOL,
+						optional = true,
+						doc = @doc (
+								value = "(false by default). If true, the agents see, during a step of the species, the values that the attributes declared in the species had at the beginning of this step: the values written during the step, by the agents themselves or by other agents, are only stored at its end (an agent nevertheless sees the values it has written itself during its own step), as if all the agents were updated at the same time. This is the usual semantics of cellular automata, which then no longer need to keep their next state in another attribute, and makes the values read independent of the order in which the agents are stepped, even in parallel. The built-in attributes (location, shape, color...) and the attributes of the agents created during the step are modified immediately. If several agents write the same attribute of an agent during a step, the value written by the agent with the lowest index is kept",
+								see = { IKeyword.PARALLEL })),
 				@facet (
 						name = IKeyword.SCHEDULES,
 						type = IType.CONTAINER,
@@ -526,6 +554,9 @@ public class GamlSpecies extends Symbol implements ISpecies {
 	/** Expression defining how often this species should be scheduled (in cycles). */
 	private final IExpression frequency;
 
+	/** Expression defining whether the writes of the attributes during a step are deferred to its end. */
+	private final IExpression synchronous;
+
 	/** Indicates whether this species represents a grid (spatial lattice of agents). */
 	protected final boolean isGrid;
 
@@ -538,6 +569,12 @@ public class GamlSpecies extends Symbol implements ISpecies {
 	/** Map of variables (attributes) defined in this species, keyed by name. */
 	private final Map<String, IVariable> variables = GamaMapFactory.createOrdered();
 
+	/** Indices of the slots allocated to the attributes stored by agents of this species, keyed by name. */
+	private final Map<String, Integer> attributeSlots = new HashMap<>();
+
+	/** Names of the slotted attributes, indexed by slot. */
+	private String[] attributeSlotNames = EMPTY_SLOTS;
+
 	/** Map of aspect definitions for visualizing agents, keyed by name. */
 	private final Map<String, IStatement.Aspect> aspects = GamaMapFactory.createOrdered();
 
@@ -592,6 +629,7 @@ public class GamlSpecies extends Symbol implements ISpecies {
 			schedule = this.getFacet(IKeyword.SCHEDULES);
 		}
 		frequency = this.getFacet(IKeyword.FREQUENCY);
+		synchronous = this.getFacet(IKeyword.SYNCHRONOUS);
 	}
 
 	@Override
@@ -860,6 +898,26 @@ public class GamlSpecies extends Symbol implements ISpecies {
 		return variables.containsKey(name);
 	}
 
+	@Override
+	public synchronized int allocateAttributeSlot(final String name) {
+		final Integer existing = attributeSlots.get(name);
+		if (existing != null) return existing;
+		final int slot = attributeSlotNames.length;
+		attributeSlotNames = Arrays.copyOf(attributeSlotNames, slot + 1);
+		attributeSlotNames[slot] = name;
+		attributeSlots.put(name, slot);
+		return slot;
+	}
+
+	@Override
+	public int getAttributeSlot(final String name) {
+		final Integer slot = attributeSlots.get(name);
+		return slot == null ? -1 : slot;
+	}
+
+	@Override
+	public String[] getAttributeSlotNames() { return attributeSlotNames; }
+
 	@Override
 	public Collection<String> getVarNames() { return getDescription().getAttributeNames(); }
 
@@ -1145,6 +1203,9 @@ public class GamlSpecies extends Symbol implements ISpecies {
 	@Override
 	public IExpression getConcurrency() { return concurrency; }
 
+	@Override
+	public IExpression getSynchronous() { return synchronous; }
+
 	/**
 	 * Method getSpecies()
 	 *
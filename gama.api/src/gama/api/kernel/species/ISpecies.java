@@ -387,6 +387,9 @@ public interface ISpecies
 	/** The population. */
 	String POPULATION = "population";
 
+	/** The names of the slotted attributes when a species does not define any. */
+	String[] EMPTY_SLOTS = {};
+
 	/** The subspecies. */
 	String SUBSPECIES = "subspecies";
 
@@ -423,6 +426,14 @@ public interface ISpecies
 	 */
 	IExpression getConcurrency();
 
+	/**
+	 * Gets the expression indicating whether the agents are stepped synchronously, i.e. whether the attributes they
+	 * write during a step of the species are only modified at the end of this step.
+	 *
+	 * @return the synchronous expression, or null if the species does not define it
+	 */
+	IExpression getSynchronous();
+
 	/**
 	 * Checks if is grid.
 	 *
@@ -697,6 +708,36 @@ public interface ISpecies
 	@Override
 	boolean hasVar(final String name);
 
+	/**
+	 * Reserves (or returns the already reserved) storage slot for the attribute named {@code name}. Slots are indices
+	 * in the compact array of values held by each agent of this species (see {@link gama.api.utils.interfaces.ISlottedAttributes}).
+	 *
+	 * @param name
+	 *            the name of the attribute
+	 * @return the index of the slot, or -1 if this species does not provide slotted storage
+	 */
+	default int allocateAttributeSlot(final String name) {
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the storage slot of the attribute named {@code name}.
+	 *
+	 * @param name
+	 *            the name of the attribute
+	 * @return the index of the slot, or -1 if the attribute is not stored in a slot
+	 */
+	default int getAttributeSlot(final String name) {
+		return -1;
+	}
+
+	/**
+	 * Returns the names of the slotted attributes, indexed by their slot.
+	 *
+	 * @return an array (possibly empty) of attribute names. Should not be modified
+	 */
+	default String[] getAttributeSlotNames() { return EMPTY_SLOTS; }
+
 	/**
 	 * Sets the macro species.
 	 *
@@ -480,7 +480,8 @@ public interface IGrid extends IMatrix<IShape>, ISpatialIndex, IDiffusionTarget
 	 *
 	 * <p>
 	 * Returns the strategy used for optimizing shortest path computations. Common optimizers include "Dijkstra", "A*",
-	 * "BFS", etc.
+	 * "BFS", "flow_field" (the shortest paths to a target from all the cells, computed once and shared), "HPA*" (a
+	 * hierarchical search on large grids), etc.
 	 * </p>
 	 *
 	 * @return the optimizer name as a string
@@ -0,0 +1,164 @@
+/*******************************************************************************************************
+ *
+ * AdaptiveParallelism.java, in gama.api, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.api.runtime;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import gama.api.kernel.species.ISpecies;
+
+/**
+ * The choice, cycle after cycle, of the way the agents of a species are stepped, from the measure of the time they
+ * take. Used by {@link GamaExecutorService} when {@link GamaExecutorService#CONCURRENCY_ADAPTIVE} is enabled, in place
+ * of the threshold resolved from the 'parallel' facet and the preferences (as long as it allows parallelism).
+ *
+ * <p>
+ * The cost of an agent is an exponential moving average of the time of the steps divided by the number of agents
+ * (multiplied by the number of threads used when the step has run in parallel). A species whose agents altogether cost
+ * less than {@link #SEQUENTIAL_NANOS} is stepped sequentially. Otherwise its agents are split in chunks that cost about
+ * {@link #CHUNK_NANOS} each (with at least one chunk per thread), which is the threshold passed to the parallel
+ * runners. The first step of a species is sequential, so as to measure its cost without the overhead of the tasks.
+ * </p>
+ *
+ * <p>
+ * The last decision taken for each species is kept (see {@link #getDecisions()}) and printed with the results of the
+ * benchmarks.
+ * </p>
+ *
+ * @author drogoul
+ */
+public final class AdaptiveParallelism {
+
+	/** The total cost (in nanoseconds) of the agents of a species under which they are stepped sequentially. */
+	static final long SEQUENTIAL_NANOS = 500_000;
+
+	/** The cost (in nanoseconds) of the chunks of agents given to the threads. */
+	static final long CHUNK_NANOS = 100_000;
+
+	/** The weight of the last measure in the cost of the agents. */
+	static final double SMOOTHING = 0.3;
+
+	/**
+	 * A decision taken for a species.
+	 *
+	 * @param threshold
+	 *            the threshold chosen (0 for a sequential step, otherwise the size of the chunks)
+	 * @param agents
+	 *            the number of agents
+	 * @param nanosPerAgent
+	 *            the estimated cost of an agent, in nanoseconds
+	 */
+	public record Decision(int threshold, int agents, double nanosPerAgent) {
+
+		@Override
+		public String toString() {
+			return (threshold == 0 ? "sequential" : "chunks of " + threshold) + " for " + agents + " agents of "
+					+ Math.round(nanosPerAgent) + "ns";
+		}
+	}
+
+	/**
+	 * What is known of a species.
+	 */
+	static final class Record {
+
+		/** The estimated cost of an agent, in nanoseconds (negative until the first measure). */
+		double nanosPerAgent = -1;
+
+		/** The last decision. */
+		Decision decision;
+	}
+
+	/** The records, by species. */
+	private static final Map<ISpecies, Record> RECORDS = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Instantiates a new adaptive parallelism.
+	 */
+	private AdaptiveParallelism() {}
+
+	/**
+	 * Chooses the threshold of the next step of a species.
+	 *
+	 * @param species
+	 *            the species
+	 * @param agents
+	 *            the number of agents to step
+	 * @return 0 to step the agents sequentially, otherwise the size of the chunks of agents
+	 */
+	public static int thresholdFor(final ISpecies species, final int agents) {
+		final Record record = RECORDS.computeIfAbsent(species, s -> new Record());
+		synchronized (record) {
+			final double cost = record.nanosPerAgent;
+			int threshold = 0;
+			if (cost >= 0 && cost * agents >= SEQUENTIAL_NANOS) {
+				final int threads = GamaExecutorService.AGENT_PARALLEL_EXECUTOR.getParallelism();
+				final long bySize = (agents + threads - 1) / threads;
+				final long byCost = cost == 0 ? bySize : (long) Math.ceil(CHUNK_NANOS / cost);
+				threshold = (int) Math.max(1, Math.min(bySize, byCost));
+			}
+			record.decision = new Decision(threshold, agents, cost);
+			return threshold;
+		}
+	}
+
+	/**
+	 * Records the time taken by a step.
+	 *
+	 * @param species
+	 *            the species
+	 * @param agents
+	 *            the number of agents stepped
+	 * @param threshold
+	 *            the threshold used (see {@link #thresholdFor(ISpecies, int)})
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 */
+	public static void measured(final ISpecies species, final int agents, final int threshold, final long nanos) {
+		if (agents == 0) return;
+		final Record record = RECORDS.get(species);
+		if (record == null) return;
+		final int threads = threshold == 0 ? 1 : Math.min(GamaExecutorService.AGENT_PARALLEL_EXECUTOR.getParallelism(),
+				(agents + threshold - 1) / threshold);
+		final double cost = (double) nanos * threads / agents;
+		synchronized (record) {
+			record.nanosPerAgent =
+					record.nanosPerAgent < 0 ? cost : SMOOTHING * cost + (1 - SMOOTHING) * record.nanosPerAgent;
+		}
+	}
+
+	/**
+	 * Returns the last decision taken for each species.
+	 *
+	 * @return the decisions, by name of species
+	 */
+	public static Map<String, Decision> getDecisions() {
+		final Map<String, Decision> result = new TreeMap<>();
+		synchronized (RECORDS) {
+			RECORDS.forEach((species, record) -> {
+				synchronized (record) {
+					if (record.decision != null) { result.put(species.getName(), record.decision); }
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Forgets what has been measured (e.g. when the number of threads changes).
+	 */
+	public static void reset() {
+		RECORDS.clear();
+	}
+
+}
@@ -16,11 +16,14 @@ import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 import gama.api.GAMA;
 import gama.api.exceptions.GamaRuntimeException;
@@ -31,6 +34,7 @@ import gama.api.kernel.agent.IAgent;
 import gama.api.kernel.simulation.IExperimentAgent;
 import gama.api.kernel.species.ISpecies;
 import gama.api.runtime.scope.FlowStatus;
+import gama.api.runtime.scope.IExecutionResult;
 import gama.api.runtime.scope.IScope;
 import gama.api.types.geometry.IShape;
 import gama.api.types.list.GamaListFactory;
@@ -38,6 +42,7 @@ import gama.api.types.list.IList;
 import gama.api.utils.benchmark.StopWatch;
 import gama.api.utils.prefs.GamaPreferences;
 import gama.api.utils.prefs.Pref;
+import gama.api.utils.random.IRandom;
 
 /**
  * Central service for managing concurrent execution of agents in GAMA simulations.
@@ -68,6 +73,11 @@ import gama.api.utils.prefs.Pref;
  * <li>{@link #CONCURRENCY_GRID}: Enable parallel execution for grid agents</li>
  * <li>{@link #CONCURRENCY_SIMULATIONS}: Enable parallel execution of multiple simulations</li>
  * <li>{@link #CONCURRENCY_THRESHOLD}: Minimum population size for parallel execution</li>
+ * <li>{@link #CONCURRENCY_CHUNKS}: Run the agents by contiguous chunks rather than one task per agent</li>
+ * <li>{@link #CONCURRENCY_ADAPTIVE}: Choose the parallelism of each species from the measure of its steps</li>
+ * <li>{@link #CONCURRENCY_INDEPENDENT_SPECIES}: Step concurrently the species that cannot interfere</li>
+ * <li>{@link #CONCURRENCY_ITERATORS}: Enable parallel evaluation of iterator operators</li>
+ * <li>{@link #ITERATORS_THRESHOLD}: Minimum container size for the parallel evaluation of iterator operators</li>
  * <li>{@link #THREADS_NUMBER}: Maximum number of threads to use</li>
  * </ul>
  * 
@@ -171,7 +181,9 @@ public abstract class GamaExecutorService {
 	 * <p>
 	 * Allocating a fresh {@code ArrayList} per species per cycle (case 1) is wasteful when populations are large.
 	 * Using a {@code ThreadLocal} means the list is allocated once per thread and reused across steps; the list is
-	 * cleared at the start of each use so its internal array is retained between cycles.
+	 * cleared at the start of each use so its internal array is retained between cycles. It is taken from the thread
+	 * while the tasks are joined, as the thread can run, meanwhile, other tasks that step agents (see
+	 * {@link #takeTaskList()}).
 	 * </p>
 	 */
 	private static final ThreadLocal<ArrayList<ForkJoinTask<?>>> TASK_LIST_CACHE =
@@ -188,21 +200,70 @@ public abstract class GamaExecutorService {
 					+ "[WARNING: disables reflexes and permanent displays of batch experiments]",
 			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
+	/** The values of {@link #SIMULATIONS_EXECUTION} */
+	public static final String DEDICATED_THREADS = "Dedicated threads", POOLED_THREADS = "Pool of threads",
+			VIRTUAL_THREADS = "Virtual threads";
+
+	/** The Constant SIMULATIONS_EXECUTION. */
+	public static final Pref<String> SIMULATIONS_EXECUTION = create("pref_parallel_simulations_execution",
+			"Execution of the simulations running in parallel", DEDICATED_THREADS, IType.STRING, true).among(DEDICATED_THREADS, POOLED_THREADS, VIRTUAL_THREADS)
+					.in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY)
+					.onChange(newValue -> resetSimulationExecutor());
+
+	/** The executor of the steps of simulations, when they are not run by dedicated threads. Lazily created */
+	private static volatile ExecutorService SIMULATION_EXECUTOR;
+
 	/** The Constant CONCURRENCY_GRID. */
 	public static final Pref<Boolean> CONCURRENCY_GRID = create("pref_parallel_grids",
-			"Allow grids to schedule their agents in parallel (prevents the reproducibility of simulations)", false,
-			IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+			"Allow grids to schedule their agents in parallel"
+					+ " (prevents the reproducibility of simulations, except with the 'counter' generator)",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
 	/** The Constant CONCURRENCY_SPECIES. */
 	public static final Pref<Boolean> CONCURRENCY_SPECIES = create("pref_parallel_species",
-			"Make species schedule their agents in parallel (prevents the reproducibility of simulations)", false,
-			IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+			"Make species schedule their agents in parallel"
+					+ " (prevents the reproducibility of simulations, except with the 'counter' generator)",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
 	/** The Constant CONCURRENCY_THRESHOLD. */
 	public static final Pref<Integer> CONCURRENCY_THRESHOLD =
 			create("pref_parallel_threshold", "Size under which populations are executed sequentially", 20, IType.INT,
 					true).between(1, null).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
 
+	/** The Constant CONCURRENCY_CHUNKS. */
+	public static final Pref<Boolean> CONCURRENCY_CHUNKS = create("pref_parallel_chunks",
+			"When agents are scheduled each on its own, run them by contiguous chunks (one task and scope per chunk)"
+					+ " rather than one task per agent",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant CONCURRENCY_ADAPTIVE. */
+	public static final Pref<Boolean> CONCURRENCY_ADAPTIVE = create("pref_parallel_adaptive",
+			"Let species that can schedule their agents in parallel choose, each cycle, between a sequential step and"
+					+ " the size of the chunks of agents, from the time taken by their previous steps",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY)
+					.onChange(newValue -> AdaptiveParallelism.reset());
+
+	/** The Constant CONCURRENCY_INDEPENDENT_SPECIES. */
+	public static final Pref<Boolean> CONCURRENCY_INDEPENDENT_SPECIES = create("pref_parallel_independent_species",
+			"Step concurrently the species of a simulation whose behaviors cannot interfere (the order of the random"
+					+ " numbers drawn is only preserved with the 'counter' generator)",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The number of chunks per thread, which leaves some room for balancing the load between the threads. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** The Constant CONCURRENCY_ITERATORS. */
+	public static final Pref<Boolean> CONCURRENCY_ITERATORS = create("pref_parallel_iterators",
+			"Make iterator operators (where, collect, count...) evaluate their expression in parallel on large containers"
+					+ " (requires expressions without side effects)",
+			false, IType.BOOL, true).in(GamaPreferences.Runtime.NAME, GamaPreferences.Runtime.CONCURRENCY);
+
+	/** The Constant ITERATORS_THRESHOLD. */
+	public static final Pref<Integer> ITERATORS_THRESHOLD =
+			create("pref_parallel_iterators_threshold", "Size under which containers are iterated sequentially", 10000,
+					IType.INT, true).between(1, null).in(GamaPreferences.Runtime.NAME,
+							GamaPreferences.Runtime.CONCURRENCY);
+
 	/** The Constant THREADS_NUMBER. */
 	public static final Pref<Integer> THREADS_NUMBER =
 			create("pref_parallel_threads",
@@ -222,6 +283,7 @@ public abstract class GamaExecutorService {
 	public static void reset() {
 		// Called by the activator to init the preferences and executor services
 		setConcurrencyLevel(THREADS_NUMBER.getValue());
+		AdaptiveParallelism.reset();
 	}
 
 	/**
@@ -257,6 +319,47 @@ public abstract class GamaExecutorService {
 		AGENT_PARALLEL_EXECUTOR = new ForkJoinPool(nb, factory, EXCEPTION_HANDLER, false);
 	}
 
+	/**
+	 * Returns the executor to which simulations submit their steps, or null if each simulation should run in its own
+	 * dedicated thread (see {@link #SIMULATIONS_EXECUTION}). The pool of threads is a work-stealing {@link ForkJoinPool}
+	 * sized to the number of processors, distinct from the one used for agents so that simulations stepping their
+	 * agents in parallel do not compete for the same workers.
+	 *
+	 * @return the executor or null
+	 */
+	public static ExecutorService getSimulationExecutor() {
+		ExecutorService result = SIMULATION_EXECUTOR;
+		if (result != null) return result;
+		synchronized (GamaExecutorService.class) {
+			if (SIMULATION_EXECUTOR == null) {
+				SIMULATION_EXECUTOR = switch (SIMULATIONS_EXECUTION.getValue()) {
+					case POOLED_THREADS -> new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+						final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+						worker.setName("GAMA-Simulation-Worker-" + worker.getPoolIndex());
+						return worker;
+					}, EXCEPTION_HANDLER, false);
+					case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+							.name("GAMA-Simulation-", 0).uncaughtExceptionHandler(EXCEPTION_HANDLER).factory());
+					default -> null;
+				};
+			}
+			return SIMULATION_EXECUTOR;
+		}
+	}
+
+	/**
+	 * Discards the current executor of simulations, letting the steps already submitted complete. The next call to
+	 * {@link #getSimulationExecutor()} creates a new one according to the preferences.
+	 */
+	public static void resetSimulationExecutor() {
+		final ExecutorService old;
+		synchronized (GamaExecutorService.class) {
+			old = SIMULATION_EXECUTOR;
+			SIMULATION_EXECUTOR = null;
+		}
+		if (old != null) { old.shutdown(); }
+	}
+
 	/**
 	 * The Enum Caller.
 	 */
@@ -352,7 +455,7 @@ public abstract class GamaExecutorService {
 				schedule == null ? pop : GamaListFactory.castToList(scope, schedule.value(scope));
 		final int threshold =
 				getParallelism(scope, species.getConcurrency(), species.isGrid() ? Caller.GRID : Caller.SPECIES);
-		return doStep(scope, agents.toArray(new IAgent[0]), threshold, species);
+		return adaptiveStep(scope, agents.toArray(new IAgent[0]), threshold, species);
 	}
 
 	/**
@@ -382,7 +485,34 @@ public abstract class GamaExecutorService {
 		}
 		final int threshold =
 				getParallelism(scope, species.getConcurrency(), species.isGrid() ? Caller.GRID : Caller.SPECIES);
-		return doStep(scope, scheduledAgents, threshold, species);
+		return adaptiveStep(scope, scheduledAgents, threshold, species);
+	}
+
+	/**
+	 * Steps the agents with the threshold chosen by {@link AdaptiveParallelism}, if it is enabled and the threshold
+	 * resolved from the facet and the preferences allows parallelism, and records the time taken.
+	 *
+	 * @param <A>
+	 *            the generic type
+	 * @param scope
+	 *            the scope
+	 * @param array
+	 *            the array
+	 * @param threshold
+	 *            the threshold resolved from the facet and the preferences
+	 * @param species
+	 *            the species
+	 * @return the boolean
+	 */
+	private static <A extends IShape> Boolean adaptiveStep(final IScope scope, final A[] array, final int threshold,
+			final ISpecies species) {
+		if (threshold == 0 || !CONCURRENCY_ADAPTIVE.getValue()) return doStep(scope, array, threshold, 0, species);
+		final int chosen = AdaptiveParallelism.thresholdFor(species, array.length);
+		final long start = System.nanoTime();
+		// The threshold chosen is a size of chunks, including when it is 1
+		final Boolean result = doStep(scope, array, chosen, chosen, species);
+		AdaptiveParallelism.measured(species, array.length, chosen, System.nanoTime() - start);
+		return result;
 	}
 
 	/**
@@ -396,12 +526,15 @@ public abstract class GamaExecutorService {
 	 *            the array
 	 * @param threshold
 	 *            the threshold
+	 * @param chunkSize
+	 *            the size of the chunks when the threshold is 1 and the agents are stepped by chunks (0 for a few
+	 *            chunks per thread)
 	 * @param species
 	 *            the species
 	 * @return the boolean
 	 */
 	private static <A extends IShape> Boolean doStep(final IScope scope, final A[] array, final int threshold,
-			final ISpecies species) {
+			final int chunkSize, final ISpecies species) {
 		try (final StopWatch w = GAMA.benchmark(scope, species)) {
 			int concurrency = threshold;
 			if (array.length <= threshold) { concurrency = 0; }
@@ -417,20 +550,32 @@ public abstract class GamaExecutorService {
 					}
 					break;
 				case 1: {
-					// Each agent is submitted as a separate task; each task gets its own scope copy to
-					// avoid sharing mutable scope state across concurrent threads. All tasks are
-					// submitted to the pool and joined before returning so that the caller always sees
-					// completed results rather than fire-and-forget side effects.
+					// Each agent (or chunk of agents) is submitted as a separate task; each task gets its own
+					// scope, forked from a pool, to avoid sharing mutable scope state across concurrent threads.
+					// All tasks are submitted to the pool and joined before returning so that the caller always
+					// sees completed results rather than fire-and-forget side effects.
 					// Reuse the per-thread task list to avoid allocating a new ArrayList every cycle.
-					final ArrayList<ForkJoinTask<?>> tasks = TASK_LIST_CACHE.get();
-					tasks.clear();
-					for (final A aa : array) {
-						final IAgent agent = (IAgent) aa;
-						if (agent == null || agent.dead()) { continue; }
-						final IScope agentScope = scope.copy(" - step - ");
-						tasks.add(AGENT_PARALLEL_EXECUTOR.submit(ForkJoinTask.adapt(() -> agentScope.step(agent))));
+					final ArrayList<ForkJoinTask<?>> tasks = takeTaskList();
+					if (CONCURRENCY_CHUNKS.getValue()) {
+						forEachChunk(array, chunkSize, (from, to) -> {
+							final IScope chunkScope = scope.fork(" - step - ");
+							tasks.add(AGENT_PARALLEL_EXECUTOR.submit(ForkJoinTask.adapt(() -> runChunk(chunkScope,
+									from, to, i -> {
+										final IAgent agent = (IAgent) array[i];
+										if (agent != null && !agent.dead()) { chunkScope.step(agent); }
+									}))));
+						});
+					} else {
+						for (final A aa : array) {
+							final IAgent agent = (IAgent) aa;
+							if (agent == null || agent.dead()) { continue; }
+							final IScope agentScope = scope.fork(" - step - ");
+							tasks.add(AGENT_PARALLEL_EXECUTOR.submit(
+									ForkJoinTask.adapt(() -> runChunk(agentScope, 0, 1, i -> agentScope.step(agent)))));
+						}
 					}
 					for (final ForkJoinTask<?> task : tasks) { task.join(); }
+					giveBackTaskList(tasks);
 					break;
 				}
 				default:
@@ -460,32 +605,158 @@ public abstract class GamaExecutorService {
 			final IExpression parallel) throws GamaRuntimeException {
 		int threshold = getParallelism(scope, parallel, Caller.NONE);
 		if (array.length <= threshold) { threshold = 0; }
+		// Drawn by the asking agent before forking, so that the streams of the targets do not depend on the threads
+		final long site = scope.getRandom().splitStream();
 		switch (threshold) {
 			case 0:
 				for (final A agent : array) {
-					scope.execute(executable, (IAgent) agent, null);
+					execute(scope, executable, (IAgent) agent, site);
 					if (scope.getAndClearBreakStatus() == FlowStatus.BREAK) { break; }
 				}
 				return;
 			// Break doesnt really make sense for parallel execution
 		case 1: {
-			// Each agent is submitted as a separate task; each task gets its own scope copy to
-			// avoid sharing mutable scope state across concurrent threads. All tasks are
-			// submitted to the pool and joined before returning.
+			// Each agent (or chunk of agents) is submitted as a separate task; each task gets its own
+			// scope, forked from a pool, to avoid sharing mutable scope state across concurrent threads.
+			// All tasks are submitted to the pool and joined before returning.
 			// Reuse the per-thread task list to avoid allocating a new ArrayList every cycle.
-			final ArrayList<ForkJoinTask<?>> tasks = TASK_LIST_CACHE.get();
-			tasks.clear();
-			for (final A aa : array) {
-				final IAgent agent = (IAgent) aa;
-				final IScope agentScope = scope.copy(" - execute - ");
-				tasks.add(AGENT_PARALLEL_EXECUTOR
-						.submit(ForkJoinTask.adapt(() -> agentScope.execute(executable, agent, null))));
+			final ArrayList<ForkJoinTask<?>> tasks = takeTaskList();
+			if (CONCURRENCY_CHUNKS.getValue()) {
+				forEachChunk(array, 0, (from, to) -> {
+					final IScope chunkScope = scope.fork(" - execute - ");
+					tasks.add(AGENT_PARALLEL_EXECUTOR.submit(ForkJoinTask.adapt(() -> runChunk(chunkScope, from, to,
+							i -> execute(chunkScope, executable, (IAgent) array[i], site)))));
+				});
+			} else {
+				for (final A aa : array) {
+					final IAgent agent = (IAgent) aa;
+					final IScope agentScope = scope.fork(" - execute - ");
+					tasks.add(AGENT_PARALLEL_EXECUTOR.submit(ForkJoinTask.adapt(
+							() -> runChunk(agentScope, 0, 1, i -> execute(agentScope, executable, agent, site)))));
+				}
 			}
 			for (final ForkJoinTask<?> task : tasks) { task.join(); }
+			giveBackTaskList(tasks);
 			return;
 		}
 			default:
-				ParallelAgentRunner.execute(scope, executable, array, threshold);
+				ParallelAgentRunner.execute(scope, executable, array, threshold, site);
+		}
+	}
+
+	/**
+	 * Takes the list of tasks of the current thread, which gets a new one if it needs it before the list is given back
+	 * (i.e. if it runs, while joining the tasks, another task that steps agents).
+	 *
+	 * @return an empty list of tasks
+	 */
+	private static ArrayList<ForkJoinTask<?>> takeTaskList() {
+		final ArrayList<ForkJoinTask<?>> tasks = TASK_LIST_CACHE.get();
+		TASK_LIST_CACHE.remove();
+		return tasks;
+	}
+
+	/**
+	 * Gives back a list of tasks taken by {@link #takeTaskList()}.
+	 *
+	 * @param tasks
+	 *            the tasks, all joined
+	 */
+	private static void giveBackTaskList(final ArrayList<ForkJoinTask<?>> tasks) {
+		tasks.clear();
+		TASK_LIST_CACHE.set(tasks);
+	}
+
+	/**
+	 * Runs the agents of a chunk with the scope forked for it. An exception raised by one agent does not prevent the
+	 * next ones from running; the first one is rethrown once the chunk is done. The scope is released only if the chunk
+	 * has completed without exception (and, by {@link IScope#retain()}, if no error or warning refers to it).
+	 *
+	 * @param chunkScope
+	 *            the scope forked for the chunk
+	 * @param from
+	 *            the first index
+	 * @param to
+	 *            the index after the last one
+	 * @param agent
+	 *            runs the agent at an index
+	 */
+	private static void runChunk(final IScope chunkScope, final int from, final int to, final IntConsumer agent) {
+		RuntimeException error = null;
+		boolean clean = false;
+		try {
+			for (int i = from; i < to; i++) {
+				try {
+					agent.accept(i);
+				} catch (final RuntimeException e) {
+					if (error == null) { error = e; }
+				}
+			}
+			clean = error == null;
+		} finally {
+			if (clean) { chunkScope.release(); }
+		}
+		if (error != null) throw error;
+	}
+
+	/**
+	 * Splits an array in contiguous chunks, of a given size or a few per thread of {@link #AGENT_PARALLEL_EXECUTOR}.
+	 *
+	 * @param array
+	 *            the array
+	 * @param size
+	 *            the maximal size of the chunks, or 0 to have a few chunks per thread
+	 * @param chunk
+	 *            called with the bounds (inclusive, exclusive) of each chunk
+	 */
+	private static void forEachChunk(final Object[] array, final int size, final IntBinaryConsumer chunk) {
+		final int chunks = size > 0 ? (array.length + size - 1) / size
+				: Math.min(array.length, AGENT_PARALLEL_EXECUTOR.getParallelism() * CHUNKS_PER_THREAD);
+		for (int c = 0; c < chunks; c++) {
+			chunk.accept((int) ((long) array.length * c / chunks), (int) ((long) array.length * (c + 1) / chunks));
+		}
+	}
+
+	/**
+	 * Receives the bounds of a chunk.
+	 */
+	@FunctionalInterface
+	private interface IntBinaryConsumer {
+
+		/**
+		 * Accepts the bounds of a chunk.
+		 *
+		 * @param from
+		 *            the first index
+		 * @param to
+		 *            the index after the last one
+		 */
+		void accept(int from, int to);
+	}
+
+	/**
+	 * Executes an executable on an agent that draws its random numbers, if the generator uses streams, from the stream
+	 * of this agent at this site.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param executable
+	 *            the executable
+	 * @param agent
+	 *            the agent
+	 * @param site
+	 *            the site, drawn with {@link IRandom#splitStream()} by the agent asking
+	 * @return the result of the execution
+	 */
+	public static IExecutionResult execute(final IScope scope, final IExecutable executable, final IAgent agent,
+			final long site) {
+		final IRandom random = scope.getRandom();
+		if (!random.hasStreams()) return scope.execute(executable, agent, null);
+		random.enterStream(site, agent);
+		try {
+			return scope.execute(executable, agent, null);
+		} finally {
+			random.exitStream();
 		}
 	}
 
@@ -42,7 +42,7 @@ import gama.api.runtime.scope.IScope;
  * <pre>
  * IExecutable action = ...; // Some GAML action
  * Spliterator&lt;IAgent&gt; agents = AgentSpliterator.of(agentArray, threshold);
- * ParallelAgentExecuter executer = new ParallelAgentExecuter(scope, action, agents);
+ * ParallelAgentExecuter executer = new ParallelAgentExecuter(scope, action, agents, site);
  * Boolean success = GamaExecutorService.AGENT_PARALLEL_EXECUTOR.invoke(executer);
  * </pre>
  * 
@@ -55,6 +55,9 @@ public class ParallelAgentExecuter extends ParallelAgentRunner<Object> {
 	/** The executable to run on each agent. */
 	final IExecutable executable;
 
+	/** The site of the random streams of the agents. */
+	final long site;
+
 	/**
 	 * Constructs a new ParallelAgentExecuter to execute an action on agents.
 	 * 
@@ -64,10 +67,14 @@ public class ParallelAgentExecuter extends ParallelAgentRunner<Object> {
 	 *            the executable (action, statement, expression) to run on each agent
 	 * @param agents
 	 *            the spliterator managing the agents to process
+	 * @param site
+	 *            the site of the random streams of the agents
 	 */
-	public ParallelAgentExecuter(final IScope scope, final IExecutable executable, final Spliterator<IAgent> agents) {
+	public ParallelAgentExecuter(final IScope scope, final IExecutable executable, final Spliterator<IAgent> agents,
+			final long site) {
 		super(scope, agents);
 		this.executable = executable;
+		this.site = site;
 	}
 
 	/**
@@ -91,7 +98,7 @@ public class ParallelAgentExecuter extends ParallelAgentRunner<Object> {
 		// Plain boolean is sufficient: forEachRemaining runs sequentially on this single thread
 		for (final IAgent[] box = { null }; agents.tryAdvance(a -> box[0] = a);) {
 			if (!result) break;
-			result = scope.execute(executable, box[0], null).passed();
+			result = GamaExecutorService.execute(scope, executable, box[0], site).passed();
 		}
 		return result;
 	}
@@ -124,7 +131,7 @@ public class ParallelAgentExecuter extends ParallelAgentRunner<Object> {
 	 */
 	@Override
 	ParallelAgentExecuter subTask(final Spliterator<IAgent> sub) {
-		return new ParallelAgentExecuter(originalScope, executable, sub);
+		return new ParallelAgentExecuter(originalScope, executable, sub, site);
 	}
 
 }
\ No newline at end of file
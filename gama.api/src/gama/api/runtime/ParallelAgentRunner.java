@@ -60,7 +60,7 @@ import gama.api.types.geometry.IShape;
  * Boolean success = ParallelAgentRunner.step(scope, agentArray, threshold);
  * 
  * // Execute an action on all agents in parallel
- * ParallelAgentRunner.execute(scope, executable, agentArray, threshold);
+ * ParallelAgentRunner.execute(scope, executable, agentArray, threshold, site);
  * </pre>
  * 
  * @param <T>
@@ -122,7 +122,10 @@ public abstract class ParallelAgentRunner<T> extends RecursiveTask<T> implements
 	public static <A extends IShape> Boolean step(final IScope scope, final A[] array, final int threshold)
 			throws GamaRuntimeException {
 		final ParallelAgentStepper runner = from(scope, array, threshold);
-		if (array.length <= threshold) { return runner.executeOn(scope); }
+		if (array.length <= threshold) {
+			runner.originalScope.release();
+			return runner.executeOn(scope);
+		}
 		return execute(runner);
 	}
 
@@ -144,13 +147,16 @@ public abstract class ParallelAgentRunner<T> extends RecursiveTask<T> implements
 	 *            the array of agents to process
 	 * @param threshold
 	 *            the minimum array size for parallel execution
+	 * @param site
+	 *            the site of the random streams of the agents
 	 * @throws GamaRuntimeException
 	 *             if an error occurs during execution
 	 */
 	public static <A extends IShape> void execute(final IScope scope, final IExecutable executable, final A[] array,
-			final int threshold) throws GamaRuntimeException {
-		final ParallelAgentRunner<?> runner = from(scope, executable, array, threshold);
+			final int threshold, final long site) throws GamaRuntimeException {
+		final ParallelAgentRunner<?> runner = from(scope, executable, array, threshold, site);
 		if (array.length <= threshold) {
+			runner.originalScope.release();
 			runner.executeOn(scope);
 		} else {
 			execute(runner);
@@ -188,19 +194,21 @@ public abstract class ParallelAgentRunner<T> extends RecursiveTask<T> implements
 	 *            the array of agents
 	 * @param threshold
 	 *            the splitting threshold
+	 * @param site
+	 *            the site of the random streams of the agents
 	 * @return a new ParallelAgentExecuter instance
 	 */
 	private static <A extends IShape> ParallelAgentExecuter from(final IScope scope, final IExecutable executable,
-			final A[] array, final int threshold) {
-		return new ParallelAgentExecuter(scope, executable, AgentSpliterator.of(array, threshold));
+			final A[] array, final int threshold, final long site) {
+		return new ParallelAgentExecuter(scope, executable, AgentSpliterator.of(array, threshold), site);
 	}
 
 	/**
 	 * Constructs a new ParallelAgentRunner with the given scope and agent spliterator.
 	 * 
 	 * <p>
-	 * The scope is copied (forked) to ensure thread-safe parallel execution. Each parallel task operates with its own
-	 * scope instance derived from the original.
+	 * The scope is forked to ensure thread-safe parallel execution. Each parallel task operates with its own
+	 * scope instance derived from the original, taken from a pool and released once the task has been executed.
 	 * </p>
 	 * 
 	 * @param <A>
@@ -212,7 +220,7 @@ public abstract class ParallelAgentRunner<T> extends RecursiveTask<T> implements
 	 */
 	protected <A extends IShape> ParallelAgentRunner(final IScope scope, final Spliterator<IAgent> agents) {
 		this.agents = agents;
-		this.originalScope = scope.copy(" - forked - ");
+		this.originalScope = scope.fork(" - forked - ");
 	}
 
 	/**
@@ -250,7 +258,12 @@ public abstract class ParallelAgentRunner<T> extends RecursiveTask<T> implements
 	@Override
 	protected T compute() throws GamaRuntimeException {
 		final Spliterator<IAgent> sub = agents.trySplit();
-		if (sub == null) { return executeOn(originalScope); }
+		if (sub == null) {
+			final T result = executeOn(originalScope);
+			// Not released if the execution fails, as the errors keep a reference to their scope
+			originalScope.release();
+			return result;
+		}
 		final ParallelAgentRunner<T> left = subTask(sub);
 		left.fork();
 		final T rightResult = compute();
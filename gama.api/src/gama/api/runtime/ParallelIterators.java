@@ -0,0 +1,179 @@
+/*******************************************************************************************************
+ *
+ * ParallelIterators.java, in gama.api, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.api.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.types.Cast;
+import gama.api.kernel.agent.IAgent;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.misc.IContainer;
+import gama.api.utils.random.IRandom;
+import gama.api.utils.random.RandomDraws;
+
+/**
+ * The parallel evaluation of the expressions of iterator operators ({@code where}, {@code collect}, {@code count}...)
+ * on large containers. The elements are split in contiguous chunks, each evaluated by a fork of the scope (which has
+ * its own {@code each}) in the {@link GamaExecutorService#AGENT_PARALLEL_EXECUTOR}, and the values are returned in the
+ * order of the elements so that the operators can merge them exactly as they would have sequentially.
+ *
+ * <p>
+ * Enabled by {@link GamaExecutorService#CONCURRENCY_ITERATORS} for the containers of at least
+ * {@link GamaExecutorService#ITERATORS_THRESHOLD} elements. The expressions must not have side effects. With the
+ * 'counter' generator, the random numbers drawn for an agent come from its own stream and do not depend on the chunks;
+ * with the other generators, whose state would be shared by the chunks, the expressions that may draw random numbers
+ * (see {@link RandomDraws}) are evaluated sequentially.
+ * </p>
+ *
+ * @author drogoul
+ */
+public final class ParallelIterators {
+
+	/**
+	 * The evaluation of the expression on one element.
+	 */
+	@FunctionalInterface
+	private interface Evaluation {
+
+		/**
+		 * Evaluates the expression on the element at this index, which is the current {@code each} of the scope.
+		 *
+		 * @return true to stop the evaluation on all the elements
+		 */
+		boolean evaluate(IScope scope, int index);
+	}
+
+	/**
+	 * Instantiates a new parallel iterators.
+	 */
+	private ParallelIterators() {}
+
+	/**
+	 * Returns the elements of a container if the expression of an iterator operator should be evaluated on them in
+	 * parallel.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param container
+	 *            the container
+	 * @param expression
+	 *            the expression to evaluate on the elements
+	 * @return the elements, in the order of iteration, or null if the evaluation should be sequential
+	 */
+	public static Object[] elementsOf(final IScope scope, final IContainer<?, ?> container,
+			final IExpression expression) {
+		if (container == null || !GamaExecutorService.CONCURRENCY_ITERATORS.getValue()
+				|| GamaExecutorService.AGENT_PARALLEL_EXECUTOR == null)
+			return null;
+		if (container.length(scope) < GamaExecutorService.ITERATORS_THRESHOLD.getValue()) return null;
+		if (!scope.getRandom().hasStreams() && RandomDraws.mayDraw(expression)) return null;
+		return container.stream(scope).toArray();
+	}
+
+	/**
+	 * Evaluates an expression on each element.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param eachName
+	 *            the name of the iterator variable
+	 * @param elements
+	 *            the elements
+	 * @param expression
+	 *            the expression
+	 * @return the values, in the order of the elements
+	 */
+	public static Object[] evaluate(final IScope scope, final String eachName, final Object[] elements,
+			final IExpression expression) {
+		final Object[] values = new Object[elements.length];
+		run(scope, eachName, elements, (s, i) -> {
+			values[i] = expression.value(s);
+			return false;
+		});
+		return values;
+	}
+
+	/**
+	 * Whether one of the elements satisfies a filter. The evaluation stops as soon as one is found.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param eachName
+	 *            the name of the iterator variable
+	 * @param elements
+	 *            the elements
+	 * @param filter
+	 *            the filter
+	 * @return true if one element satisfies the filter
+	 */
+	public static boolean anyMatch(final IScope scope, final String eachName, final Object[] elements,
+			final IExpression filter) {
+		return run(scope, eachName, elements, (s, i) -> Cast.asBool(s, filter.value(s)));
+	}
+
+	/**
+	 * Runs an evaluation on the elements, split in chunks.
+	 *
+	 * @return true if the evaluation has been stopped
+	 */
+	private static boolean run(final IScope scope, final String eachName, final Object[] elements,
+			final Evaluation evaluation) {
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		final int chunks = Math.min(elements.length, pool.getParallelism() * 4);
+		final IRandom random = scope.getRandom();
+		final boolean streams = random.hasStreams();
+		// Drawn before forking, so that the streams of the agents do not depend on the threads
+		final long site = streams ? random.splitStream() : 0;
+		final AtomicBoolean stop = new AtomicBoolean();
+		final RuntimeException[] errors = new RuntimeException[chunks];
+		final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int chunk = c;
+			final int from = (int) ((long) elements.length * c / chunks);
+			final int to = (int) ((long) elements.length * (c + 1) / chunks);
+			final IScope chunkScope = scope.fork(" - iterator - ");
+			tasks.add(pool.submit(ForkJoinTask.adapt(() -> {
+				try {
+					for (int i = from; i < to && !stop.get(); i++) {
+						final Object element = elements[i];
+						chunkScope.setEach(eachName, element);
+						final boolean stopped;
+						if (streams && element instanceof IAgent agent) {
+							random.enterStream(site, agent);
+							try {
+								stopped = evaluation.evaluate(chunkScope, i);
+							} finally {
+								random.exitStream();
+							}
+						} else {
+							stopped = evaluation.evaluate(chunkScope, i);
+						}
+						if (stopped) { stop.set(true); }
+					}
+					chunkScope.release();
+				} catch (final RuntimeException e) {
+					errors[chunk] = e;
+					stop.set(true);
+				}
+			})));
+		}
+		for (final ForkJoinTask<?> task : tasks) { task.join(); }
+		// Reports the error of the first chunk in error, the closest to the one of a sequential evaluation
+		for (final RuntimeException e : errors) { if (e != null) throw e; }
+		return stop.get();
+	}
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************************************
+ *
+ * PooledSimulationRunner.java, in gama.api, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.api.runtime;
+
+import static gama.api.runtime.GamaExecutorService.EXCEPTION_HANDLER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gama.api.kernel.simulation.ISimulationAgent;
+import gama.dev.DEBUG;
+
+/**
+ * Implementation of {@link ISimulationRunner} that does not own any thread: at each {@link #step()}, the steps of the
+ * simulations are submitted to a shared executor (see {@link GamaExecutorService#getSimulationExecutor()}), either a
+ * pool of threads sized to the number of processors or virtual threads.
+ *
+ * <p>
+ * At most {@code concurrency} workers are submitted per step. Each of them repeatedly takes the next simulation not yet
+ * stepped, so that fast simulations do not wait for slow ones and the load is balanced between the workers. This allows
+ * experiments with hundreds of simulations (replicates, ensembles) to scale with the number of cores rather than with
+ * the number of threads.
+ * </p>
+ *
+ * @see SimulationRunner
+ * @see GamaExecutorService#SIMULATIONS_EXECUTION
+ */
+public class PooledSimulationRunner implements ISimulationRunner {
+
+	static {
+		DEBUG.OFF();
+	}
+
+	/** The simulations managed by this runner. */
+	final Set<ISimulationAgent> simulations = ConcurrentHashMap.newKeySet();
+
+	/** The executor to which the steps are submitted when the preferences no longer designate one. */
+	final ExecutorService executor;
+
+	/** The maximum number of simulations stepped at the same time. */
+	final int concurrency;
+
+	/** Flag indicating if the runner has been shut down. */
+	volatile boolean shutdown = false;
+
+	/**
+	 * Instantiates a new pooled simulation runner.
+	 *
+	 * @param executor
+	 *            the executor to which the steps are submitted
+	 * @param concurrency
+	 *            the maximum number of simulations stepped at the same time
+	 */
+	PooledSimulationRunner(final ExecutorService executor, final int concurrency) {
+		this.executor = executor;
+		this.concurrency = Math.max(1, concurrency);
+	}
+
+	@Override
+	public void remove(final ISimulationAgent agent) {
+		simulations.remove(agent);
+	}
+
+	@Override
+	public void add(final ISimulationAgent agent) {
+		if (!shutdown) { simulations.add(agent); }
+	}
+
+	/**
+	 * Executes one step of all the simulations and returns when all of them have completed it, or immediately if the
+	 * experiment thread is interrupted (in which case the interrupt flag is left set for the caller to detect).
+	 */
+	@Override
+	public void step() {
+		if (shutdown) return;
+		final ISimulationAgent[] sims = simulations.toArray(new ISimulationAgent[0]);
+		final int workers = Math.min(concurrency, sims.length);
+		if (workers == 0) return;
+		final AtomicInteger next = new AtomicInteger();
+		final Runnable worker = () -> {
+			int i;
+			while (!shutdown && (i = next.getAndIncrement()) < sims.length) {
+				final ISimulationAgent agent = sims[i];
+				if (agent.dead()) { continue; }
+				try {
+					agent.step();
+				} catch (Throwable tg) {
+					EXCEPTION_HANDLER.uncaughtException(Thread.currentThread(), tg);
+				}
+			}
+		};
+		// The executor may have been replaced after a change in the preferences
+		final ExecutorService current = GamaExecutorService.getSimulationExecutor();
+		final ExecutorService ex = current == null ? executor : current;
+		final List<Future<?>> futures = new ArrayList<>(workers);
+		try {
+			for (int i = 0; i < workers; i++) { futures.add(ex.submit(worker)); }
+		} catch (RejectedExecutionException e) {
+			// The executor has been shut down: the remaining simulations are stepped by the experiment thread
+			worker.run();
+		}
+		for (final Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				EXCEPTION_HANDLER.uncaughtException(Thread.currentThread(), e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public void dispose() {
+		shutdown = true;
+		simulations.clear();
+	}
+
+	@Override
+	public Set<ISimulationAgent> getStepable() { return simulations; }
+
+	@Override
+	public int getActiveThreads() { return simulations.size(); }
+
+	@Override
+	public boolean hasSimulations() {
+		return !simulations.isEmpty();
+	}
+
+}
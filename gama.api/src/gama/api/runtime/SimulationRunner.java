@@ -16,6 +16,7 @@ import static gama.api.runtime.GamaExecutorService.getParallelism;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import gama.api.kernel.agent.IPopulation;
@@ -126,12 +127,16 @@ public class SimulationRunner implements ISimulationRunner {
 	 * <li>For headless non-batch experiments: concurrency = 1 (sequential)</li>
 	 * <li>Otherwise: determined by experiment's concurrency expression and preferences</li>
 	 * </ul>
+	 * <p>
+	 * Depending on {@link GamaExecutorService#SIMULATIONS_EXECUTION}, the runner returned either gives each simulation
+	 * its own thread (this class) or submits their steps to a shared executor ({@link PooledSimulationRunner}).
+	 * </p>
 	 * 
 	 * @param pop
 	 *            the simulation population whose simulations will be managed
-	 * @return a new SimulationRunner configured appropriately for the experiment type
+	 * @return a new runner configured appropriately for the experiment type
 	 */
-	public static SimulationRunner of(final IPopulation pop) {
+	public static ISimulationRunner of(final IPopulation pop) {
 		int concurrency = 0;
 		final IExperimentSpecies plan = (IExperimentSpecies) pop.getHost().getSpecies();
 		if (plan.isHeadless() && !plan.isBatch()) {
@@ -139,6 +144,8 @@ public class SimulationRunner implements ISimulationRunner {
 		} else {
 			concurrency = getParallelism(pop.getHost().getScope(), plan.getConcurrency(), Caller.SIMULATION);
 		}
+		final ExecutorService executor = GamaExecutorService.getSimulationExecutor();
+		if (executor != null) return new PooledSimulationRunner(executor, concurrency);
 		return new SimulationRunner(concurrency < 0 ? 1 : concurrency);
 	}
 
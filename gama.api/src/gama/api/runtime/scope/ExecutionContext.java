@@ -10,8 +10,9 @@
  ********************************************************************************************************/
 package gama.api.runtime.scope;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import gama.api.gaml.symbols.ISymbol;
@@ -183,6 +184,15 @@ import gama.api.gaml.symbols.ISymbol;
  * }
  * }</pre>
  * 
+ * <h2>Storage</h2>
+ * 
+ * <p>
+ * The local variables are stored in two parallel arrays (names and values), searched linearly from the most recent
+ * definition. Contexts rarely hold more than a few variables, so this is faster than hashing the names, and defining a
+ * variable does not allocate anything once the arrays have been created. Looking up a temporary variable walks the
+ * chain of contexts in a loop rather than recursively.
+ * </p>
+ * 
  * <h2>Context Depth</h2>
  * 
  * <p>
@@ -259,8 +269,14 @@ public class ExecutionContext implements IExecutionContext {
 		return result;
 	}
 
-	/** The local. */
-	Map<String, Object> local;
+	/** The names of the local variables. Null until the first one is defined. */
+	String[] names;
+
+	/** The values of the local variables, at the same positions as their names. */
+	Object[] values;
+
+	/** The number of local variables. */
+	int size;
 
 	/** The outer. */
 	IExecutionContext outer;
@@ -273,7 +289,9 @@ public class ExecutionContext implements IExecutionContext {
 
 	@Override
 	public void dispose() {
-		local = null;
+		names = null;
+		values = null;
+		size = 0;
 		outer = null;
 		scope = null;
 	}
@@ -291,19 +309,44 @@ public class ExecutionContext implements IExecutionContext {
 	@Override
 	public final IExecutionContext getOuterContext() { return outer; }
 
+	/**
+	 * The position of a local variable in the arrays, or -1 if it is not defined in this context.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the index
+	 */
+	int indexOf(final String name) {
+		for (int i = size - 1; i >= 0; i--) {
+			final String n = names[i];
+			if (n == name || n != null && n.equals(name)) return i;
+		}
+		return -1;
+	}
+
 	@Override
 	public void setTempVar(final String name, final Object value) {
-		if (local == null || !local.containsKey(name)) {
-			if (outer != null) { outer.setTempVar(name, value); }
-		} else {
-			local.put(name, value);
+		IExecutionContext context = this;
+		while (context instanceof ExecutionContext ec) {
+			final int i = ec.indexOf(name);
+			if (i >= 0) {
+				ec.values[i] = value;
+				return;
+			}
+			context = ec.outer;
 		}
+		if (context != null) { context.setTempVar(name, value); }
 	}
 
 	@Override
 	public Object getTempVar(final String name) {
-		if (local == null || !local.containsKey(name)) return outer == null ? null : outer.getTempVar(name);
-		return local.get(name);
+		IExecutionContext context = this;
+		while (context instanceof ExecutionContext ec) {
+			final int i = ec.indexOf(name);
+			if (i >= 0) return ec.values[i];
+			context = ec.outer;
+		}
+		return context == null ? null : context.getTempVar(name);
 	}
 
 	/**
@@ -315,14 +358,13 @@ public class ExecutionContext implements IExecutionContext {
 	 * @return the execution context
 	 * @date 3 août 2023
 	 */
-	@SuppressWarnings ("unchecked")
 	@Override
 	public ExecutionContext createCopy(final ISymbol command) {
 		final ExecutionContext r = create(scope, outer, command);
-		if (local != null) {
-			// ExecutionContext is used on a single thread; a plain HashMap is sufficient
-			// and avoids the overhead of Collections.synchronizedMap.
-			r.local = new HashMap<>(local);
+		if (size > 0) {
+			r.names = Arrays.copyOf(names, size);
+			r.values = Arrays.copyOf(values, size);
+			r.size = size;
 		}
 		return r;
 	}
@@ -341,45 +383,66 @@ public class ExecutionContext implements IExecutionContext {
 		return create(this, command);
 	}
 
+	/**
+	 * Returns a copy of the local variables, in the order of their definition.
+	 */
 	@Override
 	public Map<? extends String, ? extends Object> getLocalVars() {
-		return local == null ? Collections.EMPTY_MAP : local;
+		if (size == 0) return Collections.emptyMap();
+		final Map<String, Object> result = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) { result.put(names[i], values[i]); }
+		return result;
 	}
 
 	@Override
 	public void clearLocalVars() {
-		local = null;
+		names = null;
+		values = null;
+		size = 0;
 	}
 
 	@Override
 	public void putLocalVar(final String varName, final Object val) {
-		// ExecutionContext is used on a single thread; a plain HashMap avoids
-		// the unnecessary synchronization overhead of Collections.synchronizedMap.
-		if (local == null) { local = new HashMap<>(); }
-		local.put(varName, val);
+		final int i = indexOf(varName);
+		if (i >= 0) {
+			values[i] = val;
+			return;
+		}
+		if (names == null) {
+			names = new String[4];
+			values = new Object[4];
+		} else if (size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		names[size] = varName;
+		values[size++] = val;
 	}
 
 	@Override
 	public Object getLocalVar(final String string) {
-		if (local == null) return null;
-		return local.get(string);
+		final int i = indexOf(string);
+		return i < 0 ? null : values[i];
 	}
 
 	@Override
 	public boolean hasLocalVar(final String name) {
-		if (local == null) return false;
-		return local.containsKey(name);
+		return indexOf(name) >= 0;
 	}
 
 	@Override
 	public void removeLocalVar(final String name) {
-		if (local == null) return;
-		local.remove(name);
+		final int i = indexOf(name);
+		if (i < 0) return;
+		System.arraycopy(names, i + 1, names, i, size - i - 1);
+		System.arraycopy(values, i + 1, values, i, size - i - 1);
+		names[--size] = null;
+		values[size] = null;
 	}
 
 	@Override
 	public String toString() {
-		return "execution context " + local;
+		return "execution context " + getLocalVars();
 	}
 
 	@Override
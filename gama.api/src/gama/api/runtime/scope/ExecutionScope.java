@@ -44,6 +44,7 @@ import gama.api.types.list.IList;
 import gama.api.types.topology.ITopology;
 import gama.api.ui.IGui;
 import gama.api.ui.displays.IGraphicsScope;
+import gama.api.utils.PoolUtils;
 import gama.api.utils.StringUtils;
 import gama.api.utils.benchmark.StopWatch;
 import gama.api.utils.collections.Collector;
@@ -333,6 +334,13 @@ public class ExecutionScope implements IScope {
 	 */
 	private static final String ANONYMOUS_SCOPE_NAME = "<scope>";
 
+	/**
+	 * The scopes given to the workers of parallel executions (see {@link #fork(String)}), reset when they are released
+	 * rather than reallocated for each agent or each chunk of agents.
+	 */
+	private static final PoolUtils.ObjectPool<ExecutionScope> FORKED = PoolUtils.create("Forked Execution Scope", true,
+			() -> new ExecutionScope(null, " - forked - ").pooled(), null, ExecutionScope::clear);
+
 	/** The scope name. */
 	private final String scopeName;
 
@@ -358,6 +366,12 @@ public class ExecutionScope implements IScope {
 	 */
 	boolean exclusive = false;
 
+	/** Whether this scope belongs to the pool of forked scopes. */
+	private boolean pooled = false;
+
+	/** Whether this forked scope is referenced by an error or a warning, and cannot go back to the pool. */
+	private volatile boolean retained = false;
+
 	/** The current symbol. */
 	// private ISymbol currentSymbol;
 
@@ -423,6 +437,8 @@ public class ExecutionScope implements IScope {
 		this.setExecutionContext(context == null ? ExecutionContext.create(this, null) : context.createCopy(null));
 		this.agentContext = agentContext == null ? AgentExecutionContext.create(root, null) : agentContext;
 		this.additionalContext.copyFrom(specialContext);
+		final IClock clock = root == null ? null : root.getClock();
+		if (clock != null) { clock.scopeCreated(); }
 	}
 
 	/**
@@ -804,6 +820,14 @@ public class ExecutionScope implements IScope {
 	public IExecutionResult step(final IAgent agent) {
 		if (!canContinue(agent)) return FAILED;
 		final boolean pushed = push(agent);
+		// With a counter-based generator, the agent draws from its own stream for this cycle
+		final ITopLevelAgent root = getRoot();
+		final IRandom random = root == null ? null : root.getRandomGenerator();
+		final boolean stream = random != null && random.hasStreams();
+		if (stream) {
+			final IClock clock = root.getClock();
+			random.enterStream(clock == null ? 0 : clock.getCycle(), agent);
+		}
 		try {
 			try (StopWatch w = GAMA.benchmark(this, agent)) {
 				return withValue(agent.step(this));
@@ -817,6 +841,7 @@ public class ExecutionScope implements IScope {
 				return FAILED;
 			}
 		} finally {
+			if (stream) { random.exitStream(); }
 			if (pushed) { pop(agent); }
 		}
 	}
@@ -1306,7 +1331,36 @@ public class ExecutionScope implements IScope {
 
 	@Override
 	public IScope copy(final String additionalName) {
-		final ExecutionScope scope = new ExecutionScope(getRoot(), additionalName);
+		return copyInto(new ExecutionScope(getRoot(), additionalName));
+	}
+
+	@Override
+	public IScope fork(final String additionalName) {
+		final ExecutionScope scope = FORKED.get();
+		scope.setRoot(getRoot());
+		scope.flowStatus = FlowStatus.NORMAL;
+		scope._trace = scope._in_try_mode = scope._errors_disabled = false;
+		return copyInto(scope);
+	}
+
+	@Override
+	public void release() {
+		if (pooled && !retained) { FORKED.release(this); }
+	}
+
+	@Override
+	public void retain() {
+		if (pooled) { retained = true; }
+	}
+
+	/**
+	 * Copies the contexts of this scope into another one.
+	 *
+	 * @param scope
+	 *            the scope to fill
+	 * @return this scope
+	 */
+	private ExecutionScope copyInto(final ExecutionScope scope) {
 		scope.setExecutionContext(executionContext == null ? null : executionContext.createCopy(null));
 		// A forked scope is owned by exactly one thread; use a shallow copy of the agent
 		// context chain to avoid the recursive allocation of createCopy(), and mark the
@@ -1317,6 +1371,16 @@ public class ExecutionScope implements IScope {
 		return scope;
 	}
 
+	/**
+	 * Marks this scope as belonging to the pool of forked scopes.
+	 *
+	 * @return this scope
+	 */
+	private ExecutionScope pooled() {
+		pooled = true;
+		return this;
+	}
+
 	/**
 	 * Copy as graphics.
 	 *
@@ -262,6 +262,12 @@ public class GraphicsScope extends ExecutionScope implements IGraphicsScope {
 		return super.copyForGraphics(additionalName);
 	}
 
+	@Override
+	public IGraphicsScope fork(final String additionalName) {
+		// The pooled scopes are not graphics scopes
+		return copy(additionalName);
+	}
+
 	@Override
 	public boolean reportErrors() {
 		return super.reportErrors() && GamaPreferences.Runtime.ERRORS_IN_DISPLAYS.getValue();
@@ -168,6 +168,32 @@ public interface IScope extends Closeable, IBenchmarkable {
 	 */
 	IScope copy(String additionalName);
 
+	/**
+	 * Returns a copy of this scope meant to be used by one worker of a parallel execution, possibly reused from a pool
+	 * of scopes rather than allocated. The copy must be given back with {@link #release()} once the worker is done
+	 * with it, unless its execution has been interrupted by an error (in which case it may still be referenced).
+	 *
+	 * @param additionalName
+	 *            Name to append to the current scope name
+	 * @return A copy of this scope, exclusive to the current thread until it is released
+	 */
+	default IScope fork(final String additionalName) {
+		return copy(additionalName);
+	}
+
+	/**
+	 * Gives back a scope obtained with {@link #fork(String)}, which must not be used afterwards. Does nothing for the
+	 * other scopes.
+	 */
+	default void release() {}
+
+	/**
+	 * Marks this scope as referenced by an error or a warning, which can outlive the execution (e.g. in the errors
+	 * view): a scope obtained with {@link #fork(String)} is then not given back by {@link #release()}. Does nothing for
+	 * the other scopes.
+	 */
+	default void retain() {}
+
 	/**
 	 * Creates a new graphics-enabled scope that is a copy of this one, with an additional name. The resulting scope
 	 * supports graphical operations through the IGraphicsScope interface.
@@ -61,6 +61,7 @@ import gama.api.types.matrix.IMatrix;
  * <li>Use {@link #setSaveComputedShortestPaths(boolean)} to enable/disable caching</li>
  * <li>Cached paths are returned instantly without recomputation</li>
  * <li>Cache is invalidated when the graph structure changes</li>
+ * <li>Cache is bounded in memory (see {@link #setCacheMaxMemory(int)}) and evicts the least recently used paths</li>
  * <li>Paths can be saved to/loaded from a matrix for persistence</li>
  * </ul>
  * </p>
@@ -224,6 +225,30 @@ public interface IPathComputer<V, E> {
 	 */
 	void setSaveComputedShortestPaths(boolean saveComputedShortestPaths);
 
+	/**
+	 * Sets the maximum memory used by the cache of shortest paths. When it is exceeded, the least recently used paths
+	 * are evicted. The paths already cached are kept within the new limit.
+	 *
+	 * @param megabytes
+	 *            the maximum memory in MB (0 or less for an unbounded cache)
+	 */
+	void setCacheMaxMemory(int megabytes);
+
+	/**
+	 * Gets the maximum memory used by the cache of shortest paths.
+	 *
+	 * @return the maximum memory in MB (0 or less if the cache is unbounded)
+	 */
+	int getCacheMaxMemory();
+
+	/**
+	 * Gets the statistics of the cache of shortest paths since the creation of the graph: "size" (the number of
+	 * entries), "hits", "misses", "hit_rate" and "evictions".
+	 *
+	 * @return the statistics
+	 */
+	Map<String, Number> getCacheStatistics();
+
 	/**
 	 * Load shortest paths.
 	 *
@@ -279,6 +304,48 @@ public interface IPathComputer<V, E> {
 	 */
 	IList<E> computeBestRouteBetween(IScope scope, V source, V target);
 
+	/**
+	 * Computes the shortest paths from a source to several targets, with only one search of the graph.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param source
+	 *            the source
+	 * @param targets
+	 *            the targets
+	 * @return the list of paths, in the order of the targets (null for the targets that cannot be reached)
+	 */
+	IList<IPath<V, E, IGraph<V, E>>> computeShortestPathsFrom(IScope scope, V source, IList<V> targets);
+
+	/**
+	 * Computes the lengths of the shortest paths from a source to several targets, with only one search of the graph.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param source
+	 *            the source
+	 * @param targets
+	 *            the targets
+	 * @return the list of distances, in the order of the targets ({@link Double#POSITIVE_INFINITY} for the targets
+	 *         that cannot be reached)
+	 */
+	IList<Double> computeDistancesFrom(IScope scope, V source, IList<V> targets);
+
+	/**
+	 * Computes the matrix of the lengths of the shortest paths between sources and targets (origin-destination
+	 * matrix), with one search per source. The searches are run in parallel.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param sources
+	 *            the sources
+	 * @param targets
+	 *            the targets
+	 * @return a matrix of floats whose element at column j and row i is the distance from the source i to the target j
+	 *         ({@link Double#POSITIVE_INFINITY} if it cannot be reached)
+	 */
+	IMatrix<Double> computeDistanceMatrix(IScope scope, IList<V> sources, IList<V> targets);
+
 	/**
 	 * Compute K shortest paths between.
 	 *
@@ -81,4 +81,17 @@ public interface VertexRelationship<T> {
 	 */
 	boolean equivalent(IScope scope, T p1, T p2);
 
+	/**
+	 * Returns the distance beyond which two vertices cannot be related, so that the vertices that can be related to a
+	 * vertex can be looked for in a spatial index, among the ones whose envelope is within this distance of its own,
+	 * before testing the relation on them.
+	 *
+	 * @param scope the execution scope
+	 * @return the distance, or a negative value if the relation does not depend on the distance between the vertices
+	 *         (the default)
+	 */
+	default double getReach(final IScope scope) {
+		return -1;
+	}
+
 }
\ No newline at end of file
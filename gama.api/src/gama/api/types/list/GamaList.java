@@ -113,6 +113,23 @@ public class GamaList<E> extends ArrayList<E> implements IList<E> {
 	/** The type. */
 	private IContainerType type;
 
+	/** The number of elements replaced, which ArrayList does not count as modifications. */
+	private int replacements;
+
+	@Override
+	public E set(final int index, final E element) {
+		replacements++;
+		return super.set(index, element);
+	}
+
+	/**
+	 * Returns a number that changes whenever elements are added, removed or replaced, so that one can know cheaply
+	 * whether the list has changed since it was last seen. Like the list itself, it is not synchronized.
+	 *
+	 * @return the version of the list
+	 */
+	public long getVersion() { return (long) modCount << 32 | replacements & 0xFFFFFFFFL; }
+
 	@Override
 	public IContainerType<?> getGamlType() { return type; }
 
@@ -10,6 +10,10 @@
  ********************************************************************************************************/
 package gama.api.utils.benchmark;
 
+import java.util.Map;
+
+import gama.api.runtime.AdaptiveParallelism;
+import gama.api.runtime.AdaptiveParallelism.Decision;
 import gama.api.utils.StringUtils;
 import gama.api.utils.collections.GamaTree.Order;
 import gama.dev.DEBUG;
@@ -46,6 +50,12 @@ public class BenchmarkConsolePrinter {
 			});
 			sb.append(StringUtils.LN);
 		});
+		final Map<String, Decision> decisions = AdaptiveParallelism.getDecisions();
+		if (!decisions.isEmpty()) {
+			sb.append(S).append("Adaptive parallelism").append(S);
+			decisions.forEach((species, d) -> sb.append(StringUtils.LN).append(species).append(": ").append(d));
+			sb.append(StringUtils.LN);
+		}
 		DEBUG.LOG(sb.toString());
 	}
 
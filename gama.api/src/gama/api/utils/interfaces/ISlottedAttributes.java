@@ -0,0 +1,61 @@
+/*******************************************************************************************************
+ *
+ * ISlottedAttributes.java, in gama.api, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.api.utils.interfaces;
+
+import gama.api.kernel.species.ISpecies;
+
+/**
+ * Represents objects that store the values of their declared attributes in a compact array of slots rather than in a
+ * map keyed by name. The index of each slot is fixed once, when the species is built (see
+ * {@link ISpecies#allocateAttributeSlot(String)}), so that accessing an attribute does not require hashing its name.
+ *
+ * @author drogoul
+ *
+ */
+public interface ISlottedAttributes {
+
+	/** The marker of a slot that has never been assigned (distinct from a slot holding null) */
+	Object UNSET = new Object() {
+
+		@Override
+		public String toString() {
+			return "<unset>";
+		}
+	};
+
+	/**
+	 * Returns the species that defines the layout of the slots. A slot index obtained from another species must not
+	 * be used on this object.
+	 *
+	 * @return the species defining the layout
+	 */
+	ISpecies getSlotLayout();
+
+	/**
+	 * Returns the value stored in the slot, or {@link #UNSET} if it has never been assigned.
+	 *
+	 * @param slot
+	 *            a valid slot index
+	 * @return the value or {@link #UNSET}
+	 */
+	Object getSlotValue(int slot);
+
+	/**
+	 * Stores a value in the slot.
+	 *
+	 * @param slot
+	 *            a valid slot index
+	 * @param value
+	 *            the value (can be null)
+	 */
+	void setSlotValue(int slot, Object value);
+
+}
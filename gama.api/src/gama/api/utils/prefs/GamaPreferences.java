@@ -697,6 +697,22 @@ public class GamaPreferences {
 				create("pref_memory_action", "When running out of memory in an experiment, GAMA should", true,
 						IType.BOOL, true).in(NAME, MEMORY).withLabels("Close", "Exit");
 
+		/**
+		 * The default maximum memory, in MB, used by the cache of shortest paths of each graph (0 for an unbounded
+		 * cache). Can be changed for a given graph with the operator {@code with_cache_memory}.
+		 */
+		public static final Pref<Integer> CORE_PATH_CACHE_MEMORY = create("pref_path_cache_memory",
+				"Maximum memory (in MB) used by the cache of shortest paths of each graph (0 for no limit)", 64,
+				IType.INT, true).in(NAME, MEMORY);
+
+		/**
+		 * The maximum memory, in MB, occupied by the states kept to step back in each simulation (0 for no limit).
+		 * Beyond, the oldest states are moved to a temporary file.
+		 */
+		public static final Pref<Integer> CORE_HISTORY_MEMORY = create("pref_history_memory",
+				"Maximum memory (in MB) used to keep the past states of each simulation (0 for no limit)", 256,
+				IType.INT, true).in(NAME, MEMORY);
+
 		/** The name of the "Runtime errors" group within the Execution tab. */
 		public static final String ERRORS = "Runtime errors";
 
@@ -1262,6 +1278,27 @@ public class GamaPreferences {
 							} catch (CoreException e) {}
 						}).hidden();
 
+		/**
+		 * Whether the GAML operators evaluated many times should be compiled (into method handles that call their Java
+		 * methods directly) instead of being interpreted. Only applies to pure operators on constants and variables.
+		 */
+		public static final Pref<Boolean> EXPRESSION_COMPILATION = create("pref_compile_expressions",
+				"Compile the operators evaluated many times (experimental, falls back to interpretation in case of error)",
+				false, IType.BOOL, true).in(NAME, UNSAFE);
+
+		/**
+		 * Whether the subexpressions repeated in the expression of a facet (if it has no side effects) should be
+		 * computed only once each time this expression is evaluated. Enabling this triggers a clean rebuild of all
+		 * models.
+		 */
+		public static final Pref<Boolean> COMMON_SUBEXPRESSIONS = create("pref_share_common_subexpressions",
+				"Compute the repeated subexpressions only once (experimental, performs a rebuild of models)", false,
+				IType.BOOL, true).in(NAME, UNSAFE).onChange(v -> {
+					try {
+						GAMA.getWorkspaceManager().getWorkspace().build(IncrementalProjectBuilder.CLEAN_BUILD, null);
+					} catch (CoreException e) {}
+				});
+
 		/**
 		 * Whether an optimized but potentially approximate path computation algorithm should be used for the GAML
 		 * {@code path_between} operators and {@code goto} action. May cause agents to "jump" over obstacles in some
@@ -0,0 +1,211 @@
+/*******************************************************************************************************
+ *
+ * CounterRNG.java, in gama.api, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.api.utils.random;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gama.api.kernel.agent.IAgent;
+import gama.dev.DEBUG;
+
+/**
+ * A counter-based generator: the n-th number of a stream is obtained by hashing (with the SplitMix64 finalizer) the key
+ * of the stream and n, so that no state is shared between the streams and a stream can be reproduced from its key
+ * alone. The platform opens one stream per agent when it steps it (keyed by the seed, the cycle and the identity of the
+ * agent) and one per agent targeted by an {@code ask} (keyed by a number drawn from the stream of the asking agent and
+ * the identity of the target). The numbers drawn by an agent are then the same whatever the thread that runs it and the
+ * order in which the agents are run, i.e. parallel runs reproduce sequential ones exactly.
+ *
+ * <p>
+ * The streams opened by a thread are stacked in a thread local. Outside any stream (e.g. when the simulation is
+ * initialised), numbers are drawn from a default stream whose counter is atomic: safe, but reproducible only if this
+ * code is run sequentially.
+ * </p>
+ *
+ * @author drogoul
+ */
+public class CounterRNG extends GamaRNG {
+
+	static {
+		DEBUG.OFF();
+	}
+
+	/** The increment of the counters (odd, 2^64 divided by the golden ratio). */
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The streams opened by a thread.
+	 */
+	static final class Streams {
+
+		/** The keys of the streams. */
+		long[] keys = new long[8];
+
+		/** The number of numbers already drawn from each stream. */
+		long[] counters = new long[8];
+
+		/** The number of streams opened. */
+		int depth;
+	}
+
+	/** The key derived from the seed. */
+	final long key;
+
+	/** The counter of the default stream. */
+	final AtomicLong counter = new AtomicLong();
+
+	/** The streams of each thread. */
+	final ThreadLocal<Streams> streams = ThreadLocal.withInitial(Streams::new);
+
+	/**
+	 * Seed the RNG using the provided seed generation strategy.
+	 *
+	 * @param seedGenerator
+	 *            The seed generation strategy that will provide the seed value for this RNG.
+	 */
+	public CounterRNG(final IRandom seedGenerator) {
+		this(seedGenerator.generateSeed(8));
+	}
+
+	/**
+	 * Creates an RNG and seeds it with the specified seed data.
+	 *
+	 * @param seed
+	 *            The seed data used to initialise the RNG.
+	 */
+	private CounterRNG(final byte[] seed) {
+		super(seed);
+		long value = 0;
+		for (final byte b : seed) { value = value << 8 | b & 0xff; }
+		key = mix(value);
+	}
+
+	/**
+	 * The SplitMix64 finalizer.
+	 *
+	 * @param z
+	 *            the value to mix
+	 * @return the mixed value
+	 */
+	static long mix(long z) {
+		z = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+		return z ^ z >>> 31;
+	}
+
+	/**
+	 * Combines a key with a value into a new key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @return the combined key
+	 */
+	static long combine(final long key, final long value) {
+		return mix(key ^ mix(value + GOLDEN_GAMMA));
+	}
+
+	/**
+	 * The identity of an agent, which does not depend on the run: the name of its species and its index, and the ones
+	 * of its hosts.
+	 *
+	 * @param agent
+	 *            the agent
+	 * @return the key of the agent
+	 */
+	static long keyOf(final IAgent agent) {
+		long result = 0;
+		for (IAgent a = agent; a != null; a = a.getHost()) {
+			result = combine(combine(result, a.getSpeciesName().hashCode()), a.getIndex());
+		}
+		return result;
+	}
+
+	/**
+	 * Opens the stream of an agent on the current thread.
+	 *
+	 * @param site
+	 *            the site of the stream (the cycle, or a number drawn from the stream of the agent asking)
+	 * @param agent
+	 *            the agent
+	 */
+	void enterStream(final long site, final IAgent agent) {
+		final Streams s = streams.get();
+		if (s.depth == s.keys.length) {
+			s.keys = Arrays.copyOf(s.keys, s.depth * 2);
+			s.counters = Arrays.copyOf(s.counters, s.depth * 2);
+		}
+		s.keys[s.depth] = combine(combine(key, site), keyOf(agent));
+		s.counters[s.depth++] = 0;
+	}
+
+	/**
+	 * Closes the last stream opened on the current thread.
+	 */
+	void exitStream() {
+		final Streams s = streams.get();
+		if (s.depth > 0) { s.depth--; }
+	}
+
+	/**
+	 * Draws the next 64 bits of the current stream.
+	 *
+	 * @return the long
+	 */
+	long nextBits() {
+		final Streams s = streams.get();
+		if (s.depth == 0) return mix(key + counter.incrementAndGet() * GOLDEN_GAMMA);
+		final int d = s.depth - 1;
+		return mix(s.keys[d] + ++s.counters[d] * GOLDEN_GAMMA);
+	}
+
+	@Override
+	protected int internalNext(final int bits) {
+		return (int) (nextBits() >>> 64 - bits);
+	}
+
+	@Override
+	public long nextLong() {
+		return nextBits();
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextBits() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Polar method of Marsaglia, without keeping the second value (which would be a state shared by the streams).
+	 */
+	@Override
+	public double nextGaussian() {
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+	}
+
+	/**
+	 * The number of numbers drawn from the default stream.
+	 */
+	@Override
+	public int getUsage() { return (int) counter.get(); }
+
+	@Override
+	public void setUsage(final int usage) {
+		counter.set(usage);
+	}
+
+}
@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Random;
 
 import gama.annotations.constants.IKeyword;
+import gama.api.kernel.agent.IAgent;
 import gama.api.types.geometry.IPoint;
 
 /**
@@ -23,7 +24,7 @@ import gama.api.types.geometry.IPoint;
 public interface IRandom {
 
 	/** The Constant DOC. */
-	String DOC = "The random number generator to use. Four different ones are at the disposal of the modeler: " + "'"
+	String DOC = "The random number generator to use. Five different ones are at the disposal of the modeler: " + "'"
 			+ IKeyword.MERSENNE + "'"
 			+ " represents the default generator, based on the Mersenne-Twister algorithm. Very reliable, fast and deterministic (that is, using the same seed and the same sequence of calls, it will return the same stream of pseudo-random numbers). This algorithm is however not safe to use in simulations where agents can behave in parallel; "
 			+ "'threaded'"
@@ -31,7 +32,9 @@ public interface IRandom {
 			+ "'" + IKeyword.PARALLEL + "'"
 			+ " is a version of the Mersenne-Twister algorithm that can be safely used in parallel simulations by preventing a concurrent access to its internal state. Determinism is guaranteed (in terms of generation, but not in terms of execution, as the sequence in which the threads will access it cannot be determined) and it performs a bit slower than its base version."
 			+ "'" + IKeyword.JAVA + "'"
-			+ " invokes the standard generator provided by the JDK, deterministic and thread-safe, albeit slower than all the other ones";
+			+ " invokes the standard generator provided by the JDK, deterministic and thread-safe, albeit slower than all the other ones; "
+			+ "'counter'"
+			+ " is a counter-based generator, based on the SplitMix algorithm, that gives each agent its own stream of numbers at each cycle. It can be safely used in parallel simulations without any lock, and guarantees that parallel and sequential runs produce exactly the same results";
 
 	/**
 	 * Sets the usage.
@@ -311,4 +314,39 @@ public interface IRandom {
 	 */
 	<T> T choiceIn(Map<T, ? extends Number> distribution);
 
+	/**
+	 * Whether the generator draws the numbers of each agent from its own stream (see {@link CounterRNG}), in which case
+	 * the platform opens these streams with {@link #enterStream(long, IAgent)} before running the agents.
+	 *
+	 * @return true, if the generator uses streams
+	 */
+	default boolean hasStreams() {
+		return false;
+	}
+
+	/**
+	 * Opens, on the current thread, the stream of an agent at a site. Does nothing if the generator does not use
+	 * streams. Each call must be followed by a call to {@link #exitStream()}.
+	 *
+	 * @param site
+	 *            the site (the cycle when the agent is stepped, a number returned by {@link #splitStream()} otherwise)
+	 * @param agent
+	 *            the agent
+	 */
+	default void enterStream(final long site, final IAgent agent) {}
+
+	/**
+	 * Closes the last stream opened on the current thread.
+	 */
+	default void exitStream() {}
+
+	/**
+	 * Draws, from the current stream, the site of the streams of the agents about to be run by the current one.
+	 *
+	 * @return the site, or 0 if the generator does not use streams
+	 */
+	default long splitStream() {
+		return 0L;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+/*******************************************************************************************************
+ *
+ * RandomDraws.java, in gama.api, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.api.utils.random;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import gama.annotations.operator;
+import gama.annotations.constants.IKeyword;
+import gama.annotations.support.IConcept;
+import gama.annotations.support.IOperatorCategory;
+import gama.api.compilation.artefacts.IArtefact;
+import gama.api.compilation.descriptions.IVariableDescription;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.expressions.IOperator;
+import gama.api.gaml.expressions.IVarExpression;
+
+/**
+ * Tells whether the evaluation of an expression may draw numbers from the random number generator, which matters when
+ * it is evaluated concurrently with other expressions: unless the generator gives each agent its own stream (see
+ * {@link IRandom#hasStreams()}), the draws of different threads would share (and corrupt) its state.
+ *
+ * <p>
+ * The answer is conservative: an expression may draw numbers if it uses an operator of the 'random' category or
+ * concept, one of the operators below that draw numbers without belonging to it, the call of an action or of a
+ * constructor, or an attribute defined by a function that may draw numbers.
+ * </p>
+ *
+ * @author drogoul
+ */
+public final class RandomDraws {
+
+	/** The operators that draw random numbers without being declared in the 'random' category or concept. */
+	private static final Set<String> OPERATORS = Set.of("one_of", "any", "among", "shuffle", "sample",
+			"any_location_in", "any_point_in", "points_at", "closest_to", "betweenness_centrality", "edge_betweenness",
+			"promethee_DM", "electre_DM", "evidence_theory_DM");
+
+	/**
+	 * Instantiates a new random draws.
+	 */
+	private RandomDraws() {}
+
+	/**
+	 * Whether the evaluation of the expression may draw random numbers.
+	 *
+	 * @param expression
+	 *            the expression
+	 * @return true if it may, false if it is known not to
+	 */
+	public static boolean mayDraw(final IExpression expression) {
+		return mayDraw(expression, new HashSet<>());
+	}
+
+	/**
+	 * Whether the evaluation of the expression may draw random numbers, the functions already visited being skipped.
+	 */
+	private static boolean mayDraw(final IExpression expression, final Set<IVariableDescription> visited) {
+		if (expression == null) return false;
+		return expression.findAny(e -> {
+			if (e instanceof IVarExpression.Agent v) {
+				if (!(v.getDefinitionDescription() instanceof IVariableDescription d) || !d.isFunction()
+						|| !visited.add(d))
+					return false;
+				final IExpression function = d.getFacetExpr(IKeyword.FUNCTION);
+				return function == null || mayDraw(function, visited);
+			}
+			if (!(e instanceof IOperator op)) return false;
+			if (OPERATORS.contains(op.getName())) return true;
+			final IArtefact prototype = op.getPrototype();
+			// The calls of actions and constructors have no prototype, unlike the operators
+			if (prototype == null) return !(e instanceof IExpression.List || e instanceof IExpression.Map);
+			if (!(prototype instanceof IArtefact.Operator p)) return false;
+			final AnnotatedElement base = p.getJavaBase();
+			final operator annotation = base == null ? null : base.getAnnotation(operator.class);
+			return annotation != null && (Arrays.asList(annotation.category()).contains(IOperatorCategory.RANDOM)
+					|| Arrays.asList(annotation.concept()).contains(IConcept.RANDOM));
+		});
+	}
+
+}
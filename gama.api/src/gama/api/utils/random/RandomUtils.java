@@ -19,6 +19,7 @@ import java.util.Random;
 
 import gama.api.GAMA;
 import gama.api.constants.Generators;
+import gama.api.kernel.agent.IAgent;
 import gama.api.types.geometry.GamaPointFactory;
 import gama.api.types.geometry.IPoint;
 import gama.api.utils.MathUtils;
@@ -88,6 +89,7 @@ public class RandomUtils implements IRandom {
 			case JAVA -> new JavaRNG(this);
 			case THREADED -> new ThreadLocalRNG(this);
 			case PARALLEL -> new ParallelMersenneTwisterRNG(this);
+			case COUNTER -> new CounterRNG(this);
 			default -> new MersenneTwisterRNG(this);
 		};
 
@@ -410,6 +412,26 @@ public class RandomUtils implements IRandom {
 	@Override
 	public Random getGenerator() { return generator.getRandomGenerator(); }
 
+	@Override
+	public boolean hasStreams() {
+		return generator instanceof CounterRNG;
+	}
+
+	@Override
+	public void enterStream(final long site, final IAgent agent) {
+		if (generator instanceof CounterRNG c) { c.enterStream(site, agent); }
+	}
+
+	@Override
+	public void exitStream() {
+		if (generator instanceof CounterRNG c) { c.exitStream(); }
+	}
+
+	@Override
+	public long splitStream() {
+		return generator instanceof CounterRNG c ? c.nextBits() : 0L;
+	}
+
 	/**
 	 * One of.
 	 *
@@ -0,0 +1,138 @@
+/*******************************************************************************************************
+ *
+ * AgentAttributesMap.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.agent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gama.api.gaml.types.IContainerType;
+import gama.api.gaml.types.Types;
+import gama.api.types.map.GamaMapSimpleWrapper;
+
+/**
+ * A live map view over the attributes of a {@link MinimalAgent}: the ones stored in its slots and the ones stored in
+ * its (dynamic) map. Reading or writing through this view is equivalent to calling
+ * {@link MinimalAgent#getAttribute(String)} or {@link MinimalAgent#setAttribute(String, Object)}, which allows code
+ * relying on a map of attributes (serialisation, casting agents to maps, 'put ... in: agent', etc.) to keep working
+ * with slotted agents.
+ *
+ * @author drogoul
+ *
+ */
+class AgentAttributesMap extends GamaMapSimpleWrapper<String, Object> {
+
+	/** The agent. */
+	final MinimalAgent agent;
+
+	/** The view. */
+	final Map<String, Object> view = new AbstractMap<>() {
+
+		@Override
+		public Object get(final Object key) {
+			return key instanceof String s ? agent.getAttribute(s) : null;
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return key instanceof String s && agent.hasAttribute(s);
+		}
+
+		@Override
+		public Object put(final String key, final Object value) {
+			final Object old = agent.getAttribute(key);
+			agent.setAttribute(key, value);
+			return old;
+		}
+
+		@Override
+		public Object remove(final Object key) {
+			return key instanceof String s ? agent.removeAttribute(s) : null;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<>() {
+
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					final List<Entry<String, Object>> entries = new ArrayList<>();
+					agent.forEachAttribute((k, v) -> {
+						entries.add(new SimpleEntry<>(k, v) {
+
+							@Override
+							public Object setValue(final Object value) {
+								agent.setAttribute(k, value);
+								return super.setValue(value);
+							}
+						});
+						return true;
+					});
+					final Iterator<Entry<String, Object>> it = entries.iterator();
+					return new Iterator<>() {
+
+						Entry<String, Object> current;
+
+						@Override
+						public boolean hasNext() {
+							return it.hasNext();
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							current = it.next();
+							return current;
+						}
+
+						@Override
+						public void remove() {
+							it.remove();
+							agent.removeAttribute(current.getKey());
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					final int[] size = { 0 };
+					agent.forEachAttribute((k, v) -> {
+						size[0]++;
+						return true;
+					});
+					return size[0];
+				}
+			};
+		}
+	};
+
+	/**
+	 * Instantiates a new view on the attributes of the agent.
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	AgentAttributesMap(final MinimalAgent agent) {
+		this.agent = agent;
+	}
+
+	@Override
+	protected Map<String, Object> delegate() {
+		return view;
+	}
+
+	@Override
+	public IContainerType<?> getGamlType() { return Types.MAP.of(Types.STRING, Types.NO_TYPE); }
+
+}
@@ -9,6 +9,7 @@
  ********************************************************************************************************/
 package gama.core.agent;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -57,8 +58,15 @@ import gama.api.utils.StringUtils;
 import gama.api.utils.files.BufferingUtils;
 import gama.api.utils.geometry.GamaEnvelopeFactory;
 import gama.api.utils.geometry.IEnvelope;
+import gama.api.utils.interfaces.BiConsumerWithPruning;
+import gama.api.utils.interfaces.ISlottedAttributes;
 import gama.api.utils.json.IJson;
 import gama.api.utils.json.IJsonValue;
+import gama.core.population.AbstractPopulation;
+import gama.core.population.AttributeColumns;
+import gama.core.population.AttributeIndexes;
+import gama.core.population.ColumnarPopulation;
+import gama.core.population.GamaPopulation;
 
 /**
  * The Class MinimalAgent.
@@ -73,7 +81,7 @@ import gama.api.utils.json.IJsonValue;
  * @author drogoul
  *
  */
-public class MinimalAgent implements IAgent, Comparable<IAgent> {
+public class MinimalAgent implements IAgent, ISlottedAttributes, Comparable<IAgent> {
 
 	/** The index. */
 	private final int index;
@@ -84,9 +92,24 @@ public class MinimalAgent implements IAgent, Comparable<IAgent> {
 	/** The dying. */
 	protected volatile boolean dying = false;
 
-	/** The attributes. */
+	/** The attributes that are not declared in the species (see {@link #slots} for the declared ones). */
 	protected final AtomicReference<IMap<String, Object>> attributes = new AtomicReference<>();
 
+	/**
+	 * The values of the attributes declared in the species, indexed by the slots allocated by the species. Replaced by
+	 * a larger copy, under the lock of the agent, if the species allocates slots after the creation of the agent.
+	 */
+	protected volatile Object[] slots;
+
+	/** The columns storing the declared attributes when the population is columnar (in which case slots is empty) */
+	protected final AttributeColumns columns;
+
+	/** The row of the agent in the columns (-1 if none). Unlike the index, it is reused once the agent is dead */
+	protected final int row;
+
+	/** The indexes maintained on some of the declared attributes, if any */
+	protected final AttributeIndexes indexes;
+
 	/** The population that this agent belongs to. */
 	protected final IPopulation<? extends IAgent> population;
 
@@ -139,6 +162,12 @@ public class MinimalAgent implements IAgent, Comparable<IAgent> {
 		this.population = population;
 		this.hashCode = hashcode;
 		this.geometry = geometry;
+		final ISpecies species = population == null ? null : population.getSpecies();
+		columns = population instanceof ColumnarPopulation<?> cp ? cp.getColumns() : null;
+		row = columns == null ? -1 : columns.allocateRow();
+		indexes = population instanceof GamaPopulation<?> gp ? gp.getAttributeIndexes() : null;
+		slots = new Object[species == null || columns != null ? 0 : species.getAttributeSlotNames().length];
+		Arrays.fill(slots, UNSET);
 		geometry.setAgent(this);
 	}
 
@@ -640,6 +669,20 @@ public class MinimalAgent implements IAgent, Comparable<IAgent> {
 	@Override
 	public final int getIndex() { return index; }
 
+	/**
+	 * Returns the columns storing the declared attributes of the agent, if its population is columnar.
+	 *
+	 * @return the columns or null
+	 */
+	public AttributeColumns getColumns() { return columns; }
+
+	/**
+	 * Returns the row of the agent in its columns.
+	 *
+	 * @return the row, or -1 if the population is not columnar
+	 */
+	public int getRow() { return row; }
+
 	/**
 	 * Step sub populations.
 	 *
@@ -684,11 +727,15 @@ public class MinimalAgent implements IAgent, Comparable<IAgent> {
 	@Override
 	public boolean step(final IScope scope) throws GamaRuntimeException {
 		boolean result = false;
+		// During a synchronous step of the population, the attributes written are attributed to this agent
+		final AbstractPopulation<?> ap = population instanceof AbstractPopulation<?> p ? p : null;
+		final int writer = ap == null ? 0 : ap.beginStepOf(this);
 		try {
 			result = preStep(scope) && doStep(scope);
 			return result;
 		} finally {
 			if (result) { postStep(scope); }
+			if (ap != null) { ap.endStepOf(writer); }
 		}
 	}
 
@@ -729,10 +776,162 @@ public class MinimalAgent implements IAgent, Comparable<IAgent> {
 	 */
 	@Override
 	public IMap<String, Object> getAttributes(final boolean createIfNeeded) {
+		if (slots.length == 0 && columns == null) return getExtraAttributes(createIfNeeded);
+		return new AgentAttributesMap(this);
+	}
+
+	/**
+	 * Gets the map of the attributes that are not declared in the species of the agent
+	 *
+	 * @param createIfNeeded
+	 *            whether to create the map if it does not exist
+	 * @return the map or null
+	 */
+	protected IMap<String, Object> getExtraAttributes(final boolean createIfNeeded) {
 		if (createIfNeeded) { attributes.compareAndSet(null, GamaMapFactory.create(Types.STRING, Types.NO_TYPE)); }
 		return attributes.get();
 	}
 
+	@Override
+	public ISpecies getSlotLayout() { return getSpecies(); }
+
+	@Override
+	public Object getSlotValue(final int slot) {
+		final Object value;
+		if (columns != null) {
+			value = dead ? UNSET : columns.get(slot, row);
+		} else {
+			final Object[] values = slots;
+			value = slot < values.length ? values[slot] : UNSET;
+		}
+		return population instanceof AbstractPopulation<?> ap ? ap.readSlotValue(this, slot, value) : value;
+	}
+
+	@Override
+	public void setSlotValue(final int slot, final Object value) {
+		if (population instanceof AbstractPopulation<?> ap && ap.defersWritesOf(this)) {
+			ap.deferWrite(this, slot, value);
+			return;
+		}
+		storeSlotValue(slot, value);
+	}
+
+	/**
+	 * Stores a value in a slot, even during a synchronous step of the population (used to store the values written
+	 * during the step once it has ended).
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param value
+	 *            the value
+	 */
+	public void storeSlotValue(final int slot, final Object value) {
+		if (indexes != null && indexes.covers(slot)) { indexes.update(this, slot, getSlotValue(slot), value); }
+		if (columns != null) {
+			if (!dead) { columns.set(slot, row, value); }
+			return;
+		}
+		final Object[] values = slots;
+		if (values.length >= getSpecies().getAttributeSlotNames().length) {
+			values[slot] = value;
+			return;
+		}
+		// The species has allocated slots after the creation of the agent: the slots are replaced under the lock of
+		// the agent, which the writes take until then, so that no value written concurrently is lost
+		synchronized (this) {
+			Object[] current = slots;
+			if (slot >= current.length) {
+				final int length = current.length;
+				current = Arrays.copyOf(current, Math.max(slot + 1, getSpecies().getAttributeSlotNames().length));
+				Arrays.fill(current, length, current.length, UNSET);
+				slots = current;
+			}
+			current[slot] = value;
+		}
+	}
+
+	/**
+	 * Returns the slot allocated to the attribute by the species, or -1 if the attribute is not stored in a slot
+	 *
+	 * @param key
+	 *            the name of the attribute
+	 * @return the slot or -1
+	 */
+	protected int slotOf(final String key) {
+		return slots.length == 0 && columns == null ? -1 : getSpecies().getAttributeSlot(key);
+	}
+
+	@Override
+	public Object getAttribute(final String key) {
+		final int slot = slotOf(key);
+		if (slot >= 0) {
+			final Object value = getSlotValue(slot);
+			return value == UNSET ? null : value;
+		}
+		final Map<String, Object> map = attributes.get();
+		return map == null ? null : map.get(key);
+	}
+
+	@Override
+	public void setAttribute(final String key, final Object value) {
+		final int slot = slotOf(key);
+		if (slot >= 0) {
+			setSlotValue(slot, value);
+		} else {
+			getExtraAttributes(true).put(key, value);
+		}
+	}
+
+	@Override
+	public boolean hasAttribute(final String key) {
+		final int slot = slotOf(key);
+		if (slot >= 0) return getSlotValue(slot) != UNSET;
+		final Map<String, Object> map = attributes.get();
+		return map != null && map.containsKey(key);
+	}
+
+	/**
+	 * Removes the attribute, whether it is stored in a slot or in the map of attributes
+	 *
+	 * @param key
+	 *            the name of the attribute
+	 * @return the previous value or null
+	 */
+	public Object removeAttribute(final String key) {
+		final int slot = slotOf(key);
+		if (slot >= 0) {
+			final Object value = getSlotValue(slot);
+			if (columns != null || slot < slots.length) { setSlotValue(slot, UNSET); }
+			return value == UNSET ? null : value;
+		}
+		final Map<String, Object> map = attributes.get();
+		return map == null ? null : map.remove(key);
+	}
+
+	@Override
+	public void forEachAttribute(final BiConsumerWithPruning<String, Object> visitor) {
+		if (visitor == null) return;
+		final int size = columns != null ? columns.size() : slots.length;
+		if (size > 0) {
+			final String[] names = getSpecies().getAttributeSlotNames();
+			for (int i = 0; i < size; i++) {
+				final Object value = getSlotValue(i);
+				if (value != UNSET && !visitor.process(names[i], value)) return;
+			}
+		}
+		final Map<String, Object> map = attributes.get();
+		if (map == null) return;
+		for (final Map.Entry<String, Object> entry : map.entrySet()) {
+			if (!visitor.process(entry.getKey(), entry.getValue())) return;
+		}
+	}
+
+	@Override
+	public void setAttributes(final Map<String, Object> attr) {
+		if (attr == null) return;
+		attr.forEach(this::setAttribute);
+	}
+
 	/**
 	 * Compare to.
 	 *
@@ -835,6 +1034,8 @@ public class MinimalAgent implements IAgent, Comparable<IAgent> {
 		if (s != null) { s.dispose(); }
 		final IMap<String, Object> attrs = attributes.getAndSet(null);
 		if (attrs != null) { attrs.clear(); }
+		Arrays.fill(slots, UNSET);
+		if (columns != null) { columns.releaseRow(row, this); }
 		BufferingUtils.getInstance().flushSaveFilesOfAgent(this);
 		BufferingUtils.getInstance().flushWriteOfAgent(this);
 	}
@@ -13,15 +13,20 @@ package gama.core.population;
 import static com.google.common.collect.Iterators.transform;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Stream;
 
 import org.jgrapht.graph.DirectedAcyclicGraph;
@@ -54,6 +59,7 @@ import gama.api.types.list.IList;
 import gama.api.types.misc.IContainer;
 import gama.api.types.topology.ITopology;
 import gama.api.utils.benchmark.StopWatch;
+import gama.core.agent.MinimalAgent;
 import one.util.streamex.StreamEx;
 
 /**
@@ -114,6 +120,22 @@ public abstract class AbstractPopulation<T extends IAgent> implements IPopulatio
 
 	/** The is disposing. */
 	protected boolean isDisposing = false;
+
+	/** Whether the writes of the declared attributes of the agents are deferred to the end of the current step. */
+	private volatile boolean defersWrites;
+
+	/** The logs of the values written during the synchronous steps, one per thread that has written some. */
+	private final Queue<WriteLog> writeLogs = new ConcurrentLinkedQueue<>();
+
+	/** The log of the current thread. */
+	private final ThreadLocal<WriteLog> writeLog = ThreadLocal.withInitial(() -> {
+		final WriteLog log = new WriteLog();
+		writeLogs.add(log);
+		return log;
+	});
+
+	/** The agents created during the current synchronous step, whose attributes are written immediately. */
+	private final Set<IAgent> newcomers = ConcurrentHashMap.newKeySet();
 	/** The notifier. */
 	protected final PopulationNotifier notifier = new PopulationNotifier();
 
@@ -404,7 +426,193 @@ public abstract class AbstractPopulation<T extends IAgent> implements IPopulatio
 		}
 		manageMirror(scope);
 		getSpecies().getArchitecture().preStep(scope, this);
-		return stepAgents(scope);
+		final IExpression synchronous = species.getSynchronous();
+		if (synchronous == null || !Cast.asBool(scope, synchronous.value(scope))) return stepAgents(scope);
+		defersWrites = true;
+		try {
+			return stepAgents(scope);
+		} finally {
+			defersWrites = false;
+			newcomers.clear();
+			commitWrites();
+		}
+	}
+
+	/**
+	 * Stores the values written during the synchronous step that has just ended. When several agents have written the
+	 * same attribute of an agent, the one with the lowest index wins (the writes done outside the step of an agent of
+	 * the population come after all the others); an agent that has written it several times wins with its last value.
+	 */
+	private void commitWrites() {
+		// The rank of the winning writer of each attribute written, keyed by slot and index of agent
+		final Map<Long, Integer> winners = new HashMap<>();
+		for (final WriteLog log : writeLogs) {
+			for (int i = 0; i < log.size; i++) { winners.merge(log.keyOf(i), log.ranks[i], Math::min); }
+		}
+		for (final WriteLog log : writeLogs) {
+			for (int i = 0; i < log.size; i++) {
+				final MinimalAgent agent = log.agents[i];
+				if (winners.get(log.keyOf(i)) == log.ranks[i] && !agent.dead()) {
+					agent.storeSlotValue(log.slots[i], log.values[i]);
+				}
+			}
+			log.clear();
+		}
+		writeLogs.removeIf(log -> !log.owner.isAlive());
+	}
+
+	/**
+	 * Whether the agents are being stepped synchronously (see the facet 'synchronous' of species), in which case the
+	 * values written in the declared attributes of an agent are only stored at the end of the step, unless the agent
+	 * has been created during the step.
+	 *
+	 * @param agent
+	 *            the agent whose attribute is written
+	 * @return true if the value must be deferred
+	 */
+	public boolean defersWritesOf(final IAgent agent) {
+		return defersWrites && !newcomers.contains(agent);
+	}
+
+	/**
+	 * Records a value written in an attribute of an agent during a synchronous step, so that it is stored at the end of
+	 * the step.
+	 *
+	 * @param agent
+	 *            the agent whose attribute is written
+	 * @param slot
+	 *            the slot of the attribute
+	 * @param value
+	 *            the value
+	 */
+	public void deferWrite(final MinimalAgent agent, final int slot, final Object value) {
+		writeLog.get().add(agent, slot, value);
+	}
+
+	/**
+	 * Returns the value of an attribute as seen by the current thread: during a synchronous step, the agent being
+	 * stepped sees the values it has written itself, while the others still see the stored ones.
+	 *
+	 * @param agent
+	 *            the agent whose attribute is read
+	 * @param slot
+	 *            the slot of the attribute
+	 * @param stored
+	 *            the value stored in the agent
+	 * @return the last value written by the current writer during the step, or the stored value
+	 */
+	public Object readSlotValue(final MinimalAgent agent, final int slot, final Object stored) {
+		if (!defersWrites) return stored;
+		return writeLog.get().lastWriteOf(agent, slot, stored);
+	}
+
+	/**
+	 * Called when an agent of the population begins its step: during a synchronous step, the writes done by the
+	 * current thread are then attributed to it.
+	 *
+	 * @param agent
+	 *            the agent
+	 * @return the writer to restore with {@link #endStepOf(int)} at the end of the step
+	 */
+	public int beginStepOf(final IAgent agent) {
+		if (!defersWrites) return WriteLog.NO_WRITER;
+		final WriteLog log = writeLog.get();
+		final int previous = log.writer;
+		log.writer = agent.getIndex();
+		return previous;
+	}
+
+	/**
+	 * Called when an agent of the population ends its step.
+	 *
+	 * @param previous
+	 *            the writer returned by {@link #beginStepOf(IAgent)}
+	 */
+	public void endStepOf(final int previous) {
+		if (previous != WriteLog.NO_WRITER) { writeLog.get().writer = previous; }
+	}
+
+	/**
+	 * The values written by a thread during the synchronous steps of a population. The arrays are kept and reused from
+	 * one step to the next; the log does not refer to the population, so that the threads do not retain it.
+	 */
+	private static final class WriteLog {
+
+		/** The writer returned when the writes are not deferred. */
+		static final int NO_WRITER = Integer.MIN_VALUE;
+
+		/** The thread that writes in this log. */
+		final Thread owner = Thread.currentThread();
+
+		/** The index of the agent being stepped by the thread, or -1 if none. */
+		int writer = -1;
+
+		/** The number of writes. */
+		int size;
+
+		/** The agents written. */
+		MinimalAgent[] agents = new MinimalAgent[16];
+
+		/** The slots written, and the rank of their writers. */
+		int[] slots = new int[16], ranks = new int[16];
+
+		/** The values written. */
+		Object[] values = new Object[16];
+
+		/**
+		 * Adds a write, attributed to the current writer.
+		 */
+		void add(final MinimalAgent agent, final int slot, final Object value) {
+			if (size == agents.length) {
+				final int length = size * 2;
+				agents = Arrays.copyOf(agents, length);
+				slots = Arrays.copyOf(slots, length);
+				ranks = Arrays.copyOf(ranks, length);
+				values = Arrays.copyOf(values, length);
+			}
+			agents[size] = agent;
+			slots[size] = slot;
+			ranks[size] = writer < 0 ? Integer.MAX_VALUE : writer;
+			values[size++] = value;
+		}
+
+		/**
+		 * The key of a write, made of its slot and of the index of the agent written.
+		 */
+		long keyOf(final int i) {
+			return (long) slots[i] << 32 | agents[i].getIndex();
+		}
+
+		/**
+		 * The last value of the attribute written by the current writer, whose writes are the last entries of the log.
+		 */
+		Object lastWriteOf(final MinimalAgent agent, final int slot, final Object stored) {
+			final int rank = writer < 0 ? Integer.MAX_VALUE : writer;
+			for (int i = size - 1; i >= 0 && ranks[i] == rank; i--) {
+				if (agents[i] == agent && slots[i] == slot) return values[i];
+			}
+			return stored;
+		}
+
+		/**
+		 * Empties the log, without keeping references to the agents and the values.
+		 */
+		void clear() {
+			Arrays.fill(agents, 0, size, null);
+			Arrays.fill(values, 0, size, null);
+			size = 0;
+		}
+	}
+
+	/**
+	 * Records an agent created in the population, whose attributes are written immediately if it is created during a
+	 * synchronous step. Called once the agent is fully constructed, so that it is never published half-built.
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	public void created(final IAgent agent) {
+		if (defersWrites) { newcomers.add(agent); }
 	}
 
 	// ----------------------------------------------------------------------------------
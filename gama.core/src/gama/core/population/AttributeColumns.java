@@ -0,0 +1,624 @@
+/*******************************************************************************************************
+ *
+ * AttributeColumns.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.population;
+
+import static gama.api.utils.interfaces.ISlottedAttributes.UNSET;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gama.api.gaml.symbols.IVariable;
+import gama.api.gaml.types.IType;
+import gama.api.kernel.agent.IAgent;
+import gama.api.kernel.species.ISpecies;
+import gama.core.agent.MinimalAgent;
+
+/**
+ * The storage of a {@link ColumnarPopulation}: the values of the attributes declared in the species are kept in one
+ * column per slot allocated by the species, and the agents only hold their row. Rows are distinct from the indices of
+ * the agents, which are never reused: the row of a dead agent is given to the next agent created, so that the columns
+ * do not grow with the turnover of the population. Attributes of type
+ * int, float and bool are stored in primitive arrays; the others in arrays of objects. A value that does not fit in a
+ * primitive column (e.g. nil) is kept aside, which makes the column unusable for the bulk operations until it is
+ * reassigned.
+ *
+ * Columns are made of chunks of {@link #CHUNK_SIZE} rows. Growing a column only adds chunks, so that rows already
+ * stored never move and can be written concurrently by different agents without locking.
+ *
+ * @author drogoul
+ *
+ */
+public class AttributeColumns {
+
+	/** The number of bits used to address a row in a chunk */
+	static final int CHUNK_BITS = 12;
+
+	/** The number of rows in a chunk */
+	static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	/** The mask to obtain the position of a row in its chunk */
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** The states of a row in a column */
+	static final byte UNSET_ROW = 0, PRIMITIVE_ROW = 1, BOXED_ROW = 2;
+
+	/** Replaces null in the map of boxed values, which does not accept it */
+	static final Object NIL = new Object();
+
+	/** The species defining the layout of the columns. */
+	final ISpecies species;
+
+	/** The columns, indexed by slot. */
+	volatile Column[] columns;
+
+	/** The agents currently in the population, indexed by row. Null for the rows without a living agent */
+	volatile IAgent[][] members = new IAgent[0][];
+
+	/** The number of rows allocated so far */
+	private int rows;
+
+	/** The rows released by dead agents, available for the next agents */
+	private int[] freeRows = new int[16];
+
+	/** The number of free rows */
+	private int freeCount;
+
+	/**
+	 * Instantiates the columns for the slots allocated by the species.
+	 *
+	 * @param species
+	 *            the species
+	 */
+	AttributeColumns(final ISpecies species) {
+		this.species = species;
+		final String[] names = species.getAttributeSlotNames();
+		columns = new Column[names.length];
+		for (int i = 0; i < names.length; i++) { columns[i] = createColumn(names[i]); }
+	}
+
+	/**
+	 * Creates the column corresponding to the type of the attribute.
+	 *
+	 * @param name
+	 *            the name of the attribute
+	 * @return the column
+	 */
+	private Column createColumn(final String name) {
+		final IVariable var = species.getVar(name);
+		final int type = var == null ? IType.NONE : var.getType().id();
+		return switch (type) {
+			case IType.INT -> new IntColumn();
+			case IType.FLOAT -> new DoubleColumn();
+			case IType.BOOL -> new BoolColumn();
+			default -> new ObjectColumn();
+		};
+	}
+
+	/**
+	 * Returns the column of the slot, creating the ones allocated by the species after the creation of the population
+	 *
+	 * @param slot
+	 *            the slot
+	 * @return the column
+	 */
+	Column column(final int slot) {
+		final Column[] cols = columns;
+		if (slot < cols.length) return cols[slot];
+		synchronized (this) {
+			if (slot >= columns.length) {
+				final String[] names = species.getAttributeSlotNames();
+				final Column[] result = Arrays.copyOf(columns, names.length);
+				for (int i = columns.length; i < result.length; i++) { result[i] = createColumn(names[i]); }
+				columns = result;
+			}
+			return columns[slot];
+		}
+	}
+
+	/**
+	 * Returns the value stored at this row in the column of the slot.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param row
+	 *            the row of the agent
+	 * @return the value or {@link gama.api.utils.interfaces.ISlottedAttributes#UNSET}
+	 */
+	public Object get(final int slot, final int row) {
+		return column(slot).get(row);
+	}
+
+	/**
+	 * Stores a value at this row in the column of the slot. Storing
+	 * {@link gama.api.utils.interfaces.ISlottedAttributes#UNSET} clears the row.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param row
+	 *            the row of the agent
+	 * @param value
+	 *            the value
+	 */
+	public void set(final int slot, final int row, final Object value) {
+		column(slot).set(row, value);
+	}
+
+	/**
+	 * Clears the row in all the columns.
+	 *
+	 * @param row
+	 *            the row
+	 */
+	public void clearRow(final int row) {
+		for (final Column c : columns) { c.set(row, UNSET); }
+	}
+
+	/**
+	 * Returns the number of slots.
+	 *
+	 * @return the number of slots
+	 */
+	public int size() {
+		return columns.length;
+	}
+
+	/**
+	 * Allocates a row for a new agent, reusing the rows released by the dead ones first.
+	 *
+	 * @return the row
+	 */
+	public synchronized int allocateRow() {
+		if (freeCount > 0) return freeRows[--freeCount];
+		return rows++;
+	}
+
+	/**
+	 * Clears the row of a dead agent and makes it available for the next agents.
+	 *
+	 * @param row
+	 *            the row
+	 * @param agent
+	 *            the agent that owned it
+	 */
+	public synchronized void releaseRow(final int row, final IAgent agent) {
+		leave(agent);
+		clearRow(row);
+		if (freeCount == freeRows.length) { freeRows = Arrays.copyOf(freeRows, freeCount * 2); }
+		freeRows[freeCount++] = row;
+	}
+
+	/**
+	 * Returns the row of the agent in the columns.
+	 *
+	 * @param agent
+	 *            the agent
+	 * @return the row, or -1 if the agent does not store its attributes in these columns
+	 */
+	private int rowOf(final IAgent agent) {
+		return agent instanceof MinimalAgent m && m.getColumns() == this ? m.getRow() : -1;
+	}
+
+	/**
+	 * Registers the agent as a member of the population
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	synchronized void join(final IAgent agent) {
+		final int row = rowOf(agent);
+		if (row < 0) return;
+		final int c = row >>> CHUNK_BITS;
+		if (c >= members.length) { growMembers(c); }
+		members[c][row & CHUNK_MASK] = agent;
+	}
+
+	/**
+	 * Unregisters the agent
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	synchronized void leave(final IAgent agent) {
+		final int row = rowOf(agent);
+		if (row < 0) return;
+		final IAgent[][] m = members;
+		final int c = row >>> CHUNK_BITS;
+		if (c < m.length && m[c][row & CHUNK_MASK] == agent) { m[c][row & CHUNK_MASK] = null; }
+	}
+
+	/**
+	 * Replaces the members by the agents passed in parameter
+	 *
+	 * @param agents
+	 *            the agents
+	 */
+	synchronized void resetMembers(final List<? extends IAgent> agents) {
+		for (final IAgent[] chunk : members) { Arrays.fill(chunk, null); }
+		for (final IAgent a : agents) { if (a != null) { join(a); } }
+	}
+
+	/**
+	 * Grows the chunks of members
+	 *
+	 * @param chunk
+	 *            the chunk to reach
+	 */
+	private synchronized void growMembers(final int chunk) {
+		final int length = members.length;
+		if (chunk < length) return;
+		final IAgent[][] result = Arrays.copyOf(members, chunk + 1);
+		for (int i = length; i <= chunk; i++) { result[i] = new IAgent[CHUNK_SIZE]; }
+		members = result;
+	}
+
+	/**
+	 * Whether the bulk operations can be run on the column of the slot: it needs to be primitive and to not contain
+	 * boxed values.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @return true if the column can be read directly
+	 */
+	boolean isBulkReadable(final int slot) {
+		if (slot < 0 || slot >= columns.length) return false;
+		final Column c = columns[slot];
+		return !(c instanceof ObjectColumn) && c.boxed.isEmpty();
+	}
+
+	/**
+	 * Returns the rows of the members, in the order of their indices (which is not the order of the rows once rows have
+	 * been recycled).
+	 *
+	 * @return the rows
+	 */
+	private int[] rowsOfMembers() {
+		final IAgent[][] m = members;
+		long[] keys = new long[CHUNK_SIZE];
+		int n = 0;
+		boolean sorted = true;
+		for (int c = 0; c < m.length; c++) {
+			final IAgent[] agents = m[c];
+			for (int i = 0; i < CHUNK_SIZE; i++) {
+				final IAgent a = agents[i];
+				if (a == null) { continue; }
+				final long key = (long) a.getIndex() << 32 | c << CHUNK_BITS | i;
+				if (n == keys.length) { keys = Arrays.copyOf(keys, n * 2); }
+				if (n > 0 && key < keys[n - 1]) { sorted = false; }
+				keys[n++] = key;
+			}
+		}
+		if (!sorted) { Arrays.sort(keys, 0, n); }
+		final int[] result = new int[n];
+		for (int k = 0; k < n; k++) { result[k] = (int) keys[k]; }
+		return result;
+	}
+
+	/**
+	 * Computes the sum of the values stored in the column of the slot for all the members.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @return an Integer for int columns, a Double for float ones, or null if a member has not assigned its attribute
+	 *         or the column is not numeric
+	 */
+	Number sum(final int slot) {
+		if (!isBulkReadable(slot)) return null;
+		final Column col = columns[slot];
+		final int[] rows = rowsOfMembers();
+		if (!col.stores(rows)) return null;
+		if (col instanceof IntColumn ic) {
+			final int[][] values = ic.values;
+			int sum = 0;
+			for (final int row : rows) { sum += values[row >>> CHUNK_BITS][row & CHUNK_MASK]; }
+			return sum;
+		}
+		if (col instanceof DoubleColumn dc) {
+			final double[][] values = dc.values;
+			double sum = 0d;
+			for (final int row : rows) { sum += values[row >>> CHUNK_BITS][row & CHUNK_MASK]; }
+			return sum;
+		}
+		return null;
+	}
+
+	/**
+	 * Counts the members.
+	 *
+	 * @return the number of members
+	 */
+	int count() {
+		int count = 0;
+		for (final IAgent[] agents : members) { for (final IAgent a : agents) { if (a != null) { count++; } } }
+		return count;
+	}
+
+	/**
+	 * Adds to the list the members for which the bool column of the slot is true, in the order of their indices.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param result
+	 *            the list to fill
+	 * @return false if the column is not a bool one or if a member has not assigned its attribute (in which case the
+	 *         list should be discarded)
+	 */
+	@SuppressWarnings ("unchecked")
+	<T extends IAgent> boolean select(final int slot, final List<T> result) {
+		if (!isBulkReadable(slot) || !(columns[slot] instanceof BoolColumn bc)) return false;
+		final int[] rows = rowsOfMembers();
+		if (!bc.stores(rows)) return false;
+		final IAgent[][] m = members;
+		final boolean[][] values = bc.values;
+		for (final int row : rows) {
+			final int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+			if (values[c][i]) { result.add((T) m[c][i]); }
+		}
+		return true;
+	}
+
+	/**
+	 * Adds to the list the values stored in the column of the slot for all the members, in the order of their indices.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param result
+	 *            the list to fill
+	 * @return false if the column is not primitive or if a member has not assigned its attribute (in which case the
+	 *         list should be discarded)
+	 */
+	boolean collect(final int slot, final List<Object> result) {
+		if (!isBulkReadable(slot)) return false;
+		final Column col = columns[slot];
+		final int[] rows = rowsOfMembers();
+		if (!col.stores(rows)) return false;
+		for (final int row : rows) { result.add(col.read(row >>> CHUNK_BITS, row & CHUNK_MASK)); }
+		return true;
+	}
+
+	/**
+	 * A column of values, stored in chunks. Each row has a state telling whether it is unset, stored in the column or
+	 * boxed aside.
+	 */
+	abstract static class Column {
+
+		/** The states of the rows. Always assigned after the values, so that a chunk of states implies its values */
+		volatile byte[][] states = new byte[0][];
+
+		/** The values that do not fit in the column, keyed by row */
+		final Map<Integer, Object> boxed = new ConcurrentHashMap<>();
+
+		/**
+		 * Gets the value at this row.
+		 *
+		 * @param row
+		 *            the row
+		 * @return the value or UNSET
+		 */
+		Object get(final int row) {
+			final byte[][] s = states;
+			final int c = row >>> CHUNK_BITS;
+			if (c >= s.length) return UNSET;
+			final int i = row & CHUNK_MASK;
+			return switch (s[c][i]) {
+				case PRIMITIVE_ROW -> read(c, i);
+				case BOXED_ROW -> {
+					final Object value = boxed.get(row);
+					yield value == NIL ? null : value;
+				}
+				default -> UNSET;
+			};
+		}
+
+		/**
+		 * Whether the values of all these rows are stored in the column (and not unset or boxed).
+		 *
+		 * @param rows
+		 *            the rows
+		 * @return true if they can all be read directly
+		 */
+		boolean stores(final int[] rows) {
+			final byte[][] s = states;
+			for (final int row : rows) {
+				final int c = row >>> CHUNK_BITS;
+				if (c >= s.length || s[c][row & CHUNK_MASK] != PRIMITIVE_ROW) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Sets the value at this row.
+		 *
+		 * @param row
+		 *            the row
+		 * @param value
+		 *            the value or UNSET
+		 */
+		void set(final int row, final Object value) {
+			final int c = row >>> CHUNK_BITS;
+			if (value == UNSET && c >= states.length) return;
+			if (c >= states.length) { grow(c); }
+			final byte[] s = states[c];
+			final int i = row & CHUNK_MASK;
+			if (s[i] == BOXED_ROW) { boxed.remove(row); }
+			if (value == UNSET) {
+				s[i] = UNSET_ROW;
+			} else if (write(c, i, value)) {
+				s[i] = PRIMITIVE_ROW;
+			} else {
+				boxed.put(row, value == null ? NIL : value);
+				s[i] = BOXED_ROW;
+			}
+		}
+
+		/**
+		 * Grows the column to contain the chunk
+		 *
+		 * @param chunk
+		 *            the chunk
+		 */
+		private synchronized void grow(final int chunk) {
+			final int length = states.length;
+			if (chunk < length) return;
+			growValues(length, chunk + 1);
+			final byte[][] result = Arrays.copyOf(states, chunk + 1);
+			for (int i = length; i <= chunk; i++) { result[i] = new byte[CHUNK_SIZE]; }
+			states = result;
+		}
+
+		/**
+		 * Adds chunks of values
+		 *
+		 * @param from
+		 *            the current number of chunks
+		 * @param to
+		 *            the new number of chunks
+		 */
+		abstract void growValues(int from, int to);
+
+		/**
+		 * Reads a value stored in the column.
+		 *
+		 * @param chunk
+		 *            the chunk
+		 * @param i
+		 *            the position in the chunk
+		 * @return the value
+		 */
+		abstract Object read(int chunk, int i);
+
+		/**
+		 * Writes a value in the column if it fits.
+		 *
+		 * @param chunk
+		 *            the chunk
+		 * @param i
+		 *            the position in the chunk
+		 * @param value
+		 *            the value
+		 * @return true if the value has been written, false if it has to be boxed
+		 */
+		abstract boolean write(int chunk, int i, Object value);
+	}
+
+	/**
+	 * A column of ints
+	 */
+	static class IntColumn extends Column {
+
+		/** The values. */
+		volatile int[][] values = new int[0][];
+
+		@Override
+		void growValues(final int from, final int to) {
+			final int[][] result = Arrays.copyOf(values, to);
+			for (int i = from; i < to; i++) { result[i] = new int[CHUNK_SIZE]; }
+			values = result;
+		}
+
+		@Override
+		Object read(final int chunk, final int i) {
+			return values[chunk][i];
+		}
+
+		@Override
+		boolean write(final int chunk, final int i, final Object value) {
+			if (!(value instanceof Integer v)) return false;
+			values[chunk][i] = v;
+			return true;
+		}
+	}
+
+	/**
+	 * A column of doubles
+	 */
+	static class DoubleColumn extends Column {
+
+		/** The values. */
+		volatile double[][] values = new double[0][];
+
+		@Override
+		void growValues(final int from, final int to) {
+			final double[][] result = Arrays.copyOf(values, to);
+			for (int i = from; i < to; i++) { result[i] = new double[CHUNK_SIZE]; }
+			values = result;
+		}
+
+		@Override
+		Object read(final int chunk, final int i) {
+			return values[chunk][i];
+		}
+
+		@Override
+		boolean write(final int chunk, final int i, final Object value) {
+			if (!(value instanceof Double v)) return false;
+			values[chunk][i] = v;
+			return true;
+		}
+	}
+
+	/**
+	 * A column of booleans
+	 */
+	static class BoolColumn extends Column {
+
+		/** The values. */
+		volatile boolean[][] values = new boolean[0][];
+
+		@Override
+		void growValues(final int from, final int to) {
+			final boolean[][] result = Arrays.copyOf(values, to);
+			for (int i = from; i < to; i++) { result[i] = new boolean[CHUNK_SIZE]; }
+			values = result;
+		}
+
+		@Override
+		Object read(final int chunk, final int i) {
+			return values[chunk][i];
+		}
+
+		@Override
+		boolean write(final int chunk, final int i, final Object value) {
+			if (!(value instanceof Boolean v)) return false;
+			values[chunk][i] = v;
+			return true;
+		}
+	}
+
+	/**
+	 * A column of objects, used for all the other types
+	 */
+	static class ObjectColumn extends Column {
+
+		/** The values. */
+		volatile Object[][] values = new Object[0][];
+
+		@Override
+		void growValues(final int from, final int to) {
+			final Object[][] result = Arrays.copyOf(values, to);
+			for (int i = from; i < to; i++) { result[i] = new Object[CHUNK_SIZE]; }
+			values = result;
+		}
+
+		@Override
+		Object read(final int chunk, final int i) {
+			return values[chunk][i];
+		}
+
+		@Override
+		boolean write(final int chunk, final int i, final Object value) {
+			values[chunk][i] = value;
+			return true;
+		}
+	}
+
+}
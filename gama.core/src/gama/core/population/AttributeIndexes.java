@@ -0,0 +1,371 @@
+/*******************************************************************************************************
+ *
+ * AttributeIndexes.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.population;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import gama.annotations.constants.IKeyword;
+import gama.api.exceptions.GamaRuntimeException;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.expressions.IOperator;
+import gama.api.gaml.expressions.IVarExpression;
+import gama.api.gaml.symbols.IVariable;
+import gama.api.gaml.types.IType;
+import gama.api.kernel.agent.IAgent;
+import gama.api.kernel.agent.IPopulation;
+import gama.api.kernel.species.ISpecies;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.list.GamaListFactory;
+import gama.api.types.list.IList;
+import gama.api.utils.interfaces.ISlottedAttributes;
+
+/**
+ * The secondary indexes of a population on some attributes of its agents, declared by the facet 'indexes' of the
+ * species. Each index maps the values of an attribute to the agents that have them (for the queries of equality) and,
+ * if the attribute is an int or a float, keeps these values sorted (for the queries of ranges). The indexes are
+ * maintained when the agents are added to or removed from the population (as a listener) and when their attributes are
+ * written (see {@link #update(IAgent, int, Object, Object)}).
+ *
+ * The filters of the form 'each.attribute = value' (or '<', '<=', '>', '>=') where the value does not depend on 'each'
+ * are then answered by a lookup instead of a scan of the population, in the order of the indices of the agents. These
+ * lookups return null whenever they cannot be applied, in which case the operators use their regular implementation.
+ *
+ * @author drogoul
+ *
+ */
+public class AttributeIndexes implements IPopulation.Listener {
+
+	/** The name of the facet that declares the indexes */
+	public static final String INDEXES = "indexes";
+
+	/** The order of the agents in the results. */
+	private static final Comparator<IAgent> BY_INDEX = Comparator.comparingInt(IAgent::getIndex);
+
+	/**
+	 * The index of one attribute.
+	 */
+	static final class Index {
+
+		/** The type of the attribute. */
+		final IType<?> type;
+
+		/** The agents by value. */
+		final Map<Object, Set<IAgent>> values = new HashMap<>();
+
+		/** The agents by value, sorted (only for the int and float attributes). */
+		final NavigableMap<Double, Set<IAgent>> sorted;
+
+		/**
+		 * Instantiates a new index.
+		 *
+		 * @param type
+		 *            the type of the attribute
+		 */
+		Index(final IType<?> type) {
+			this.type = type;
+			sorted = type.id() == IType.INT || type.id() == IType.FLOAT ? new TreeMap<>() : null;
+		}
+
+		/**
+		 * Adds an agent under a value.
+		 */
+		void add(final IAgent agent, final Object value) {
+			values.computeIfAbsent(value, v -> new HashSet<>()).add(agent);
+			final Double key = sortedKey(value);
+			if (key != null) { sorted.computeIfAbsent(key, v -> new HashSet<>()).add(agent); }
+		}
+
+		/**
+		 * Removes an agent from a value.
+		 *
+		 * @return true if the agent was indexed under this value
+		 */
+		boolean remove(final IAgent agent, final Object value) {
+			final Set<IAgent> agents = values.get(value);
+			if (agents == null || !agents.remove(agent)) return false;
+			if (agents.isEmpty()) { values.remove(value); }
+			final Double key = sortedKey(value);
+			if (key != null) {
+				final Set<IAgent> others = sorted.get(key);
+				if (others != null && others.remove(agent) && others.isEmpty()) { sorted.remove(key); }
+			}
+			return true;
+		}
+
+		/**
+		 * The key of a value in the sorted index (NaN, which never satisfies a comparison, is not kept and -0.0 is
+		 * merged with 0.0 as in the comparisons).
+		 */
+		Double sortedKey(final Object value) {
+			if (sorted == null || !(value instanceof Number n)) return null;
+			final double d = n.doubleValue();
+			return Double.isNaN(d) ? null : d + 0.0;
+		}
+
+		/**
+		 * Whether the value can be looked up for an equality, i.e. whether the equality of GAML on this attribute is
+		 * the one of the keys (the floats are compared with a tolerance and are not).
+		 */
+		boolean acceptsEquality(final Object value) {
+			if (value == null) return type.isAgentType() || type.id() == IType.STRING;
+			return switch (type.id()) {
+				case IType.INT -> value instanceof Integer;
+				case IType.BOOL -> value instanceof Boolean;
+				case IType.STRING -> value instanceof String;
+				case IType.FLOAT -> false;
+				default -> value instanceof IAgent;
+			};
+		}
+	}
+
+	/** The indexes, by slot (null for the attributes not indexed). */
+	private final Index[] bySlot;
+
+	/**
+	 * Instantiates new attribute indexes.
+	 *
+	 * @param bySlot
+	 *            the indexes by slot
+	 */
+	private AttributeIndexes(final Index[] bySlot) {
+		this.bySlot = bySlot;
+	}
+
+	/**
+	 * Returns the indexes declared by a species, if any
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param species
+	 *            the species
+	 * @return the indexes or null if the species does not declare any
+	 * @throws GamaRuntimeException
+	 *             if an attribute cannot be indexed
+	 */
+	public static AttributeIndexes of(final IScope scope, final ISpecies species) throws GamaRuntimeException {
+		final IExpression facet = species.getFacet(INDEXES);
+		if (facet == null) return null;
+		final IList<?> names = GamaListFactory.castToList(scope, facet.value(scope));
+		if (names.isEmpty()) return null;
+		final Index[] bySlot = new Index[species.getAttributeSlotNames().length];
+		for (final Object name : names) {
+			final String attribute = String.valueOf(name);
+			final int slot = species.getAttributeSlot(attribute);
+			final IVariable var = species.getVar(attribute);
+			if (slot < 0 || slot >= bySlot.length || var == null)
+				throw GamaRuntimeException.error("Attribute " + attribute + " of " + species.getName()
+						+ " cannot be indexed: it is not declared in the species", scope);
+			final IType<?> type = var.getType();
+			final boolean supported = switch (type.id()) {
+				case IType.INT, IType.FLOAT, IType.BOOL, IType.STRING -> true;
+				default -> type.isAgentType();
+			};
+			if (!supported) throw GamaRuntimeException.error("Attribute " + attribute + " of " + species.getName()
+					+ " cannot be indexed: only int, float, bool, string and agent attributes can be", scope);
+			bySlot[slot] = new Index(type);
+		}
+		return new AttributeIndexes(bySlot);
+	}
+
+	/**
+	 * Whether the attribute stored in this slot is indexed.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @return true if it is indexed
+	 */
+	public boolean covers(final int slot) {
+		return slot >= 0 && slot < bySlot.length && bySlot[slot] != null;
+	}
+
+	/**
+	 * Moves an agent from the old value of an indexed attribute to the new one. Does nothing if the agent is not
+	 * indexed (i.e. not yet added to the population, or already removed).
+	 *
+	 * @param agent
+	 *            the agent
+	 * @param slot
+	 *            the slot of the attribute (see {@link #covers(int)})
+	 * @param oldValue
+	 *            the old value
+	 * @param newValue
+	 *            the new value
+	 */
+	public void update(final IAgent agent, final int slot, final Object oldValue, final Object newValue) {
+		final Index index = bySlot[slot];
+		synchronized (index) {
+			if (index.remove(agent, oldValue)) { index.add(agent, newValue); }
+		}
+	}
+
+	/**
+	 * Indexes an agent under the current values of its attributes.
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	void join(final IAgent agent) {
+		if (!(agent instanceof ISlottedAttributes attributes)) return;
+		for (int slot = 0; slot < bySlot.length; slot++) {
+			final Index index = bySlot[slot];
+			if (index != null) { synchronized (index) { index.add(agent, attributes.getSlotValue(slot)); } }
+		}
+	}
+
+	/**
+	 * Removes an agent from the indexes.
+	 *
+	 * @param agent
+	 *            the agent
+	 */
+	void leave(final IAgent agent) {
+		if (!(agent instanceof ISlottedAttributes attributes)) return;
+		for (int slot = 0; slot < bySlot.length; slot++) {
+			final Index index = bySlot[slot];
+			if (index != null) { synchronized (index) { index.remove(agent, attributes.getSlotValue(slot)); } }
+		}
+	}
+
+	/**
+	 * Empties the indexes.
+	 */
+	void clear() {
+		for (final Index index : bySlot) {
+			if (index != null) {
+				synchronized (index) {
+					index.values.clear();
+					if (index.sorted != null) { index.sorted.clear(); }
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the agents that satisfy the filter, if it can be answered by an index
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param species
+	 *            the species of the population
+	 * @param eachName
+	 *            the name of the iterator variable
+	 * @param filter
+	 *            the filter
+	 * @return the agents, in the order of their indices, or null if the filter cannot be answered by an index
+	 */
+	public List<IAgent> select(final IScope scope, final ISpecies species, final String eachName,
+			final IExpression filter) {
+		if (!(filter instanceof IOperator op)) return null;
+		String comparison = op.getName();
+		if (comparison == null) return null;
+		int slot = slotOf(species, eachName, op.arg(0));
+		IExpression operand = op.arg(1);
+		if (slot < 0) {
+			slot = slotOf(species, eachName, op.arg(1));
+			operand = op.arg(0);
+			comparison = switch (comparison) {
+				case "<" -> ">";
+				case ">" -> "<";
+				case "<=" -> ">=";
+				case ">=" -> "<=";
+				default -> comparison;
+			};
+		}
+		if (!covers(slot) || !isIndependentOf(eachName, operand)) return null;
+		final boolean equality = "=".equals(comparison);
+		if (!equality && !"<".equals(comparison) && !">".equals(comparison) && !"<=".equals(comparison)
+				&& !">=".equals(comparison))
+			return null;
+		final Index index = bySlot[slot];
+		final Object value = operand.value(scope);
+		final List<IAgent> result = new ArrayList<>();
+		synchronized (index) {
+			if (equality) {
+				if (!index.acceptsEquality(value)) return null;
+				final Set<IAgent> agents = index.values.get(value);
+				if (agents != null) { result.addAll(agents); }
+			} else {
+				if (index.sorted == null || !(value instanceof Number n)) return null;
+				final double d = n.doubleValue();
+				if (Double.isNaN(d)) return result;
+				final Collection<Set<IAgent>> ranges = switch (comparison) {
+					case "<" -> index.sorted.headMap(d, false).values();
+					case "<=" -> index.sorted.headMap(d, true).values();
+					case ">" -> index.sorted.tailMap(d, false).values();
+					default -> index.sorted.tailMap(d, true).values();
+				};
+				for (final Set<IAgent> agents : ranges) { result.addAll(agents); }
+			}
+		}
+		result.removeIf(IAgent::dead);
+		result.sort(BY_INDEX);
+		return result;
+	}
+
+	/**
+	 * Returns the slot of the attribute accessed by the expression if it is of the form 'each.attribute', -1
+	 * otherwise
+	 */
+	private static int slotOf(final ISpecies species, final String eachName, final IExpression e) {
+		if (!(e instanceof IOperator op) || !IKeyword._DOT.equals(op.getName())) return -1;
+		if (!(op.arg(0) instanceof IVarExpression each) || !each.getName().equals(eachName)) return -1;
+		if (!(op.arg(1) instanceof IVarExpression.Agent attribute)) return -1;
+		return species.getAttributeSlot(attribute.getName());
+	}
+
+	/**
+	 * Whether the value of the expression does not depend on the iterator variable (it is a constant or a variable
+	 * in which 'each' does not occur at any depth, which excludes 'each.b')
+	 */
+	private static boolean isIndependentOf(final String eachName, final IExpression e) {
+		if (e == null) return false;
+		if (e.isConst()) return true;
+		return e instanceof IVarExpression
+				&& !e.findAny(sub -> sub instanceof IVarExpression v && eachName.equals(v.getName()));
+	}
+
+	@Override
+	public void notifyAgentRemoved(final IScope scope, final IPopulation<? extends IAgent> pop, final IAgent agent) {
+		leave(agent);
+	}
+
+	@Override
+	public void notifyAgentAdded(final IScope scope, final IPopulation<? extends IAgent> pop, final IAgent agent) {
+		join(agent);
+	}
+
+	@Override
+	public void notifyAgentsAdded(final IScope scope, final IPopulation<? extends IAgent> pop,
+			final Collection<? extends IAgent> agents) {
+		for (final IAgent agent : agents) { join(agent); }
+	}
+
+	@Override
+	public void notifyAgentsRemoved(final IScope scope, final IPopulation<? extends IAgent> pop,
+			final Collection<? extends IAgent> agents) {
+		for (final IAgent agent : agents) { leave(agent); }
+	}
+
+	@Override
+	public void notifyPopulationCleared(final IScope scope, final IPopulation<? extends IAgent> pop) {
+		clear();
+	}
+
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************************************
+ *
+ * ColumnarPopulation.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.population;
+
+import java.util.Collection;
+
+import gama.annotations.constants.IKeyword;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.expressions.IOperator;
+import gama.api.gaml.expressions.IVarExpression;
+import gama.api.gaml.types.Cast;
+import gama.api.gaml.types.IType;
+import gama.api.kernel.agent.IAgent;
+import gama.api.kernel.agent.IMacroAgent;
+import gama.api.kernel.species.ISpecies;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.list.GamaListFactory;
+import gama.api.types.list.IList;
+
+/**
+ * A population that stores the attributes of its agents in columns (see {@link AttributeColumns}) rather than in the
+ * agents themselves. Chosen when the species declares the facet 'columnar: true'. Agents remain regular agents, but
+ * their declared attributes are views on their row in the columns.
+ *
+ * Besides the memory saved, this allows some iterator operators ('sum_of', 'mean_of', 'where', 'collect') to run
+ * directly on the columns when their filter is 'each.attribute'. The results are computed in the order of the indices
+ * of the agents. These bulk operations return null whenever they cannot be applied, in which case the operators use
+ * their regular implementation.
+ *
+ * @author drogoul
+ *
+ */
+public class ColumnarPopulation<T extends IAgent> extends GamaPopulation<T> {
+
+	/** The columns. */
+	final AttributeColumns columns;
+
+	/**
+	 * Instantiates a new columnar population.
+	 *
+	 * @param host
+	 *            the host
+	 * @param species
+	 *            the species
+	 */
+	public ColumnarPopulation(final IMacroAgent host, final ISpecies species) {
+		super(host, species);
+		columns = new AttributeColumns(species);
+	}
+
+	/**
+	 * Returns the columns in which the agents store their attributes
+	 *
+	 * @return the columns
+	 */
+	public AttributeColumns getColumns() { return columns; }
+
+	/**
+	 * Returns the columnar population designated by the container, if any (either the container itself or the
+	 * population of the species in the current scope)
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param container
+	 *            the container
+	 * @return the columnar population or null
+	 */
+	public static ColumnarPopulation<?> of(final IScope scope, final Object container) {
+		if (container instanceof ColumnarPopulation<?> cp) return cp;
+		if (container instanceof ISpecies s && s.getPopulation(scope) instanceof ColumnarPopulation<?> cp) return cp;
+		return null;
+	}
+
+	/**
+	 * Returns the slot of the attribute accessed by the filter if it is of the form 'each.attribute', -1 otherwise
+	 *
+	 * @param eachName
+	 *            the name of the iterator variable
+	 * @param filter
+	 *            the filter
+	 * @return the slot or -1
+	 */
+	int slotOf(final String eachName, final IExpression filter) {
+		if (!(filter instanceof IOperator op) || !IKeyword._DOT.equals(op.getName())) return -1;
+		if (!(op.arg(0) instanceof IVarExpression each) || !each.getName().equals(eachName)) return -1;
+		if (!(op.arg(1) instanceof IVarExpression.Agent attribute)) return -1;
+		return species.getAttributeSlot(attribute.getName());
+	}
+
+	/**
+	 * Sum of the attribute accessed by the filter.
+	 *
+	 * @param eachName
+	 *            the each name
+	 * @param filter
+	 *            the filter
+	 * @return an Integer, a Double or null if the operation cannot be done on the columns
+	 */
+	public Number sumOf(final String eachName, final IExpression filter) {
+		return columns.sum(slotOf(eachName, filter));
+	}
+
+	/**
+	 * Mean of the attribute accessed by the filter.
+	 *
+	 * @param eachName
+	 *            the each name
+	 * @param filter
+	 *            the filter
+	 * @return a Double or null if the operation cannot be done on the columns
+	 */
+	public Double meanOf(final String eachName, final IExpression filter) {
+		final Number sum = sumOf(eachName, filter);
+		if (sum == null) return null;
+		final int count = columns.count();
+		return count == 0 ? null : sum.doubleValue() / count;
+	}
+
+	/**
+	 * The agents for which the bool attribute accessed by the filter is true
+	 *
+	 * @param eachName
+	 *            the each name
+	 * @param filter
+	 *            the filter
+	 * @return the list of agents or null if the operation cannot be done on the columns
+	 */
+	public IList<T> where(final String eachName, final IExpression filter) {
+		final int slot = slotOf(eachName, filter);
+		if (slot < 0) return null;
+		final IList<T> result = GamaListFactory.create(getGamlType().getContentType());
+		return columns.select(slot, result) ? result : null;
+	}
+
+	/**
+	 * The values of the attribute accessed by the filter
+	 *
+	 * @param eachName
+	 *            the each name
+	 * @param filter
+	 *            the filter
+	 * @return the list of values or null if the operation cannot be done on the columns
+	 */
+	public IList<Object> collect(final String eachName, final IExpression filter) {
+		final int slot = slotOf(eachName, filter);
+		if (slot < 0) return null;
+		final IType<?> type = filter.getGamlType();
+		final IList<Object> result = GamaListFactory.create(type);
+		return columns.collect(slot, result) ? result : null;
+	}
+
+	@Override
+	public boolean add(final T e) {
+		final boolean result = super.add(e);
+		if (result && e != null) { columns.join(e); }
+		return result;
+	}
+
+	@Override
+	public void add(final int index, final T e) {
+		super.add(index, e);
+		if (e != null) { columns.join(e); }
+	}
+
+	@Override
+	public boolean addAll(final Collection<? extends T> c) {
+		final boolean result = super.addAll(c);
+		for (final T e : c) { if (e != null) { columns.join(e); } }
+		return result;
+	}
+
+	@Override
+	public boolean addAll(final int index, final Collection<? extends T> c) {
+		final boolean result = super.addAll(index, c);
+		for (final T e : c) { if (e != null) { columns.join(e); } }
+		return result;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		final boolean result = super.remove(o);
+		if (result && o instanceof IAgent a) { columns.leave(a); }
+		return result;
+	}
+
+	@Override
+	public T remove(final int index) {
+		final T result = super.remove(index);
+		if (result != null) { columns.leave(result); }
+		return result;
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		final boolean result = super.removeAll(c);
+		if (result) { columns.resetMembers(internalListOfAgents(true, false)); }
+		return result;
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		final boolean result = super.retainAll(c);
+		if (result) { columns.resetMembers(internalListOfAgents(true, false)); }
+		return result;
+	}
+
+	@Override
+	public T set(final int index, final T element) {
+		final T result = super.set(index, element);
+		if (result != null) { columns.leave(result); }
+		if (element != null) { columns.join(element); }
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		columns.resetMembers(internalListOfAgents(true, false));
+	}
+
+	/**
+	 * Returns whether the species asks for a columnar population
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param species
+	 *            the species
+	 * @return true if the facet 'columnar' is true
+	 */
+	public static boolean isRequiredBy(final IScope scope, final ISpecies species) {
+		final IExpression facet = species.getFacet(IKeyword.COLUMNAR);
+		return facet != null && Cast.asBool(scope, facet.value(scope));
+	}
+
+}
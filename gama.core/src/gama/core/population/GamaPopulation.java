@@ -80,6 +80,9 @@ public class GamaPopulation<T extends IAgent> extends AbstractPopulation<T> {
 	/** The mirror management. */
 	private final MirrorPopulationManagement mirrorManagement;
 
+	/** The indexes declared on the attributes of the agents, if any. */
+	private AttributeIndexes indexes;
+
 	/**
 	 * The Class MirrorPopulationManagement.
 	 */
@@ -139,6 +142,54 @@ public class GamaPopulation<T extends IAgent> extends AbstractPopulation<T> {
 				species.isMirror() && host != null ? new MirrorPopulationManagement(species.getFacet(MIRRORS)) : null;
 	}
 
+	@Override
+	public void initializeFor(final IScope scope) throws GamaRuntimeException {
+		super.initializeFor(scope);
+		indexes = AttributeIndexes.of(scope, species);
+		if (indexes != null) { addListener(indexes); }
+	}
+
+	/**
+	 * Returns the indexes declared on the attributes of the agents (see {@link AttributeIndexes})
+	 *
+	 * @return the indexes or null if the species does not declare any
+	 */
+	public AttributeIndexes getAttributeIndexes() { return indexes; }
+
+	/**
+	 * The agents that satisfy the filter, if it can be answered by an index (see
+	 * {@link AttributeIndexes#select(IScope, ISpecies, String, IExpression)})
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param eachName
+	 *            the each name
+	 * @param filter
+	 *            the filter
+	 * @return the agents, in the order of their indices, or null if the filter cannot be answered by an index
+	 */
+	public List<IAgent> select(final IScope scope, final String eachName, final IExpression filter) {
+		return indexes == null ? null : indexes.select(scope, species, eachName, filter);
+	}
+
+	/**
+	 * Returns the population designated by the container, if it declares indexes (either the container itself or the
+	 * population of the species in the current scope)
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param container
+	 *            the container
+	 * @return the population or null
+	 */
+	public static GamaPopulation<?> indexed(final IScope scope, final Object container) {
+		IPopulation<?> pop = null;
+		if (container instanceof IPopulation<?> p) {
+			pop = p;
+		} else if (container instanceof ISpecies s) { pop = s.getPopulation(scope); }
+		return pop instanceof GamaPopulation<?> gp && gp.indexes != null ? gp : null;
+	}
+
 	@Override
 	protected void manageMirror(final IScope scope) {
 		if (mirrorManagement != null) { mirrorManagement.executeOn(scope); }
@@ -181,6 +232,7 @@ public class GamaPopulation<T extends IAgent> extends AbstractPopulation<T> {
 		for (final IShape geom : geometries.iterable(scope)) {
 			// WARNING Should be redefined somehow
 			final T a = (T) constr.createOneAgent(this, currentAgentIndex++);
+			created(a);
 			// final int ind = currentAgentIndex++;
 			// a.setIndex(ind);
 			a.setGeometry(geom);
@@ -232,6 +284,7 @@ public class GamaPopulation<T extends IAgent> extends AbstractPopulation<T> {
 		final IAgentConstructor constr = species.getDescription().getAgentConstructor();
 		for (int i = 0; i < number; i++) {
 			final T a = (T) constr.createOneAgent(this, currentAgentIndex++);
+			created(a);
 			// Try to grab the location earlier
 			if (initialValues != null && !initialValues.isEmpty()) {
 				final Map<String, Object> init = initialValues.get(i);
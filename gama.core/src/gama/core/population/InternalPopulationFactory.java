@@ -27,6 +27,7 @@ public class InternalPopulationFactory implements IPopulationFactory {
 	@Override
 	public <E extends IAgent> IPopulation<E> createRegularPopulation(final IScope scope, final IMacroAgent host,
 			final ISpecies species) {
+		if (ColumnarPopulation.isRequiredBy(scope, species)) return new ColumnarPopulation<>(host, species);
 		return new GamaPopulation<>(host, species);
 	}
 
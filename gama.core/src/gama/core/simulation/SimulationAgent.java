@@ -40,6 +40,7 @@ import gama.api.kernel.agent.IMacroAgent;
 import gama.api.kernel.agent.IPopulation;
 import gama.api.kernel.serialization.ISerialisedAgent;
 import gama.api.kernel.serialization.ISerialisedPopulation;
+import gama.api.kernel.serialization.SerialisedAgent;
 import gama.api.kernel.simulation.IClock;
 import gama.api.kernel.simulation.IExperimentAgent;
 import gama.api.kernel.simulation.IExperimentController;
@@ -58,6 +59,7 @@ import gama.api.types.geometry.GamaPointFactory;
 import gama.api.types.geometry.GamaShapeFactory;
 import gama.api.types.geometry.IPoint;
 import gama.api.types.geometry.IShape;
+import gama.api.types.list.IList;
 import gama.api.types.map.GamaMapFactory;
 import gama.api.types.topology.ITopology;
 import gama.api.ui.IOutput;
@@ -66,6 +68,7 @@ import gama.api.ui.IStatusMessage;
 import gama.api.utils.SimulationLocal;
 import gama.api.utils.files.BufferingUtils;
 import gama.api.utils.geometry.IEnvelope;
+import gama.api.utils.interfaces.IDisposable;
 import gama.api.utils.interfaces.IReference;
 import gama.api.utils.prefs.GamaPreferences;
 import gama.api.utils.random.IRandom;
@@ -151,6 +154,15 @@ import gama.gaml.operators.spatial.SpatialTransformations;
 				name = ISimulationAgent.AVERAGE_DURATION,
 				type = IType.STRING,
 				doc = @doc ("Returns a string containing the average duration, in milliseconds, of a simulation cycle.")),
+		@variable (
+				name = ISimulationAgent.SCOPES_CREATED,
+				type = IType.INT,
+				doc = @doc ("Returns the number of execution scopes created for this simulation during its previous cycle, which measures the cost of the parallel executions of agents")),
+		@variable (
+				name = ISimulationAgent.SPECIES_LEVELS,
+				type = IType.LIST,
+				of = IType.LIST,
+				doc = @doc ("Returns the levels in which the species are stepped when the preference to step the independent species concurrently is enabled: the species of a level (given by their names) are stepped concurrently, and the levels one after the other")),
 		@variable (
 				name = ISimulationAgent.CURRENT_DATE,
 				depends_on = ISimulationAgent.STARTING_DATE,
@@ -200,6 +212,9 @@ public class SimulationAgent extends GamlAgent implements ISimulationAgent {
 	/** The topology. */
 	private RootTopology topology;
 
+	/** The order in which the micro-populations are stepped concurrently, computed when they change. */
+	private SpeciesDependencies dependencies;
+
 	/** The Simulation local map. */
 	private Map<SimulationLocal<?>, Object> simulationLocalMap;
 
@@ -332,7 +347,8 @@ public class SimulationAgent extends GamlAgent implements ISimulationAgent {
 		} else {
 			final IExpression expr = getSpecies().getFacet(IKeyword.TORUS);
 			final boolean torus = expr != null && Cast.asBool(scope, expr.value(scope));
-			setTopology(new RootTopology(scope, shape, torus, parallel[0]));
+			final IExpression index = getSpecies().getFacet(IKeyword.SPATIAL_INDEX);
+			setTopology(new RootTopology(scope, shape, torus, parallel[0], index == null ? null : index.literalValue()));
 		}
 	}
 
@@ -385,6 +401,43 @@ public class SimulationAgent extends GamlAgent implements ISimulationAgent {
 		return super.preStep(scope);
 	}
 
+	@Override
+	protected boolean stepSubPopulations(final IScope scope) {
+		if (!GamaExecutorService.CONCURRENCY_INDEPENDENT_SPECIES.getValue()) return super.stepSubPopulations(scope);
+		return getSpeciesDependencies(scope).step(scope);
+	}
+
+	/**
+	 * Returns the dependencies between the species of the simulation, computed again if the micro-populations or the
+	 * kind of random number generator have changed.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the species dependencies
+	 */
+	private SpeciesDependencies getSpeciesDependencies(final IScope scope) {
+		final IPopulation<? extends IAgent>[] populations = getMicroPopulations();
+		final boolean streams = getRandomGenerator().hasStreams();
+		SpeciesDependencies result = dependencies;
+		if (result == null || result.populations != populations || result.streams != streams) {
+			result = new SpeciesDependencies(populations, streams);
+			dependencies = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the levels in which the species are stepped when the independent species are stepped concurrently.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the names of the species, level by level
+	 */
+	@getter (SPECIES_LEVELS)
+	public IList<IList<String>> getSpeciesLevels(final IScope scope) {
+		return getSpeciesDependencies(scope).getLevels();
+	}
+
 	@Override
 	protected void postStep(final IScope scope) {
 		super.postStep(scope);
@@ -447,6 +500,8 @@ public class SimulationAgent extends GamlAgent implements ISimulationAgent {
 		// we make sure that all pending write operations are flushed
 		BufferingUtils.getInstance().flushSaveFilesOfAgent(this);
 		BufferingUtils.getInstance().flushWriteOfAgent(this);
+		// The states recorded to step back, and their temporary file, are released with the simulation
+		if (getAttribute(SerialisedAgent.HISTORY_KEY) instanceof IDisposable history) { history.dispose(); }
 		GAMA.releaseScope(getScope());
 		// scope = null;
 		super.dispose();
@@ -651,6 +706,16 @@ public class SimulationAgent extends GamlAgent implements ISimulationAgent {
 	@getter (AVERAGE_DURATION)
 	public String getAverageDuration() { return Double.toString(getClock().getAverageDuration()); }
 
+	/**
+	 * Gets the number of scopes created during the previous cycle.
+	 *
+	 * @return the number of scopes created
+	 */
+	@getter (SCOPES_CREATED)
+	public Integer getNumberOfScopesCreated() {
+		return (int) Math.min(Integer.MAX_VALUE, getClock().getNumberOfScopesCreated());
+	}
+
 	/**
 	 * Sets the current date.
 	 *
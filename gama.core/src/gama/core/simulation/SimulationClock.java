@@ -13,6 +13,7 @@ package gama.core.simulation;
 import java.time.DateTimeException;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import gama.api.exceptions.GamaRuntimeException;
 import gama.api.gaml.types.GamaDateType;
@@ -73,6 +74,15 @@ public class SimulationClock implements IClock {
 	 */
 	private long start = 0;
 
+	/** The number of scopes created for the agent of this clock. */
+	private final LongAdder scopes = new LongAdder();
+
+	/** The number of scopes created before the beginning of the current cycle. */
+	private long scopesAtStart = 0;
+
+	/** The number of scopes created during the last cycle elapsed. */
+	private long scopesCreated = 0;
+
 	// /**
 	// * Whether to display the number of cycles or a more readable information (in model time)
 	// */
@@ -234,6 +244,7 @@ public class SimulationClock implements IClock {
 	@Override
 	public void resetDuration() {
 		start = System.currentTimeMillis();
+		scopesAtStart = scopes.sum();
 		// duration = 0;
 	}
 
@@ -252,6 +263,7 @@ public class SimulationClock implements IClock {
 	 */
 	private void computeDuration() {
 		duration = System.currentTimeMillis() - start;
+		scopesCreated = scopes.sum() - scopesAtStart;
 		totalDuration += duration;
 	}
 
@@ -282,6 +294,14 @@ public class SimulationClock implements IClock {
 	@Override
 	public long getTotalDuration() { return totalDuration; }
 
+	@Override
+	public long getNumberOfScopesCreated() { return scopesCreated; }
+
+	@Override
+	public void scopeCreated() {
+		scopes.increment();
+	}
+
 	/**
 	 * Step.
 	 *
@@ -0,0 +1,356 @@
+/*******************************************************************************************************
+ *
+ * SpeciesDependencies.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+
+import gama.annotations.constants.IKeyword;
+import gama.api.compilation.descriptions.IDescription;
+import gama.api.compilation.descriptions.ISkillDescription;
+import gama.api.compilation.descriptions.ISpeciesDescription;
+import gama.api.compilation.descriptions.ITypeDescription;
+import gama.api.compilation.descriptions.IVariableDescription;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.expressions.IVarExpression;
+import gama.api.gaml.types.IType;
+import gama.api.gaml.types.Types;
+import gama.api.kernel.agent.IAgent;
+import gama.api.kernel.agent.IPopulation;
+import gama.api.runtime.GamaExecutorService;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.list.GamaListFactory;
+import gama.api.types.list.IList;
+import gama.api.utils.random.RandomDraws;
+import gama.dev.DEBUG;
+import gama.gaml.skills.GridSkill;
+
+/**
+ * The order in which the micro-populations of a simulation can be stepped when
+ * {@link GamaExecutorService#CONCURRENCY_INDEPENDENT_SPECIES} is enabled. The populations are grouped in levels: the
+ * ones of a level are stepped concurrently, and the levels one after the other. A population is put in a level after
+ * the ones of all the populations that come before it in the sequential order and with which it may interfere.
+ *
+ * <p>
+ * Whether two species may interfere is decided from their descriptions (attributes, actions, behaviors and
+ * micro-species, including the ones inherited): what a species reads and writes in the global attributes, and which
+ * other species its expressions refer to (through their types or the attributes they access). The globals defined by a
+ * function are expanded into what their function accesses. Two species interfere if one refers to the other (or to
+ * one of its parents or subspecies), if one writes a global attribute read or written by the other, or if both may
+ * draw random numbers (see {@link RandomDraws}; creating agents or calling an action implemented in Java counts as
+ * such) while the generator does not give each agent its own stream. The analysis is conservative: a species that uses
+ * a skill or a control architecture implemented in Java
+ * (except the moving and grid skills and the reflex and fsm architectures), that refers to the world, to the
+ * experiment or to generic agents, or that calls an action of the world, is stepped alone.
+ * </p>
+ *
+ * @author drogoul
+ */
+final class SpeciesDependencies {
+
+	static {
+		DEBUG.OFF();
+	}
+
+	/** The skills that only access the attributes of the agents that use them. */
+	private static final Set<String> SAFE_SKILLS =
+			Set.of(IKeyword.MOVING_SKILL, IKeyword.MOVING_3D_SKILL, GridSkill.SKILL_NAME);
+
+	/** The control architectures that only run the behaviors written in GAML. */
+	private static final Set<String> SAFE_CONTROLS = Set.of(IKeyword.REFLEX, IKeyword.FSM);
+
+	/** The depth of the types examined in the types of the expressions (e.g. list<list<people>>). */
+	private static final int TYPE_DEPTH = 3;
+
+	/**
+	 * What the descriptions of a species access.
+	 */
+	static final class Access {
+
+		/** The species. */
+		final ISpeciesDescription species;
+
+		/** The global attributes read, written, and read among them the ones that are containers. */
+		final Set<String> reads = new HashSet<>(), writes = new HashSet<>(), containers = new HashSet<>();
+
+		/** The species referred to (the species itself included). */
+		final Set<ITypeDescription> referred = new HashSet<>();
+
+		/** Whether the species cannot be stepped concurrently with another one. */
+		boolean unsafe;
+
+		/** Whether the species modifies containers that are not global attributes (which can be aliases of them). */
+		boolean aliases;
+
+		/** Whether the species may draw random numbers. */
+		boolean random;
+
+		/** The species whose description is being visited (the species or one of its parents). */
+		private ITypeDescription declaring;
+
+		/**
+		 * Analyses a species.
+		 *
+		 * @param species
+		 *            the species
+		 */
+		Access(final ISpeciesDescription species) {
+			this.species = species;
+			referred.add(species);
+			for (final String skill : species.getSkillsNames()) { if (!SAFE_SKILLS.contains(skill)) { unsafe = true; } }
+			final ISkillDescription control = species.getControl();
+			if (control != null && !SAFE_CONTROLS.contains(control.getName())) { unsafe = true; }
+			ITypeDescription type = species;
+			while (!unsafe && type != null && !type.isBuiltIn()) {
+				declaring = type;
+				visit(type);
+				type = type.getParent();
+			}
+		}
+
+		/**
+		 * Visits a description and its children (except the aspects, which are not run by the steps).
+		 */
+		private void visit(final IDescription description) {
+			final String keyword = description.getKeyword();
+			if (unsafe || IKeyword.ASPECT.equals(keyword)) return;
+			description.visitFacets((name, facet) -> {
+				final IExpression expression = facet == null ? null : facet.getExpression();
+				if (expression != null) {
+					inspect(expression);
+					if (!random && RandomDraws.mayDraw(expression)) { random = true; }
+				}
+				return !unsafe;
+			});
+			if (keyword != null) {
+				switch (keyword) {
+					case IKeyword.SET -> modified(description.getFacetExpr(IKeyword.NAME), false);
+					case IKeyword.ADD -> modified(description.getFacetExpr(IKeyword.TO), true);
+					case IKeyword.PUT -> modified(description.getFacetExpr(IKeyword.IN), true);
+					case IKeyword.REMOVE -> modified(description.getFacetExpr(IKeyword.FROM), true);
+					// The agents created are placed at random locations, unless told otherwise
+					case IKeyword.CREATE -> random = true;
+					case IKeyword.DO, IKeyword.INVOKE -> {
+						// The actions that are not found in the species are the ones of the world
+						final String action = description.getLitteral(IKeyword.ACTION);
+						final ITypeDescription context = description.getTypeContext();
+						if (action != null && (context == null || !context.hasAction(action, false))) {
+							unsafe = true;
+						} else if (action != null && context.getAction(action).isBuiltIn()) {
+							// The actions of the skills (e.g. wander) may draw random numbers
+							random = true;
+						}
+					}
+					default -> {}
+				}
+			}
+			description.visitOwnChildren(child -> {
+				visit(child);
+				return !unsafe;
+			});
+		}
+
+		/**
+		 * Records the global attributes written by an assignment or the modification of a container.
+		 */
+		private void modified(final IExpression target, final boolean container) {
+			if (target == null) return;
+			final List<String> globals = new ArrayList<>();
+			target.findAny(e -> {
+				if (e instanceof IVarExpression.Agent v) {
+					final ITypeDescription owner = v.getDefinitionDescription().getTypeContext();
+					if (owner != null && owner.isModel()) { globals.add(v.getName()); }
+				}
+				return false;
+			});
+			writes.addAll(globals);
+			if (container && globals.isEmpty()) { aliases = true; }
+		}
+
+		/**
+		 * Records what an expression accesses.
+		 */
+		private void inspect(final IExpression expression) {
+			expression.findAny(e -> {
+				if (e instanceof IVarExpression.Agent v) { attribute(v); }
+				type(e.getGamlType(), TYPE_DEPTH);
+				return unsafe;
+			});
+		}
+
+		/**
+		 * Records the access to an attribute.
+		 */
+		private void attribute(final IVarExpression.Agent v) {
+			final ITypeDescription owner = v.getDefinitionDescription().getTypeContext();
+			if (owner == null || owner.isExperiment()) {
+				unsafe = true;
+			} else if (owner.isModel()) {
+				// A global defined by a function reads what its function reads (visited once, which stops cycles)
+				if (reads.add(v.getName()) && v.getDefinitionDescription() instanceof IVariableDescription d
+						&& d.isFunction()) {
+					final IExpression function = d.getFacetExpr(IKeyword.FUNCTION);
+					if (function == null) {
+						unsafe = true;
+					} else {
+						inspect(function);
+					}
+				}
+				if (v.getGamlType().isContainer()) { containers.add(v.getName()); }
+			} else if (owner != species && !species.hasParent(owner)) { referred.add(owner); }
+		}
+
+		/**
+		 * Records the species referred to by a type.
+		 */
+		private void type(final IType<?> type, final int depth) {
+			if (type == null || depth == 0) return;
+			if (type.isAgentType()) {
+				final ITypeDescription s = type.getSpecies();
+				if (s == null || s.isBuiltIn() || s.isModel() || s.isExperiment()) {
+					unsafe = true;
+				} else if (s != declaring) { referred.add(s); }
+			}
+			if (type.isContainer()) {
+				type(type.getContentType(), depth - 1);
+				type(type.getKeyType(), depth - 1);
+			}
+		}
+
+		/**
+		 * The global attributes written, including the containers read if they can be modified through aliases.
+		 */
+		Set<String> written() {
+			if (!aliases) return writes;
+			final Set<String> result = new HashSet<>(writes);
+			result.addAll(containers);
+			return result;
+		}
+
+		/**
+		 * Whether this species refers to another one, one of its parents or one of its subspecies.
+		 */
+		boolean refersTo(final ITypeDescription other) {
+			for (final ITypeDescription s : referred) {
+				if (s == other || other.hasParent(s) || s.hasParent(other)) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Whether this species may interfere with another one.
+		 *
+		 * @param streams
+		 *            whether the random number generator gives each agent its own stream
+		 */
+		boolean interferesWith(final Access other, final boolean streams) {
+			if (unsafe || other.unsafe || refersTo(other.species) || other.refersTo(species)) return true;
+			if (!streams && random && other.random) return true;
+			final Set<String> written = written(), otherWritten = other.written();
+			return !Collections.disjoint(written, other.reads) || !Collections.disjoint(otherWritten, reads)
+					|| !Collections.disjoint(written, otherWritten);
+		}
+	}
+
+	/** The populations from which the levels have been computed. */
+	final IPopulation<? extends IAgent>[] populations;
+
+	/** Whether the levels have been computed for a generator that gives each agent its own stream. */
+	final boolean streams;
+
+	/** The levels. */
+	private final List<IPopulation<? extends IAgent>[]> levels = new ArrayList<>();
+
+	/**
+	 * Computes the levels of the populations.
+	 *
+	 * @param populations
+	 *            the micro-populations of the simulation, in the order in which they are stepped sequentially
+	 * @param streams
+	 *            whether the random number generator gives each agent its own stream
+	 */
+	@SuppressWarnings ("unchecked")
+	SpeciesDependencies(final IPopulation<? extends IAgent>[] populations, final boolean streams) {
+		this.populations = populations;
+		this.streams = streams;
+		final int size = populations.length;
+		final Access[] accesses = new Access[size];
+		final int[] level = new int[size];
+		int depth = 0;
+		for (int i = 0; i < size; i++) {
+			accesses[i] = new Access(populations[i].getSpecies().getDescription());
+			for (int j = 0; j < i; j++) {
+				if (level[j] >= level[i] && accesses[i].interferesWith(accesses[j], streams)) {
+					level[i] = level[j] + 1;
+				}
+			}
+			depth = Math.max(depth, level[i] + 1);
+		}
+		for (int l = 0; l < depth; l++) {
+			final List<IPopulation<? extends IAgent>> members = new ArrayList<>();
+			for (int i = 0; i < size; i++) { if (level[i] == l) { members.add(populations[i]); } }
+			levels.add(members.toArray(new IPopulation[members.size()]));
+		}
+		DEBUG.OUT("Species stepped by levels: " + levels.stream().map(Arrays::toString).toList());
+	}
+
+	/**
+	 * Returns the names of the species of the populations, level by level.
+	 *
+	 * @return the list of levels
+	 */
+	IList<IList<String>> getLevels() {
+		final IList<IList<String>> result = GamaListFactory.create(Types.LIST.of(Types.STRING));
+		for (final IPopulation<? extends IAgent>[] level : levels) {
+			final IList<String> names = GamaListFactory.create(Types.STRING);
+			for (final IPopulation<? extends IAgent> population : level) {
+				names.add(population.getSpecies().getName());
+			}
+			result.add(names);
+		}
+		return result;
+	}
+
+	/**
+	 * Steps the populations, level by level.
+	 *
+	 * @param scope
+	 *            the scope of the simulation
+	 * @return true if all the steps have passed
+	 */
+	boolean step(final IScope scope) {
+		for (final IPopulation<? extends IAgent>[] level : levels) {
+			if (level.length == 1) {
+				if (!scope.step(level[0]).passed()) return false;
+				continue;
+			}
+			final List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(level.length);
+			for (final IPopulation<? extends IAgent> population : level) {
+				final IScope speciesScope = scope.fork(" - species - ");
+				tasks.add(GamaExecutorService.AGENT_PARALLEL_EXECUTOR.submit(() -> {
+					final boolean passed = speciesScope.step(population).passed();
+					speciesScope.release();
+					return passed;
+				}));
+			}
+			boolean passed = true;
+			for (final ForkJoinTask<Boolean> task : tasks) { passed &= task.join(); }
+			if (!passed) return false;
+		}
+		return true;
+	}
+
+}
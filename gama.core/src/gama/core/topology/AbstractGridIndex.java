@@ -0,0 +1,188 @@
+/*******************************************************************************************************
+ *
+ * AbstractGridIndex.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.topology;
+
+import java.util.Collection;
+
+import com.google.common.collect.Ordering;
+
+import gama.api.kernel.agent.IAgent;
+import gama.api.kernel.topology.ISpatialIndex;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.geometry.IPoint;
+import gama.api.types.geometry.IShape;
+import gama.api.types.list.GamaListFactory;
+import gama.api.utils.collections.Collector;
+import gama.api.utils.collections.ICollector;
+import gama.api.utils.geometry.GamaEnvelopeFactory;
+import gama.api.utils.geometry.IEnvelope;
+import gama.api.utils.interfaces.IAgentFilter;
+import gama.gaml.operators.Maths;
+
+/**
+ * Base class of the spatial indexes that divide the (2D projection of the) bounds of the world into a uniform grid of
+ * cells (see {@link GamaSpatialHash} and {@link GamaSnapshotIndex}). Subclasses only define how agents are stored in
+ * the cells and how the candidates intersecting an envelope are collected; the distance queries are shared and follow
+ * the semantics of {@link GamaQuadTree}. Coordinates outside the bounds are mapped to the closest cells.
+ *
+ * @author drogoul
+ */
+public abstract class AbstractGridIndex implements ISpatialIndex {
+
+	/** The number of cells along the largest dimension of the bounds. */
+	static final int RESOLUTION = 100;
+
+	/** The origin of the grid. */
+	final double minX, minY;
+
+	/** The size of a cell. */
+	final double cellSize;
+
+	/** The number of columns and rows. */
+	final int cols, rows;
+
+	/**
+	 * Instantiates a new grid covering the bounds.
+	 *
+	 * @param bounds
+	 *            the bounds of the world
+	 */
+	protected AbstractGridIndex(final IEnvelope bounds) {
+		minX = bounds.getMinX();
+		minY = bounds.getMinY();
+		final double biggest = Math.max(bounds.getWidth(), bounds.getHeight());
+		cellSize = biggest > 0 ? biggest / RESOLUTION : 1d;
+		cols = Math.max(1, (int) Math.ceil(bounds.getWidth() / cellSize));
+		rows = Math.max(1, (int) Math.ceil(bounds.getHeight() / cellSize));
+	}
+
+	/**
+	 * The column containing this x coordinate (clamped to the grid)
+	 */
+	protected int col(final double x) {
+		final int c = (int) ((x - minX) / cellSize);
+		return c < 0 ? 0 : c >= cols ? cols - 1 : c;
+	}
+
+	/**
+	 * The row containing this y coordinate (clamped to the grid)
+	 */
+	protected int row(final double y) {
+		final int r = (int) ((y - minY) / cellSize);
+		return r < 0 ? 0 : r >= rows ? rows - 1 : r;
+	}
+
+	/**
+	 * Collects the agents whose key intersects the envelope (in 2D). Duplicates are allowed: the collector removes them.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param r
+	 *            the envelope
+	 * @param result
+	 *            the collector
+	 */
+	protected abstract void collect(IScope scope, IEnvelope r, Collection<IAgent> result);
+
+	/**
+	 * Finds the agents intersecting the envelope, filters and shuffles them (see Issue 722)
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param source
+	 *            the source
+	 * @param r
+	 *            the envelope
+	 * @param filter
+	 *            the filter
+	 * @return the collection of agents
+	 */
+	protected Collection<IAgent> findIntersects(final IScope scope, final IShape source, final IEnvelope r,
+			final IAgentFilter filter) {
+		try (final ICollector<IAgent> list = Collector.getOrderedSet()) {
+			collect(scope, r, list);
+			if (list.isEmpty()) return GamaListFactory.create();
+			filter.filter(scope, source, list);
+			list.shuffleInPlaceWith(scope.getRandom());
+			return list.items();
+		}
+	}
+
+	/**
+	 * Builds a 2D search envelope centred on the source and expanded by dist * √2
+	 */
+	static IEnvelope buildSearchEnvelope(final IShape source, final double dist) {
+		final double exp = dist * Maths.SQRT2;
+		if (source.isPoint()) {
+			final IPoint loc = source.getLocation();
+			final double x = loc.getX(), y = loc.getY();
+			return GamaEnvelopeFactory.of(x - exp, x + exp, y - exp, y + exp);
+		}
+		final IEnvelope env = GamaEnvelopeFactory.of(source.getEnvelope());
+		env.expandBy(exp);
+		return env;
+	}
+
+	@Override
+	public Collection<IAgent> allAtDistance(final IScope scope, final IShape source, final double dist,
+			final IAgentFilter f) {
+		final IEnvelope env = buildSearchEnvelope(source, dist);
+		try {
+			final Collection<IAgent> result = findIntersects(scope, source, env, f);
+			if (!result.isEmpty()) { result.removeIf(each -> source.euclidianDistanceTo(each) > dist); }
+			return result;
+		} finally {
+			env.dispose();
+		}
+	}
+
+	@Override
+	public IAgent firstAtDistance(final IScope scope, final IShape source, final double dist, final IAgentFilter f) {
+		final IEnvelope env = buildSearchEnvelope(source, dist);
+		try {
+			final Collection<IAgent> in_square = findIntersects(scope, source, env, f);
+			double min_distance = dist;
+			IAgent min_agent = null;
+			for (final IAgent a : in_square) {
+				final double dd = source.euclidianDistanceTo(a);
+				if (dd < min_distance) {
+					min_distance = dd;
+					min_agent = a;
+				}
+			}
+			return min_agent;
+		} finally {
+			env.dispose();
+		}
+	}
+
+	@Override
+	public Collection<IAgent> firstAtDistance(final IScope scope, final IShape source, final double dist,
+			final IAgentFilter f, final int number, final Collection<IAgent> alreadyChosen) {
+		final IEnvelope env = buildSearchEnvelope(source, dist);
+		try {
+			final Collection<IAgent> in_square = findIntersects(scope, source, env, f);
+			in_square.removeAll(alreadyChosen);
+			if (in_square.size() <= number) return in_square;
+			final Ordering<IShape> ordering = Ordering.natural().onResultOf(input -> source.euclidianDistanceTo(input));
+			return ordering.leastOf(in_square, number);
+		} finally {
+			env.dispose();
+		}
+	}
+
+	@Override
+	public Collection<IAgent> allInEnvelope(final IScope scope, final IShape source, final IEnvelope envelope,
+			final IAgentFilter f, final boolean contained) {
+		return findIntersects(scope, source, envelope, f);
+	}
+
+}
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.WeakHashMap;
 
 import com.google.common.collect.Lists;
@@ -39,12 +40,15 @@ import gama.core.topology.grid.GridPopulation;
  */
 public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 
+	/** The kinds of spatial indexes that can be chosen with the facet 'spatial_index' of the global species */
+	public static final String QUADTREE = "quadtree", HASH = "hash", SNAPSHOT = "snapshot";
+
 	/** The disposed. */
 	boolean disposed = false;
 
-	/** The spatial indexes. */
+	/** The spatial indexes. Synchronized, as the species can be stepped concurrently. */
 
-	private final WeakHashMap<ISpecies, ISpatialIndex> spatialIndexes = new WeakHashMap<>();
+	private final Map<ISpecies, ISpatialIndex> spatialIndexes = Collections.synchronizedMap(new WeakHashMap<>());
 
 	/** The bounds. */
 	private IEnvelope bounds;
@@ -52,6 +56,9 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 	/** The parallel. */
 	private boolean parallel;
 
+	/** The kind of index created for each species (one of {@link #QUADTREE}, {@link #HASH} or {@link #SNAPSHOT}). */
+	private final String kind;
+
 	/** The steps. */
 	final protected double[] steps;
 
@@ -59,7 +66,8 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 	 * The cached species indices. Keeps a correspondance between species and the spatial indices to use to look for
 	 * agents. Used when passing a list of agents with a common species (and not a population)
 	 */
-	private final WeakHashMap<ISpecies, Iterable<ISpatialIndex>> cachedSpeciesIndices = new WeakHashMap<>();
+	private final Map<ISpecies, Iterable<ISpatialIndex>> cachedSpeciesIndices =
+			Collections.synchronizedMap(new WeakHashMap<>());
 
 	/**
 	 * Instantiates a new compound spatial index.
@@ -70,6 +78,21 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 	 *            the parallel
 	 */
 	public CompoundSpatialIndex(final IEnvelope bounds, final boolean parallel) {
+		this(bounds, parallel, QUADTREE);
+	}
+
+	/**
+	 * Instantiates a new compound spatial index using the given kind of index for each species.
+	 *
+	 * @param bounds
+	 *            the bounds
+	 * @param parallel
+	 *            the parallel
+	 * @param kind
+	 *            the kind of index ({@link #QUADTREE}, {@link #HASH} or {@link #SNAPSHOT})
+	 */
+	public CompoundSpatialIndex(final IEnvelope bounds, final boolean parallel, final String kind) {
+		this.kind = kind == null ? QUADTREE : kind;
 		this.bounds = bounds;
 		this.parallel = parallel;
 		final double biggest = Math.max(bounds.getWidth(), bounds.getHeight());
@@ -250,7 +273,8 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 	 * When the world bounds have a non-zero depth ({@link IEnvelope#is3D()} returns {@code true}) a
 	 * {@link GamaOctTree} is chosen, which partitions all three spatial dimensions. For flat/2D worlds a
 	 * {@link GamaQuadTree} is used instead, which is faster and uses less memory for the common case where all agents
-	 * live at the same Z level.
+	 * live at the same Z level. If the model asks for a {@link #HASH} index, a {@link GamaSpatialHash} is used in both
+	 * cases: it does not need to be synchronized when the species are scheduled in parallel.
 	 * </p>
 	 *
 	 * @param envelope
@@ -260,23 +284,27 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 	 * @return a new {@link ISpatialIndex} appropriate for the dimensionality of the world
 	 */
 	private ISpatialIndex createIndex(final IEnvelope envelope, final boolean parallel) {
+		if (HASH.equals(kind)) return new GamaSpatialHash(envelope);
+		if (SNAPSHOT.equals(kind)) return new GamaSnapshotIndex(envelope);
 		return envelope.is3D() ? GamaOctTree.create(envelope, parallel) : GamaQuadTree.create(envelope, parallel);
 	}
 
 	private ISpatialIndex add(final IPopulation<? extends IAgent> pop, final boolean insertAgents) {
 		if (disposed || pop == null) return null;
 		ISpecies spec = pop.getSpecies();
-		ISpatialIndex index = spatialIndexes.getOrDefault(spec, null);
-		if (index == null) {
-			if (pop.isGrid()) {
-				index = ((GridPopulation) pop).getTopology().getPlaces();
-			} else {
-				index = createIndex(bounds, parallel);
+		synchronized (spatialIndexes) {
+			ISpatialIndex index = spatialIndexes.getOrDefault(spec, null);
+			if (index == null) {
+				if (pop.isGrid()) {
+					index = ((GridPopulation) pop).getTopology().getPlaces();
+				} else {
+					index = createIndex(bounds, parallel);
+				}
+				spatialIndexes.put(spec, index);
+				if (insertAgents) { for (final IAgent ag : pop) { index.insert(ag); } }
 			}
-			spatialIndexes.put(spec, index);
-			if (insertAgents) { for (final IAgent ag : pop) { index.insert(ag); } }
+			return index;
 		}
-		return index;
 	}
 
 	/**
@@ -294,14 +322,16 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 				(Collection<IPopulation<? extends IAgent>>) ((IPopulationSet) filter).getPopulations(scope),
 				each -> add(each, true));
 		ISpecies species = filter.getSpecies();
-		if (species == null || IKeyword.AGENT.equals(species.getName())) return spatialIndexes.values();
-		if (!cachedSpeciesIndices.containsKey(species)) {
-			cachedSpeciesIndices.put(species,
-					Lists.newArrayList(com.google.common.collect.Iterables.transform(com.google.common.collect.Iterables
-							.concat(java.util.Collections.singleton(species), species.getSubSpecies(scope)),
-							s -> add(scope, s, true))));
+		if (species == null || IKeyword.AGENT.equals(species.getName())) {
+			synchronized (spatialIndexes) {
+				return new ArrayList<>(spatialIndexes.values());
+			}
 		}
-		return cachedSpeciesIndices.get(species);
+		return cachedSpeciesIndices.computeIfAbsent(species,
+				sp -> Lists.newArrayList(com.google.common.collect.Iterables.transform(
+						com.google.common.collect.Iterables.concat(java.util.Collections.singleton(sp),
+								sp.getSubSpecies(scope)),
+						s -> add(scope, s, true))));
 	}
 
 	/**
@@ -330,7 +360,9 @@ public class CompoundSpatialIndex implements ISpatialIndex.Compound {
 		this.bounds = envelope;
 		this.parallel = parallel;
 		final WeakHashMap<ISpecies, ISpatialIndex> spatialIndexesTmp = new WeakHashMap<>();
-		spatialIndexesTmp.putAll(spatialIndexes);
+		synchronized (spatialIndexes) {
+			spatialIndexesTmp.putAll(spatialIndexes);
+		}
 		for (ISpecies species : spatialIndexesTmp.keySet()) {
 			remove(species);
 			add(scope, species, true);
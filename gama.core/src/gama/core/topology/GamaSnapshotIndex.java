@@ -0,0 +1,262 @@
+/*******************************************************************************************************
+ *
+ * GamaSnapshotIndex.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.topology;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import gama.api.kernel.agent.IAgent;
+import gama.api.kernel.simulation.IClock;
+import gama.api.runtime.GamaExecutorService;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.geometry.IPoint;
+import gama.api.utils.geometry.IEnvelope;
+import gama.dev.DEBUG;
+
+/**
+ * A spatial index that is not updated when agents move, but rebuilt in bulk, at most once per cycle, the first time it
+ * is queried after agents have moved. The keys of the agents (their locations or envelopes) are then copied into
+ * primitive arrays and sorted by cell with a counting sort, which produces a packed, read-only uniform grid (one array
+ * of offsets per cell and one array of agents), queried without any lock and without following any pointer.
+ *
+ * <p>
+ * Moving an agent only marks the index as modified, so this index suits models where (almost) all the agents move at
+ * each cycle and the queries are done afterwards, or in parallel (e.g. flocking, crowds): the cost of a cycle is one
+ * linear rebuild instead of one removal and one insertion per move, and the queries never contend. The price is that
+ * the positions seen by the queries are the ones of the agents when the snapshot was taken, i.e. at the first query of
+ * the cycle (or after the last change of the population): an agent that moves later in the same cycle is found at its
+ * former location until the next cycle. Agents created since the snapshot trigger a new one; dead agents are ignored.
+ * Chosen with the facet {@code spatial_index: "snapshot"} of the global species.
+ * </p>
+ *
+ * @author drogoul
+ */
+public class GamaSnapshotIndex extends AbstractGridIndex {
+
+	static {
+		DEBUG.OFF();
+	}
+
+	/** The number of agents above which the keys are computed in parallel. */
+	static final int PARALLEL_THRESHOLD = 10000;
+
+	/**
+	 * The immutable content of the index when it has been built.
+	 */
+	static final class Snapshot {
+
+		/** The agents. */
+		final IAgent[] agents;
+
+		/** The 2D keys of the agents (a point has the same min and max). */
+		final double[] minX, minY, maxX, maxY;
+
+		/** The offsets, in {@link #items}, of the agents of each cell (the last one is the number of items). */
+		final int[] cellStart;
+
+		/** The indices of the agents, sorted by cell. */
+		final int[] items;
+
+		/**
+		 * Instantiates a new snapshot.
+		 */
+		Snapshot(final IAgent[] agents, final double[] minX, final double[] minY, final double[] maxX,
+				final double[] maxY, final int[] cellStart, final int[] items) {
+			this.agents = agents;
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+			this.cellStart = cellStart;
+			this.items = items;
+		}
+	}
+
+	/** The agents currently in the index. */
+	final Set<IAgent> members = ConcurrentHashMap.newKeySet();
+
+	/** The last snapshot built. Null if it needs to be built. */
+	volatile Snapshot snapshot;
+
+	/** Whether agents have been added or removed since the last snapshot. */
+	volatile boolean membershipChanged = true;
+
+	/** Whether agents have moved since the last snapshot. */
+	volatile boolean moved;
+
+	/** The cycle at which the last snapshot has been built. */
+	volatile int builtAtCycle = -1;
+
+	/**
+	 * Instantiates a new snapshot index covering the bounds.
+	 *
+	 * @param bounds
+	 *            the bounds of the world
+	 */
+	public GamaSnapshotIndex(final IEnvelope bounds) {
+		super(bounds);
+	}
+
+	@Override
+	public void insert(final IAgent agent) {
+		if (agent == null) return;
+		if (members.add(agent)) {
+			membershipChanged = true;
+		} else {
+			moved = true;
+		}
+	}
+
+	@Override
+	public void remove(final IEnvelope previous, final IAgent agent) {
+		// A removal followed by an insertion is a move: only the agents that die leave the index
+		if (agent != null && agent.dead()) {
+			if (members.remove(agent)) { membershipChanged = true; }
+		} else {
+			moved = true;
+		}
+		if (previous != null) { previous.dispose(); }
+	}
+
+	/**
+	 * Returns the current snapshot, rebuilding it if the population has changed or if the agents have moved during a
+	 * previous cycle.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the snapshot
+	 */
+	Snapshot current(final IScope scope) {
+		Snapshot s = snapshot;
+		if (s != null && !needsRebuild(scope)) return s;
+		synchronized (this) {
+			s = snapshot;
+			if (s == null || needsRebuild(scope)) {
+				final int cycle = cycleOf(scope);
+				membershipChanged = false;
+				moved = false;
+				s = build();
+				snapshot = s;
+				builtAtCycle = cycle;
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * Whether the snapshot is out of date.
+	 */
+	private boolean needsRebuild(final IScope scope) {
+		if (membershipChanged) return true;
+		if (!moved) return false;
+		// Without a clock, the moves done during the current cycle cannot be told apart: they always trigger a rebuild
+		final int cycle = cycleOf(scope);
+		return cycle < 0 || cycle != builtAtCycle;
+	}
+
+	/**
+	 * The current cycle, or -1 if it cannot be known (in which case a move always triggers a rebuild).
+	 */
+	private static int cycleOf(final IScope scope) {
+		final IClock clock = scope == null ? null : scope.getClock();
+		return clock == null ? -1 : clock.getCycle();
+	}
+
+	/**
+	 * Builds a snapshot of the keys of the current members.
+	 *
+	 * @return the snapshot
+	 */
+	private Snapshot build() {
+		final IAgent[] agents = members.toArray(new IAgent[0]);
+		final int n = agents.length;
+		final double[] x0 = new double[n], y0 = new double[n], x1 = new double[n], y1 = new double[n];
+		// The range of cells of each agent, packed as c0, r0, c1, r1
+		final int[] range = new int[n * 4];
+		final Runnable keys =
+				() -> IntStream.range(0, n).parallel().forEach(i -> key(agents[i], i, x0, y0, x1, y1, range));
+		if (n >= PARALLEL_THRESHOLD && GamaExecutorService.AGENT_PARALLEL_EXECUTOR != null) {
+			GamaExecutorService.AGENT_PARALLEL_EXECUTOR.submit(keys).join();
+		} else {
+			for (int i = 0; i < n; i++) { key(agents[i], i, x0, y0, x1, y1, range); }
+		}
+		// Counting sort of the agents by cell
+		final int[] cellStart = new int[cols * rows + 1];
+		for (int i = 0; i < n; i++) {
+			for (int r = range[i * 4 + 1]; r <= range[i * 4 + 3]; r++) {
+				for (int c = range[i * 4]; c <= range[i * 4 + 2]; c++) { cellStart[r * cols + c + 1]++; }
+			}
+		}
+		for (int k = 1; k < cellStart.length; k++) { cellStart[k] += cellStart[k - 1]; }
+		final int[] items = new int[cellStart[cellStart.length - 1]];
+		final int[] fill = new int[cols * rows];
+		System.arraycopy(cellStart, 0, fill, 0, fill.length);
+		for (int i = 0; i < n; i++) {
+			for (int r = range[i * 4 + 1]; r <= range[i * 4 + 3]; r++) {
+				for (int c = range[i * 4]; c <= range[i * 4 + 2]; c++) { items[fill[r * cols + c]++] = i; }
+			}
+		}
+		return new Snapshot(agents, x0, y0, x1, y1, cellStart, items);
+	}
+
+	/**
+	 * Copies the key of the i-th agent and the range of cells it covers.
+	 */
+	private void key(final IAgent agent, final int i, final double[] x0, final double[] y0, final double[] x1,
+			final double[] y1, final int[] range) {
+		if (agent.isPoint()) {
+			final IPoint p = agent.getLocation();
+			x0[i] = x1[i] = p.getX();
+			y0[i] = y1[i] = p.getY();
+		} else {
+			final IEnvelope e = agent.getEnvelope();
+			x0[i] = e.getMinX();
+			y0[i] = e.getMinY();
+			x1[i] = e.getMaxX();
+			y1[i] = e.getMaxY();
+		}
+		range[i * 4] = col(x0[i]);
+		range[i * 4 + 1] = row(y0[i]);
+		range[i * 4 + 2] = col(x1[i]);
+		range[i * 4 + 3] = row(y1[i]);
+	}
+
+	/**
+	 * Collects the living agents whose key, in the snapshot, intersects the envelope.
+	 */
+	@Override
+	protected void collect(final IScope scope, final IEnvelope r, final Collection<IAgent> result) {
+		final Snapshot s = current(scope);
+		final double minx = r.getMinX(), maxx = r.getMaxX(), miny = r.getMinY(), maxy = r.getMaxY();
+		final int c0 = col(minx), c1 = col(maxx), r0 = row(miny), r1 = row(maxy);
+		for (int row = r0; row <= r1; row++) {
+			for (int c = c0; c <= c1; c++) {
+				final int cell = row * cols + c;
+				for (int k = s.cellStart[cell], end = s.cellStart[cell + 1]; k < end; k++) {
+					final int i = s.items[k];
+					if (s.maxX[i] < minx || s.minX[i] > maxx || s.maxY[i] < miny || s.minY[i] > maxy) { continue; }
+					final IAgent agent = s.agents[i];
+					if (!agent.dead()) { result.add(agent); }
+				}
+			}
+		}
+	}
+
+	@Override
+	public void dispose() {
+		members.clear();
+		snapshot = null;
+		membershipChanged = true;
+	}
+
+}
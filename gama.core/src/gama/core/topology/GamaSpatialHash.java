@@ -0,0 +1,187 @@
+/*******************************************************************************************************
+ *
+ * GamaSpatialHash.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.topology;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gama.api.kernel.agent.IAgent;
+import gama.api.runtime.scope.IScope;
+import gama.api.types.geometry.IPoint;
+import gama.api.utils.geometry.IEnvelope;
+import gama.dev.DEBUG;
+
+/**
+ * A spatial index that divides the (2D projection of the) bounds of the world into a uniform grid of buckets. Point
+ * agents are stored in the bucket containing their location, other agents in all the buckets covered by their
+ * envelope. Agents outside the bounds are stored in the closest buckets.
+ *
+ * <p>
+ * Contrary to {@link GamaQuadTree}, this index never needs to be synchronized: buckets are concurrent sets created
+ * lazily with a compare-and-set, so that agents moving in parallel only contend when they enter or leave the same
+ * bucket at the same time, and queries iterate the buckets without taking any lock (they see the agents inserted
+ * before they start, and may or may not see the ones inserted concurrently). Moving an agent costs the same whatever
+ * the number of agents, which suits dense populations of mobile agents (pedestrians, vehicles, boids). Chosen with the
+ * facet {@code spatial_index: "hash"} of the global species.
+ * </p>
+ *
+ * @author drogoul
+ */
+public class GamaSpatialHash extends AbstractGridIndex {
+
+	static {
+		DEBUG.OFF();
+	}
+
+	/** The buckets, created lazily, indexed by row * cols + col. */
+	final AtomicReferenceArray<Set<Entry>> cells;
+
+	/** The entry of each agent in the index, used to remove it from the buckets where it has been stored. */
+	final ConcurrentHashMap<IAgent, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * The spatial key of an agent when it has been inserted (its location, or its envelope if it is not a point), and
+	 * the range of buckets where it is stored. Compared by identity in the buckets.
+	 */
+	static final class Entry {
+
+		/** The agent. */
+		final IAgent agent;
+
+		/** The location, if the agent is a point. */
+		final double x, y;
+
+		/** The envelope, if the agent is not a point. */
+		final IEnvelope envelope;
+
+		/** The range of buckets. */
+		final int c0, r0, c1, r1;
+
+		/**
+		 * Instantiates a new entry.
+		 */
+		Entry(final IAgent agent, final double x, final double y, final IEnvelope envelope, final int c0,
+				final int r0, final int c1, final int r1) {
+			this.agent = agent;
+			this.x = x;
+			this.y = y;
+			this.envelope = envelope;
+			this.c0 = c0;
+			this.r0 = r0;
+			this.c1 = c1;
+			this.r1 = r1;
+		}
+
+		/**
+		 * Whether the key of the agent intersects the envelope (in 2D)
+		 *
+		 * @param r
+		 *            the envelope
+		 * @return true, if it intersects
+		 */
+		boolean intersects(final IEnvelope r) {
+			if (envelope != null) return envelope.intersects2D(r);
+			return x >= r.getMinX() && x <= r.getMaxX() && y >= r.getMinY() && y <= r.getMaxY();
+		}
+	}
+
+	/**
+	 * Instantiates a new spatial hash covering the bounds.
+	 *
+	 * @param bounds
+	 *            the bounds of the world
+	 */
+	public GamaSpatialHash(final IEnvelope bounds) {
+		super(bounds);
+		cells = new AtomicReferenceArray<>(cols * rows);
+	}
+
+	/**
+	 * Returns the bucket at this index, creating it if necessary.
+	 */
+	private Set<Entry> bucket(final int index) {
+		Set<Entry> set = cells.get(index);
+		if (set == null) {
+			set = ConcurrentHashMap.newKeySet();
+			if (!cells.compareAndSet(index, null, set)) { set = cells.get(index); }
+		}
+		return set;
+	}
+
+	@Override
+	public void insert(final IAgent agent) {
+		if (agent == null) return;
+		final Entry entry;
+		if (agent.isPoint()) {
+			final IPoint p = agent.getLocation();
+			final double x = p.getX(), y = p.getY();
+			final int c = col(x), r = row(y);
+			entry = new Entry(agent, x, y, null, c, r, c, r);
+		} else {
+			final IEnvelope e = agent.getEnvelope();
+			entry = new Entry(agent, 0, 0, e, col(e.getMinX()), row(e.getMinY()), col(e.getMaxX()),
+					row(e.getMaxY()));
+		}
+		final Entry old = entries.put(agent, entry);
+		if (old != null) { unlink(old); }
+		for (int r = entry.r0; r <= entry.r1; r++) {
+			for (int c = entry.c0; c <= entry.c1; c++) { bucket(r * cols + c).add(entry); }
+		}
+	}
+
+	@Override
+	public void remove(final IEnvelope previous, final IAgent agent) {
+		// The buckets are known from the entry: the previous envelope is not needed
+		final Entry old = entries.remove(agent);
+		if (old != null) { unlink(old); }
+		if (previous != null) { previous.dispose(); }
+	}
+
+	/**
+	 * Removes the entry from its buckets.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void unlink(final Entry entry) {
+		for (int r = entry.r0; r <= entry.r1; r++) {
+			for (int c = entry.c0; c <= entry.c1; c++) {
+				final Set<Entry> set = cells.get(r * cols + c);
+				if (set != null) { set.remove(entry); }
+			}
+		}
+		// The envelope is not disposed (i.e. returned to the pool), as concurrent queries may still be reading it
+	}
+
+	/**
+	 * Collects the agents whose key intersects the envelope, without locking.
+	 */
+	@Override
+	protected void collect(final IScope scope, final IEnvelope r, final Collection<IAgent> result) {
+		final int c0 = col(r.getMinX()), c1 = col(r.getMaxX()), r0 = row(r.getMinY()), r1 = row(r.getMaxY());
+		for (int row = r0; row <= r1; row++) {
+			for (int c = c0; c <= c1; c++) {
+				final Set<Entry> set = cells.get(row * cols + c);
+				if (set == null) { continue; }
+				for (final Entry e : set) { if (e.intersects(r)) { result.add(e.agent); } }
+			}
+		}
+	}
+
+	@Override
+	public void dispose() {
+		entries.clear();
+		for (int i = 0; i < cells.length(); i++) { cells.set(i, null); }
+	}
+
+}
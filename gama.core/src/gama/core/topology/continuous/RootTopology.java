@@ -36,9 +36,29 @@ public class RootTopology extends ContinuousTopology {
 	 *            the has parallelism
 	 */
 	public RootTopology(final IScope scope, final IShape geom, final boolean isTorus, final boolean hasParallelism) {
+		this(scope, geom, isTorus, hasParallelism, CompoundSpatialIndex.QUADTREE);
+	}
+
+	/**
+	 * Instantiates a new root topology using the given kind of spatial index.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param geom
+	 *            the geom
+	 * @param isTorus
+	 *            the is torus
+	 * @param hasParallelism
+	 *            the has parallelism
+	 * @param indexKind
+	 *            the kind of spatial index (see {@link CompoundSpatialIndex#QUADTREE} and
+	 *            {@link CompoundSpatialIndex#HASH})
+	 */
+	public RootTopology(final IScope scope, final IShape geom, final boolean isTorus, final boolean hasParallelism,
+			final String indexKind) {
 		super(scope, geom);
 		final IEnvelope bounds = geom.getEnvelope();
-		spatialIndex = new CompoundSpatialIndex(bounds, hasParallelism);
+		spatialIndex = new CompoundSpatialIndex(bounds, hasParallelism, indexKind);
 		this.isTorus = isTorus;
 		root = this;
 	}
@@ -10,10 +10,14 @@
  ********************************************************************************************************/
 package gama.core.topology.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.jgrapht.Graphs;
 import org.locationtech.jts.geom.Coordinate;
@@ -178,6 +182,13 @@ public class GamaSpatialGraph extends GamaGraph<IShape, IShape> implements ISpat
 	@Override
 	protected void buildByVertices(final IScope scope, final IContainer<?, IShape> list, final boolean uniqueEdge) {
 		Iterable<? extends IShape> shapes = list.iterable(scope);
+		final double reach = vertexRelation.getReach(scope);
+		if (reach >= 0) {
+			final List<IShape> vertices = new ArrayList<>();
+			for (final IShape p : shapes) { vertices.add(p); }
+			buildByVertices(scope, vertices.toArray(new IShape[vertices.size()]), uniqueEdge, reach);
+			return;
+		}
 		for (final IShape p : shapes) { super.addVertex(p); }
 		for (final IShape o1 : shapes) { // Try to create automatic edges
 			if (o1.getAgent() != null) { o1.getAgent().setAttribute("attached_graph", this); }
@@ -192,6 +203,47 @@ public class GamaSpatialGraph extends GamaGraph<IShape, IShape> implements ISpat
 		}
 	}
 
+	/**
+	 * Builds the graph from vertices when the relation cannot hold beyond a distance: the related vertices are looked
+	 * for in a spatial index (see {@link RelatedVertices}), and the edges are created in the same order as when all the
+	 * pairs are compared.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param vertices
+	 *            the vertices
+	 * @param uniqueEdge
+	 *            whether only one edge is created between two vertices
+	 * @param reach
+	 *            the distance beyond which two vertices cannot be related
+	 */
+	private void buildByVertices(final IScope scope, final IShape[] vertices, final boolean uniqueEdge,
+			final double reach) {
+		for (final IShape p : vertices) { super.addVertex(p); }
+		final int[][] related = RelatedVertices.of(vertices, 0, false, reach,
+				(o1, o2) -> !vertexRelation.equivalent(scope, o1, o2) && vertexRelation.related(scope, o1, o2));
+		for (int i = 0; i < vertices.length; i++) {
+			final IShape o1 = vertices[i];
+			if (o1 == null) { continue; }
+			if (o1.getAgent() != null) { o1.getAgent().setAttribute("attached_graph", this); }
+			for (final int j : related[i]) {
+				final IShape o2 = vertices[j];
+				if (!uniqueEdge || !containsEdge(o2, o1)) { addEdge(o1, o2); }
+			}
+		}
+	}
+
+	/**
+	 * Returns the distance beyond which two vertices cannot be related.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the distance, or a negative value if the vertices must all be compared
+	 */
+	private double getReach(final IScope scope) {
+		return vertexRelation == null ? -1 : vertexRelation.getReach(scope);
+	}
+
 	@Override
 	public _SpatialEdge getEdge(final Object e) {
 		return (_SpatialEdge) edgeMap.get(e);
@@ -246,6 +298,11 @@ public class GamaSpatialGraph extends GamaGraph<IShape, IShape> implements ISpat
 		final Set<? extends IShape> vSet = vertexSet();
 		boolean related, already;
 		DEBUG.OUT("Refreshing Edges " + edgeSpecies);
+		final double reach = getReach(graphScope);
+		if (reach >= 0) {
+			refreshEdges(vSet.toArray(new IShape[vSet.size()]), reach);
+			return;
+		}
 		for (final IShape s1 : vSet) {
 			for (final IShape s2 : vSet) {
 				if (graphScope.interrupted()) return;
@@ -258,6 +315,42 @@ public class GamaSpatialGraph extends GamaGraph<IShape, IShape> implements ISpat
 		}
 	}
 
+	/**
+	 * Refreshes the edges when the relation cannot hold beyond a distance. The pairs examined for each vertex are the
+	 * ones it can be related to (found in a spatial index) and the ones it is already linked to, in the order of the
+	 * vertices.
+	 *
+	 * @param vertices
+	 *            the vertices
+	 * @param reach
+	 *            the distance beyond which two vertices cannot be related
+	 */
+	private void refreshEdges(final IShape[] vertices, final double reach) {
+		final Map<IShape, Integer> positions = new HashMap<>();
+		for (int i = 0; i < vertices.length; i++) { positions.put(vertices[i], i); }
+		final int[][] related = RelatedVertices.of(vertices, 0, false, reach, (s1,
+				s2) -> !vertexRelation.equivalent(graphScope, s1, s2) && vertexRelation.related(graphScope, s1, s2));
+		for (int i = 0; i < vertices.length; i++) {
+			if (graphScope.interrupted()) return;
+			final IShape s1 = vertices[i];
+			final TreeSet<Integer> pairs = new TreeSet<>();
+			for (final int j : related[i]) { pairs.add(j); }
+			for (final Object e : edgesOf(s1)) {
+				final Integer j = positions.get(Graphs.getOppositeVertex(this, e, s1));
+				if (j != null) { pairs.add(j); }
+			}
+			for (final int j : pairs) {
+				final IShape s2 = vertices[j];
+				if (vertexRelation.equivalent(graphScope, s1, s2)) { continue; }
+				final boolean already = containsEdge(s1, s2);
+				final boolean isRelated = Arrays.binarySearch(related[i], j) >= 0;
+				if (isRelated && !already) {
+					addEdge(s1, s2);
+				} else if (already && !isRelated) { removeEdge(s1, s2); }
+			}
+		}
+	}
+
 	@Override
 	protected Object generateEdgeObject(final Object v1, final Object v2) {
 		if (v1 instanceof IShape && v2 instanceof IShape)
@@ -277,7 +370,22 @@ public class GamaSpatialGraph extends GamaGraph<IShape, IShape> implements ISpat
 
 	@Override
 	public void notifyAgentsAdded(final IScope scope, final IPopulation pop, final Collection agents) {
-		for (final Object o : agents) { addVertex((IAgent) o); }
+		final double reach = getReach(graphScope);
+		if (reach < 0) {
+			for (final Object o : agents) { addVertex((IAgent) o); }
+			return;
+		}
+		// Same edges as when the agents are added one by one: each is compared with itself and the vertices before it
+		int added = 0;
+		for (final Object o : agents) { if (super.addVertex((IAgent) o)) { added++; } }
+		if (added == 0) return;
+		final Set<IShape> vSet = vertexSet();
+		final IShape[] vertices = vSet.toArray(new IShape[vSet.size()]);
+		final int[][] related = RelatedVertices.of(vertices, vertices.length - added, true, reach,
+				(v, o) -> !vertexRelation.equivalent(graphScope, v, o) && vertexRelation.related(graphScope, v, o));
+		for (int i = vertices.length - added; i < vertices.length; i++) {
+			for (final int j : related[i]) { addEdge(vertices[i], vertices[j]); }
+		}
 	}
 
 	@Override
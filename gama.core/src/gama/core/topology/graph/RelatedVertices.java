@@ -0,0 +1,137 @@
+/*******************************************************************************************************
+ *
+ * RelatedVertices.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.topology.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiPredicate;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import gama.api.runtime.GamaExecutorService;
+import gama.api.types.geometry.IShape;
+
+/**
+ * The search of the pairs of related vertices of a spatial graph with the help of a spatial index, which replaces the
+ * comparison of each vertex with all the others when the relation cannot hold beyond a given distance (see
+ * {@link gama.api.types.graph.VertexRelationship#getReach}). The vertices are bulk-loaded in an STR-tree, the
+ * candidates of each vertex are the ones whose envelope is within this distance of its own, and the relation is only
+ * tested on them. The vertices are processed in parallel, by chunks, in the
+ * {@link GamaExecutorService#AGENT_PARALLEL_EXECUTOR} when they are numerous.
+ *
+ * <p>
+ * The vertices related to each vertex are returned in the order of the vertices, so that the edges can be created
+ * exactly in the order in which the comparison of all the pairs would have created them.
+ * </p>
+ *
+ * @author drogoul
+ */
+public final class RelatedVertices {
+
+	/** The number of vertices to process from which they are processed in parallel. */
+	static final int PARALLEL_THRESHOLD = 1000;
+
+	/** The empty result. */
+	private static final int[] NONE = {};
+
+	/**
+	 * Instantiates a new related vertices.
+	 */
+	private RelatedVertices() {}
+
+	/**
+	 * Finds the vertices related to each vertex.
+	 *
+	 * @param vertices
+	 *            the vertices (null ones are ignored)
+	 * @param first
+	 *            the index of the first vertex whose related vertices are looked for (the previous ones can only be
+	 *            related to)
+	 * @param earlierOnly
+	 *            whether a vertex can only be related to itself and the vertices that precede it
+	 * @param reach
+	 *            the distance beyond which two vertices cannot be related
+	 * @param related
+	 *            the exact test, applied to the candidates (e.g. a vertex and itself)
+	 * @return for each vertex from first, the indexes, in increasing order, of the vertices related to it (the array is
+	 *         indexed by the index of the vertex; the entries before first are null)
+	 */
+	public static int[][] of(final IShape[] vertices, final int first, final boolean earlierOnly, final double reach,
+			final BiPredicate<IShape, IShape> related) {
+		final int size = vertices.length;
+		final Envelope[] envelopes = new Envelope[size];
+		final STRtree tree = new STRtree();
+		for (int i = 0; i < size; i++) {
+			if (vertices[i] == null) { continue; }
+			envelopes[i] = vertices[i].getInnerGeometry().getEnvelopeInternal();
+			tree.insert(envelopes[i], i);
+		}
+		tree.build();
+		final int[][] result = new int[size][];
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		final int count = size - first;
+		if (pool == null || count < PARALLEL_THRESHOLD) {
+			for (int i = first; i < size; i++) {
+				result[i] = relatedTo(i, vertices, envelopes, tree, earlierOnly, reach, related);
+			}
+			return result;
+		}
+		final int chunks = Math.min(count, pool.getParallelism() * 4);
+		final RuntimeException[] errors = new RuntimeException[chunks];
+		final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int chunk = c;
+			final int from = first + (int) ((long) count * c / chunks);
+			final int to = first + (int) ((long) count * (c + 1) / chunks);
+			tasks.add(pool.submit(ForkJoinTask.adapt(() -> {
+				try {
+					for (int i = from; i < to; i++) {
+						result[i] = relatedTo(i, vertices, envelopes, tree, earlierOnly, reach, related);
+					}
+				} catch (final RuntimeException e) {
+					errors[chunk] = e;
+				}
+			})));
+		}
+		for (final ForkJoinTask<?> task : tasks) { task.join(); }
+		// Reports the error of the first chunk in error, the closest to the one of a sequential search
+		for (final RuntimeException e : errors) { if (e != null) throw e; }
+		return result;
+	}
+
+	/**
+	 * Finds the vertices related to one vertex.
+	 */
+	private static int[] relatedTo(final int i, final IShape[] vertices, final Envelope[] envelopes, final STRtree tree,
+			final boolean earlierOnly, final double reach, final BiPredicate<IShape, IShape> related) {
+		if (envelopes[i] == null) return NONE;
+		final Envelope area = new Envelope(envelopes[i]);
+		area.expandBy(reach);
+		final List<?> candidates = tree.query(area);
+		final int[] indexes = new int[candidates.size()];
+		int n = 0;
+		for (final Object candidate : candidates) {
+			final int j = (Integer) candidate;
+			if (!earlierOnly || j <= i) { indexes[n++] = j; }
+		}
+		Arrays.sort(indexes, 0, n);
+		int kept = 0;
+		for (int k = 0; k < n; k++) {
+			if (related.test(vertices[i], vertices[indexes[k]])) { indexes[kept++] = indexes[k]; }
+		}
+		return kept == 0 ? NONE : Arrays.copyOf(indexes, kept);
+	}
+
+}
@@ -27,6 +27,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.geotools.api.referencing.ReferenceIdentifier;
 import org.locationtech.jts.geom.Coordinate;
@@ -55,6 +60,7 @@ import gama.api.types.geometry.IPoint;
 import gama.api.types.geometry.IShape;
 import gama.api.types.graph.GamaPathFactory;
 import gama.api.types.graph.IPath;
+import gama.api.types.list.GamaList;
 import gama.api.types.list.GamaListFactory;
 import gama.api.types.list.IList;
 import gama.api.types.map.GamaMapFactory;
@@ -98,7 +104,78 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 	public boolean useNeighborsCache = false;
 
 	/** The optimizer. */
-	public String optimizer = "A*"; // possible value: ["BF","Dijkstra", "A*"]
+	public String optimizer = "A*"; // possible value: ["BF","Dijkstra", "A*", "JPS", "flow_field", "HPA*"]
+
+	/** The hierarchical pathfinder, created on demand when the optimizer is "HPA*". */
+	private volatile HierarchicalPathfinder hierarchy;
+
+	/** The arrays of the open cells of the searches, reused by each thread. */
+	private final ThreadLocal<boolean[]> openCells = new ThreadLocal<>();
+
+	/** The maximum number of sets of open cells shared by the searches (see {@link #sharedOpenCells}). */
+	static final int MAX_OPEN_SETS = 4;
+
+	/** The sets of open cells shared by the searches, the most recently used first (guarded by the array itself). */
+	private final OpenSet[] openSets = new OpenSet[MAX_OPEN_SETS];
+
+	/** A set of open cells, with the cells it has last been computed from and their version (-1 if unknown). */
+	private static final class OpenSet {
+
+		/** The open cells. */
+		final boolean[] open;
+
+		/** The cells that can be crossed (all of them if null). */
+		Collection<IAgent> cells;
+
+		/** The version of these cells. */
+		long version;
+
+		/**
+		 * Instantiates a new open set.
+		 *
+		 * @param open
+		 *            the open cells
+		 */
+		OpenSet(final boolean[] open) {
+			this.open = open;
+		}
+	}
+
+	/** The maximum number of flow fields kept by the grid (the least recently used are discarded first). */
+	static final int MAX_FLOW_FIELDS = 16;
+
+	/**
+	 * The flow fields computed, or being computed, indexed by the index of the cell they lead to. Each one is computed
+	 * by the first agent that needs it, while the agents that go to the same cell wait for it and the ones that go to
+	 * other cells proceed.
+	 */
+	private final Map<Integer, FlowFieldTask> flowFields = new ConcurrentHashMap<>();
+
+	/** The clock used to find the least recently used flow fields. */
+	private final AtomicLong flowFieldUses = new AtomicLong();
+
+	/**
+	 * The shortest paths towards a cell from all the cells that can reach it: the distance of each cell to the goal and
+	 * the index of the next cell on the way (-1 if the goal cannot be reached), computed for a set of open cells.
+	 */
+	private record FlowField(boolean[] open, int[] next, double[] distance) {}
+
+	/** The computation of a flow field, and the last time it has been used. */
+	private static final class FlowFieldTask extends FutureTask<FlowField> {
+
+		/** The last use. */
+		volatile long used;
+
+		/**
+		 * Instantiates a new flow field task.
+		 */
+		FlowFieldTask(final Callable<FlowField> computation) {
+			super(computation);
+		}
+	}
+
+	/** A cell waiting to be expanded in the computation of a flow field. */
+	private record Step(int cell, double distance) {}
 
 	/** The bounds. */
 	final IEnvelope bounds;
@@ -160,6 +237,11 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 	public void dispose() {
 		if (neighborhood != null) { neighborhood.clear(); }
 		neighborhood = null;
+		hierarchy = null;
+		flowFields.clear();
+		synchronized (openSets) {
+			Arrays.fill(openSets, null);
+		}
 		gridValue = null;
 		_clear();
 		matrix = null;
@@ -1139,8 +1221,7 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 		final IAgent startAg = matrix[currentplace].getAgent();
 		final IAgent endAg = matrix[targetplace].getAgent();
 		if (startAg == endAg) return simplePath(scope, source, target, topo, startAg, endAg);
-		final boolean[] open = new boolean[this.getAgents().size()];
-		initOpen(open, on);
+		final boolean[] open = openCells(on);
 
 		final List<IAgent> frontier = new ArrayList<>();
 		final Map<IAgent, IAgent> cameFrom = new Hashtable<>();
@@ -1191,8 +1272,7 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 		if (startAg == endAg) return simplePath(scope, source, target, topo, startAg, endAg);
 		final Double maxDim = onWithWeight != null ? Math.max(this.cellHeight, this.cellWidth) : 0.0;
 
-		final boolean[] open = new boolean[this.getAgents().size()];
-		initOpen(open, onWithWeight != null ? onWithWeight.keySet() : on);
+		final boolean[] open = openCells(onWithWeight != null ? onWithWeight.keySet() : on);
 
 		final Map<IAgent, IAgent> cameFrom = new HashMap<>();
 
@@ -1272,8 +1352,7 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 		if (startAg == endAg) return simplePath(scope, source, target, topo, startAg, endAg);
 		final Double maxDim = weighted ? Math.max(this.cellHeight, this.cellWidth) : 0.0;
 
-		final boolean[] open = new boolean[this.getAgents().size()];
-		initOpen(open, weighted ? onWithWeight.keySet() : on);
+		final boolean[] open = openCells(weighted ? onWithWeight.keySet() : on);
 		final PriorityQueue frontier = newPriorityQueue();
 		final Map<IAgent, IAgent> cameFrom = new HashMap<>();
 		final Map<IAgent, Double> costSoFar = new HashMap<>();
@@ -1342,8 +1421,7 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 		final IAgent endAg = matrix[targetplace].getAgent();
 
 		if (startAg == endAg) return simplePath(scope, source, target, topo, startAg, endAg);
-		final boolean[] open = new boolean[this.getAgents().size()];
-		initOpen(open, on);
+		final boolean[] open = openCells(on);
 		final PriorityQueue frontier = newPriorityQueue();
 		final Map<IAgent, IAgent> cameFrom = new HashMap<>();
 		final Map<IAgent, Double> costSoFar = new HashMap<>();
@@ -1382,6 +1460,212 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 		return null;
 	}
 
+	/**
+	 * Compute shortest path between flow field. The path is read in the flow field of the cell of the target, which is
+	 * computed once for all the agents that go to this cell (see {@link #flowFieldTo}), instead of being searched for
+	 * each of them.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param source
+	 *            the source
+	 * @param target
+	 *            the target
+	 * @param topo
+	 *            the topo
+	 * @param on
+	 *            the on
+	 * @return the gama spatial path
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	public IPath computeShortestPathBetweenFlowField(final IScope scope, final IShape source, final IShape target,
+			final ITopology topo, final IList<IAgent> on) throws GamaRuntimeException {
+		final int currentplace = getPlaceIndexAt(source.getLocation());
+		final int targetplace = getPlaceIndexAt(target.getLocation());
+		final IAgent startAg = matrix[currentplace].getAgent();
+		final IAgent endAg = matrix[targetplace].getAgent();
+		if (startAg == endAg) return simplePath(scope, source, target, topo, startAg, endAg);
+		final FlowField field = flowFieldTo(scope, endAg, on);
+		final int goal = endAg.getIndex();
+		int current = field.next[startAg.getIndex()];
+		if (current < 0) return null;
+		final IList<IShape> nodesPt = GamaListFactory.create(Types.GEOMETRY);
+		// The weight is computed as in finalPath: one more than the number of moves
+		double weight = 2;
+		nodesPt.add(source.getLocation());
+		while (current != goal) {
+			nodesPt.add(matrix[current].getLocation());
+			weight += 1;
+			current = field.next[current];
+		}
+		nodesPt.add(target.getLocation());
+		return GamaPathFactory.createFrom(scope, topo, nodesPt, weight);
+	}
+
+	/**
+	 * Returns the flow field towards a cell. It is computed if it is not already known or if the cells that can be
+	 * crossed have changed since it was computed, and then kept for the next agents going to the same cell.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param goal
+	 *            the cell to reach
+	 * @param on
+	 *            the cells that can be crossed (all of them if null)
+	 * @return the flow field
+	 */
+	FlowField flowFieldTo(final IScope scope, final IAgent goal, final Collection<IAgent> on) {
+		final boolean[] open = sharedOpenCells(on);
+		final Integer key = goal.getIndex();
+		while (true) {
+			FlowFieldTask task = flowFields.get(key);
+			if (task == null || task.isDone() && fieldOf(scope, key, task).open != open) {
+				final FlowFieldTask fresh = new FlowFieldTask(() -> computeFlowField(scope, goal, open));
+				if (task == null ? flowFields.putIfAbsent(key, fresh) != null : !flowFields.replace(key, task, fresh)) {
+					continue;
+				}
+				task = fresh;
+				task.run();
+				evictFlowFields();
+			}
+			task.used = flowFieldUses.incrementAndGet();
+			// Waits for the field if another agent is computing it, and computes it again if its open cells differ
+			final FlowField field = fieldOf(scope, key, task);
+			if (field.open == open) return field;
+		}
+	}
+
+	/**
+	 * Returns the flow field computed by a task, waiting for it if needed. A task that has failed is forgotten.
+	 */
+	private FlowField fieldOf(final IScope scope, final Integer key, final FlowFieldTask task) {
+		try {
+			return task.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw GamaRuntimeException.create(e, scope);
+		} catch (final ExecutionException e) {
+			flowFields.remove(key, task);
+			if (e.getCause() instanceof GamaRuntimeException g) throw g;
+			throw GamaRuntimeException.create(e.getCause(), scope);
+		}
+	}
+
+	/**
+	 * Discards the least recently used flow fields beyond {@link #MAX_FLOW_FIELDS}.
+	 */
+	private void evictFlowFields() {
+		while (flowFields.size() > MAX_FLOW_FIELDS) {
+			Map.Entry<Integer, FlowFieldTask> oldest = null;
+			for (final Map.Entry<Integer, FlowFieldTask> entry : flowFields.entrySet()) {
+				if (oldest == null || entry.getValue().used < oldest.getValue().used) { oldest = entry; }
+			}
+			if (oldest == null) return;
+			flowFields.remove(oldest.getKey(), oldest.getValue());
+		}
+	}
+
+	/**
+	 * Computes a flow field with a Dijkstra search from the goal. As the neighborhoods of the grids are symmetric, the
+	 * cells are expanded from the goal through their neighbors. The closed cells get a distance and a next cell, so
+	 * that the agents that are on them can leave them, but are not expanded.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param goal
+	 *            the cell to reach
+	 * @param open
+	 *            the cells that can be crossed
+	 * @return the flow field
+	 */
+	private FlowField computeFlowField(final IScope scope, final IAgent goal, final boolean[] open) {
+		final int size = open.length;
+		final int[] next = new int[size];
+		final double[] distance = new double[size];
+		Arrays.fill(next, -1);
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		final int start = goal.getIndex();
+		next[start] = start;
+		distance[start] = 0d;
+		if (!open[start]) return new FlowField(open, next, distance);
+		final PriorityQueue<Step> frontier = new PriorityQueue<>(Comparator.comparingDouble(Step::distance));
+		frontier.add(new Step(start, 0d));
+		while (!frontier.isEmpty()) {
+			final Step step = frontier.remove();
+			final int current = step.cell();
+			if (step.distance() > distance[current]) { continue; }
+			final IPoint location = matrix[current].getLocation();
+			for (final IAgent neighbor : getNeighborhood().getNeighborsIn(scope, current, 1)) {
+				final int index = neighbor.getIndex();
+				final double d = distance[current] + location.euclidianDistanceTo(neighbor.getLocation());
+				if (d < distance[index]) {
+					distance[index] = d;
+					next[index] = current;
+					if (open[index]) { frontier.add(new Step(index, d)); }
+				}
+			}
+		}
+		return new FlowField(open, next, distance);
+	}
+
+	/**
+	 * Compute shortest path between with the hierarchical pathfinder (HPA*), which searches the path in an abstraction
+	 * of the grid computed once for each set of open cells (see {@link HierarchicalPathfinder}) and refines it locally.
+	 * Hexagonal and toroidal grids are searched with A*.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param source
+	 *            the source
+	 * @param target
+	 *            the target
+	 * @param topo
+	 *            the topo
+	 * @param on
+	 *            the on
+	 * @return the gama spatial path
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	public IPath computeShortestPathBetweenHPA(final IScope scope, final IShape source, final IShape target,
+			final ITopology topo, final IList<IAgent> on) throws GamaRuntimeException {
+		if (isHexagon || isTorus) return computeShortestPathBetweenAStar(scope, source, target, topo, on, null);
+		final int currentplace = getPlaceIndexAt(source.getLocation());
+		final int targetplace = getPlaceIndexAt(target.getLocation());
+		final IAgent startAg = matrix[currentplace].getAgent();
+		final IAgent endAg = matrix[targetplace].getAgent();
+		if (startAg == endAg) return simplePath(scope, source, target, topo, startAg, endAg);
+		final int[] cells = getHierarchy().path(sharedOpenCells(on), startAg.getIndex(), endAg.getIndex());
+		if (cells == null) return null;
+		final IList<IShape> nodesPt = GamaListFactory.create(Types.GEOMETRY);
+		nodesPt.add(source.getLocation());
+		for (int i = 1; i < cells.length - 1; i++) { nodesPt.add(matrix[cells[i]].getLocation()); }
+		nodesPt.add(target.getLocation());
+		// The weight is computed as in finalPath: one more than the number of moves
+		return GamaPathFactory.createFrom(scope, topo, nodesPt, cells.length);
+	}
+
+	/**
+	 * Returns the hierarchical pathfinder of the grid, creating it if needed.
+	 *
+	 * @return the hierarchical pathfinder
+	 */
+	private HierarchicalPathfinder getHierarchy() {
+		HierarchicalPathfinder result = hierarchy;
+		if (result == null) {
+			synchronized (this) {
+				result = hierarchy;
+				if (result == null) {
+					result = new HierarchicalPathfinder(numCols, numRows, getNeighborhood().isVN(), cellWidth,
+							cellHeight);
+					hierarchy = result;
+				}
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Walkable.
 	 *
@@ -1548,6 +1832,8 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 	@Override
 	public IPath computeShortestPathBetween(final IScope scope, final IShape source, final IShape target,
 			final ITopology topo, final IList<IAgent> on) throws GamaRuntimeException {
+		if ("flow_field".equals(optimizer)) return computeShortestPathBetweenFlowField(scope, source, target, topo, on);
+		if ("HPA*".equals(optimizer)) return computeShortestPathBetweenHPA(scope, source, target, topo, on);
 		if ("Dijkstra".equals(optimizer))
 			return computeShortestPathBetweenDijkstra(scope, source, target, topo, on, null);
 		if (!neighborhood.isVN() && "JPS".equals(optimizer))
@@ -1661,6 +1947,67 @@ public class GamaSpatialMatrix extends GamaMatrix<IShape> implements IGrid {
 		return GamaPathFactory.createFrom(scope, topo, nodesPt, weight);
 	}
 
+	/**
+	 * Returns the array of the open cells of the calling thread, initialized with the cells that can be crossed. It is
+	 * reused by the next searches of the thread, and must not be retained.
+	 *
+	 * @param on
+	 *            the cells that can be crossed (all of them if null)
+	 * @return the open cells, indexed by their index
+	 */
+	private boolean[] openCells(final Collection<IAgent> on) {
+		boolean[] open = openCells.get();
+		if (open == null || open.length != matrix.length) {
+			open = new boolean[matrix.length];
+			openCells.set(open);
+		}
+		initOpen(open, on);
+		return open;
+	}
+
+	/**
+	 * Returns an array of the open cells shared by the searches that keep it, which must not be modified. The same
+	 * array is returned for the same cells, so that these searches recognize them by its identity. If the cells are
+	 * given by the same list as the last time and this list has not changed since (see {@link GamaList#getVersion()}),
+	 * the array is not even filled again.
+	 *
+	 * @param on
+	 *            the cells that can be crossed (all of them if null)
+	 * @return the open cells, indexed by their index
+	 */
+	private boolean[] sharedOpenCells(final Collection<IAgent> on) {
+		final long version = on == null ? 0 : on instanceof GamaList<?> list ? list.getVersion() : -1;
+		synchronized (openSets) {
+			for (int i = 0; version >= 0 && i < openSets.length && openSets[i] != null; i++) {
+				if (openSets[i].cells == on && openSets[i].version == version) return useOpenSet(i);
+			}
+		}
+		final boolean[] open = openCells(on);
+		synchronized (openSets) {
+			int i = 0;
+			while (i < openSets.length && openSets[i] != null && !Arrays.equals(openSets[i].open, open)) { i++; }
+			if (i == openSets.length || openSets[i] == null) {
+				i = Math.min(i, openSets.length - 1);
+				openSets[i] = new OpenSet(open.clone());
+			}
+			openSets[i].cells = on;
+			openSets[i].version = version;
+			return useOpenSet(i);
+		}
+	}
+
+	/**
+	 * Moves a set of open cells to the front of the ones shared (the caller holds their lock).
+	 *
+	 * @return its open cells
+	 */
+	private boolean[] useOpenSet(final int i) {
+		final OpenSet set = openSets[i];
+		System.arraycopy(openSets, 0, openSets, 1, i);
+		openSets[0] = set;
+		return set.open;
+	}
+
 	/**
 	 * Inits the open.
 	 *
@@ -0,0 +1,884 @@
+/*******************************************************************************************************
+ *
+ * HierarchicalPathfinder.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.topology.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+import gama.api.runtime.GamaExecutorService;
+
+/**
+ * The hierarchical search of shortest paths (HPA*) used by the square grids whose optimizer is "HPA*". The grid is
+ * divided in square clusters of {@link #CLUSTER_SIZE} cells. The openings between two adjacent clusters (the runs of
+ * cells that are open on both sides of their common border) get one entrance, or two if they are long, and the
+ * distances between the entrances of each cluster are computed by searches restricted to the cluster. With 8 moves,
+ * the diagonal moves that cross a border (or a corner of a cluster) where no opening does also get entrances, so that
+ * a path is found whenever one exists. A path is then searched in the graph of the entrances, to which the start and
+ * the goal are linked, and refined by searches restricted to the clusters it goes through.
+ *
+ * <p>
+ * An abstraction is computed for each set of open cells, recognized by the identity of its array, and the last
+ * {@link #MAX_ABSTRACTIONS} ones are kept. A new one is derived from the most recent one: only the clusters whose cells
+ * differ, and their neighbors, are analysed again. The paths found are close to the shortest ones, but not always the
+ * shortest.
+ * </p>
+ *
+ * <p>
+ * With 4 moves, the difference is bounded: a shortest path can be made to cross each border at the closest entrance
+ * of the opening it goes through, by following the opening (whose cells are open on both sides) to it and back, i.e.
+ * at most {@code CLUSTER_SIZE - 1} moves. The path found is then longer than the shortest one by at most
+ * {@code CLUSTER_SIZE - 1} moves each time the shortest one goes from a cluster to another. With 8 moves, the diagonal
+ * moves across a border that no entrance serves can make the detour longer.
+ * </p>
+ *
+ * @author drogoul
+ */
+final class HierarchicalPathfinder {
+
+	/** The number of cells of the side of the clusters. */
+	static final int CLUSTER_SIZE = 16;
+
+	/** The length from which the openings get two entrances (at their ends) instead of one (in their middle). */
+	static final int LONG_OPENING = 6;
+
+	/** The number of clusters to analyse from which they are analysed in parallel. */
+	static final int PARALLEL_THRESHOLD = 64;
+
+	/** The number of abstractions (i.e. of sets of open cells) kept. */
+	static final int MAX_ABSTRACTIONS = 4;
+
+	/** The empty openings or entrances. */
+	private static final int[] NONE = {};
+
+	/** The moves to the neighbors of a cell: the four orthogonal ones, then the four diagonal ones. */
+	private static final int[] DX = { 1, -1, 0, 0, 1, 1, -1, -1 }, DY = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+	/** The scratch arrays of the searches, reused by each thread. */
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	/** The dimensions of the grid, in cells, and in clusters. */
+	final int columns, rows, clusterColumns, clusterRows;
+
+	/** The number of moves allowed (4 for von Neumann neighborhoods, 8 for Moore ones). */
+	final int moves;
+
+	/** The dimensions of the cells. */
+	final double cellWidth, cellHeight;
+
+	/** The costs of the moves. */
+	private final double[] costs;
+
+	/** The abstractions computed for the last sets of open cells, the most recently computed first. */
+	private volatile Abstraction[] abstractions = new Abstraction[0];
+
+	/**
+	 * Instantiates a new hierarchical pathfinder.
+	 *
+	 * @param columns
+	 *            the number of columns of the grid
+	 * @param rows
+	 *            the number of rows of the grid
+	 * @param vonNeumann
+	 *            whether the cells only have 4 neighbors
+	 * @param cellWidth
+	 *            the width of the cells
+	 * @param cellHeight
+	 *            the height of the cells
+	 */
+	HierarchicalPathfinder(final int columns, final int rows, final boolean vonNeumann, final double cellWidth,
+			final double cellHeight) {
+		this.columns = columns;
+		this.rows = rows;
+		this.clusterColumns = (columns + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.clusterRows = (rows + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.moves = vonNeumann ? 4 : 8;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		costs = new double[DX.length];
+		for (int m = 0; m < costs.length; m++) { costs[m] = Math.hypot(DX[m] * cellWidth, DY[m] * cellHeight); }
+	}
+
+	/**
+	 * Searches a path between two cells.
+	 *
+	 * @param open
+	 *            the cells that can be crossed, indexed by their index in the grid. The array is retained to recognize
+	 *            the set of open cells and must not be modified afterwards
+	 * @param start
+	 *            the index of the cell where the path starts (which does not need to be open)
+	 * @param goal
+	 *            the index of the cell to reach
+	 * @return the indexes of the cells of the path, from the start to the goal, or null if none has been found
+	 */
+	int[] path(final boolean[] open, final int start, final int goal) {
+		final Abstraction a = abstractionFor(open);
+		if (!a.open[goal]) return null;
+		final Scratch s = SCRATCH.get();
+		final int cs = cluster(start), cg = cluster(goal);
+		final int[] fromStart = a.entrances[cs], toGoal = a.entrances[cg];
+		final double[] startCosts = new double[fromStart.length], goalCosts = new double[toGoal.length];
+		localSearch(a.open, start, -1, s);
+		for (int i = 0; i < fromStart.length; i++) { startCosts[i] = s.localCost(fromStart[i]); }
+		final double direct = cs == cg ? s.localCost(goal) : Double.POSITIVE_INFINITY;
+		// The neighborhoods being symmetric, the costs from the entrances to the goal are the ones from the goal
+		localSearch(a.open, goal, -1, s);
+		for (int i = 0; i < toGoal.length; i++) { goalCosts[i] = s.localCost(toGoal[i]); }
+		// A closed start is only left by its first move, which can also lead to the clusters around it: the costs of
+		// the entrances of these clusters (and of the goal, last) are computed from the cells it leads to
+		final int[] crossings = a.open[start] ? NONE : crossingsFrom(a.open, start);
+		final double[][] crossingCosts = new double[crossings.length][];
+		for (int k = 0; k < crossings.length; k++) {
+			final int cell = crossings[k], c = cluster(cell), m = a.entrances[c].length;
+			final double move = distance(start, cell);
+			crossingCosts[k] = new double[m + 1];
+			localSearch(a.open, cell, -1, s);
+			for (int i = 0; i < m; i++) { crossingCosts[k][i] = move + s.localCost(a.entrances[c][i]); }
+			crossingCosts[k][m] = c == cg ? move + s.localCost(goal) : Double.POSITIVE_INFINITY;
+		}
+
+		// Search in the graph of the entrances, where the start and the goal are the last two nodes
+		final int startNode = a.nodes, goalNode = a.nodes + 1;
+		s.prepare(a.nodes + 2);
+		final Heap heap = s.heap;
+		heap.clear();
+		s.reach(startNode, 0d, -1);
+		heap.push(startNode, distance(start, goal));
+		while (!heap.isEmpty()) {
+			final int u = heap.pop();
+			if (s.isClosed(u)) { continue; }
+			s.close(u);
+			if (u == goalNode) break;
+			final double cost = s.cost[u];
+			if (u == startNode) {
+				if (direct < Double.POSITIVE_INFINITY) { relax(s, goalNode, cost + direct, u, goal, goal); }
+				for (int i = 0; i < fromStart.length; i++) {
+					if (startCosts[i] < Double.POSITIVE_INFINITY) {
+						relax(s, a.offsets[cs] + i, cost + startCosts[i], u, fromStart[i], goal);
+					}
+				}
+				for (int k = 0; k < crossings.length; k++) {
+					final int c = cluster(crossings[k]), m = a.entrances[c].length;
+					for (int i = 0; i < m; i++) {
+						if (crossingCosts[k][i] < Double.POSITIVE_INFINITY) {
+							relax(s, a.offsets[c] + i, cost + crossingCosts[k][i], u, a.entrances[c][i], goal);
+						}
+					}
+					if (crossingCosts[k][m] < Double.POSITIVE_INFINITY) {
+						relax(s, goalNode, cost + crossingCosts[k][m], u, goal, goal);
+					}
+				}
+				continue;
+			}
+			final int c = a.nodeCluster[u], i = u - a.offsets[c], k = a.entrances[c].length;
+			final double[] distances = a.distances[c];
+			for (int j = 0; j < k; j++) {
+				if (j != i && distances[i * k + j] < Double.POSITIVE_INFINITY) {
+					relax(s, a.offsets[c] + j, cost + distances[i * k + j], u, a.entrances[c][j], goal);
+				}
+			}
+			if (c == cg && goalCosts[i] < Double.POSITIVE_INFINITY) {
+				relax(s, goalNode, cost + goalCosts[i], u, goal, goal);
+			}
+			for (int l = a.linkStart[u]; l < a.linkStart[u + 1]; l++) {
+				final int v = a.links[l];
+				relax(s, v, cost + distance(a.nodeCell[u], a.nodeCell[v]), u, a.nodeCell[v], goal);
+			}
+		}
+		if (!s.isClosed(goalNode)) return null;
+
+		// Refinement of the path of entrances in a path of cells
+		final List<Integer> nodes = new ArrayList<>();
+		for (int u = goalNode; u != -1; u = s.parent[u]) { nodes.add(u); }
+		final int[] cells = new int[nodes.size()];
+		for (int n = 0; n < cells.length; n++) {
+			final int u = nodes.get(cells.length - 1 - n);
+			cells[n] = u == startNode ? start : u == goalNode ? goal : a.nodeCell[u];
+		}
+		int[] result = new int[64];
+		int size = 0;
+		result[size++] = start;
+		for (int n = 1; n < cells.length; n++) {
+			int from = cells[n - 1];
+			final int to = cells[n];
+			if (from == to) { continue; }
+			if (n == 1 && cluster(from) != cluster(to)) {
+				// The first move of a closed start, to the cell around it from which the cost is the lowest
+				final int u = nodes.get(cells.length - 1 - n), c = cluster(to);
+				final int i = u == goalNode ? a.entrances[c].length : u - a.offsets[c];
+				int best = -1;
+				for (int k = 0; k < crossings.length; k++) {
+					if (cluster(crossings[k]) == c && (best < 0 || crossingCosts[k][i] < crossingCosts[best][i])) {
+						best = k;
+					}
+				}
+				from = crossings[best];
+				if (size == result.length) { result = Arrays.copyOf(result, size * 2); }
+				result[size++] = from;
+				if (from == to) { continue; }
+			} else if (cluster(from) != cluster(to)) {
+				if (size == result.length) { result = Arrays.copyOf(result, size * 2); }
+				result[size++] = to;
+				continue;
+			}
+			localSearch(a.open, from, to, s);
+			final int length = s.localLength(to, from);
+			if (size + length > result.length) { result = Arrays.copyOf(result, Math.max(size * 2, size + length)); }
+			for (int cell = to, p = size + length - 1; cell != from; cell = s.localParent(cell), p--) {
+				result[p] = cell;
+			}
+			size += length;
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * The open cells around a cell that belong to other clusters.
+	 */
+	private int[] crossingsFrom(final boolean[] open, final int cell) {
+		final int x = cell % columns, y = cell / columns, c = cluster(cell);
+		final int[] cells = new int[moves];
+		int n = 0;
+		for (int m = 0; m < moves; m++) {
+			final int nx = x + DX[m], ny = y + DY[m];
+			if (nx < 0 || nx >= columns || ny < 0 || ny >= rows) { continue; }
+			final int next = ny * columns + nx;
+			if (open[next] && cluster(next) != c) { cells[n++] = next; }
+		}
+		return n == 0 ? NONE : Arrays.copyOf(cells, n);
+	}
+
+	/**
+	 * Updates the cost of a node of the graph of the entrances if it is lower.
+	 */
+	private void relax(final Scratch s, final int v, final double cost, final int parent, final int cell,
+			final int goal) {
+		if (s.isClosed(v) || s.isReached(v) && s.cost[v] <= cost) return;
+		s.reach(v, cost, parent);
+		s.heap.push(v, cost + distance(cell, goal));
+	}
+
+	/**
+	 * The straight distance between the centers of two cells.
+	 */
+	private double distance(final int a, final int b) {
+		return Math.hypot((a % columns - b % columns) * cellWidth, (a / columns - b / columns) * cellHeight);
+	}
+
+	/**
+	 * The index of the cluster of a cell.
+	 */
+	int cluster(final int cell) {
+		return cell / columns / CLUSTER_SIZE * clusterColumns + cell % columns / CLUSTER_SIZE;
+	}
+
+	/**
+	 * Returns the abstraction of the grid for a set of open cells, computing it from the most recent one if it is not
+	 * known.
+	 */
+	private Abstraction abstractionFor(final boolean[] open) {
+		for (final Abstraction a : abstractions) { if (a.open == open) return a; }
+		synchronized (this) {
+			final Abstraction[] known = abstractions;
+			for (final Abstraction a : known) { if (a.open == open) return a; }
+			final Abstraction a = refresh(known.length == 0 ? null : known[0], open);
+			final Abstraction[] kept = new Abstraction[Math.min(known.length + 1, MAX_ABSTRACTIONS)];
+			kept[0] = a;
+			System.arraycopy(known, 0, kept, 1, kept.length - 1);
+			abstractions = kept;
+			return a;
+		}
+	}
+
+	/**
+	 * Computes a new abstraction of the grid from a previous one (or from scratch if it is null), analysing again only
+	 * the clusters whose cells have changed and their neighbors.
+	 */
+	private Abstraction refresh(final Abstraction old, final boolean[] open) {
+		final int count = clusterColumns * clusterRows;
+		final boolean[] changed = new boolean[count];
+		if (old == null) {
+			Arrays.fill(changed, true);
+		} else {
+			for (int cell = 0; cell < open.length; cell++) {
+				if (open[cell] != old.open[cell]) { changed[cluster(cell)] = true; }
+			}
+		}
+		// The borders of a cluster are the ones shared with the cluster at its right and with the one below it, and its
+		// corners (with 8 moves) the ones shared with the clusters below it on the right and on the left
+		final boolean[] borders = new boolean[count], affected = new boolean[count];
+		for (int c = 0; c < count; c++) {
+			if (!changed[c]) { continue; }
+			final int cx = c % clusterColumns, cy = c / clusterColumns;
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dx = -1; dx <= 1; dx++) {
+					if (cx + dx < 0 || cx + dx >= clusterColumns || cy + dy < 0 || cy + dy >= clusterRows) { continue; }
+					if (dx != 0 && dy != 0 && moves == 4) { continue; }
+					affected[c + dy * clusterColumns + dx] = true;
+				}
+			}
+			borders[c] = true;
+			if (cx > 0) { borders[c - 1] = true; }
+			if (cy > 0) { borders[c - clusterColumns] = true; }
+		}
+		final int[][] right = old == null ? new int[count][] : old.right.clone();
+		final int[][] below = old == null ? new int[count][] : old.below.clone();
+		final int[][] corners = old == null ? new int[count][] : old.corners.clone();
+		final int[][] entrances = old == null ? new int[count][] : old.entrances.clone();
+		final double[][] distances = old == null ? new double[count][] : old.distances.clone();
+		forEachCluster(affected, c -> {
+			if (borders[c]) {
+				right[c] = openings(open, c, true);
+				below[c] = openings(open, c, false);
+			}
+			corners[c] = corners(open, c);
+		});
+		forEachCluster(affected, c -> {
+			entrances[c] = entrancesOf(c, right, below, corners);
+			distances[c] = distancesBetween(open, entrances[c]);
+		});
+		return new Abstraction(open, right, below, corners, entrances, distances);
+	}
+
+	/**
+	 * Applies an action to the clusters marked, in parallel, by chunks, in the
+	 * {@link GamaExecutorService#AGENT_PARALLEL_EXECUTOR} when they are numerous.
+	 */
+	private void forEachCluster(final boolean[] marked, final IntConsumer action) {
+		int count = 0;
+		final int[] clusters = new int[marked.length];
+		for (int c = 0; c < marked.length; c++) { if (marked[c]) { clusters[count++] = c; } }
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		if (pool == null || count < PARALLEL_THRESHOLD) {
+			for (int i = 0; i < count; i++) { action.accept(clusters[i]); }
+			return;
+		}
+		final int chunks = Math.min(count, pool.getParallelism() * 4);
+		final RuntimeException[] errors = new RuntimeException[chunks];
+		final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+		for (int k = 0; k < chunks; k++) {
+			final int chunk = k;
+			final int from = (int) ((long) count * k / chunks), to = (int) ((long) count * (k + 1) / chunks);
+			tasks.add(pool.submit(ForkJoinTask.adapt(() -> {
+				try {
+					for (int i = from; i < to; i++) { action.accept(clusters[i]); }
+				} catch (final RuntimeException e) {
+					errors[chunk] = e;
+				}
+			})));
+		}
+		for (final ForkJoinTask<?> task : tasks) { task.join(); }
+		for (final RuntimeException e : errors) { if (e != null) throw e; }
+	}
+
+	/**
+	 * Finds the openings of the border of a cluster with the cluster at its right or with the one below it. With 8
+	 * moves, the diagonal moves across the border are added where no opening is next to them (otherwise, the cells
+	 * they join are reached through the opening).
+	 *
+	 * @return the pairs of cells chosen as entrances (the one in the cluster, then the one in its neighbor)
+	 */
+	private int[] openings(final boolean[] open, final int c, final boolean toRight) {
+		final int cx = c % clusterColumns, cy = c / clusterColumns;
+		if (toRight ? cx + 1 >= clusterColumns : cy + 1 >= clusterRows) return NONE;
+		final int length = toRight ? Math.min(CLUSTER_SIZE, rows - cy * CLUSTER_SIZE)
+				: Math.min(CLUSTER_SIZE, columns - cx * CLUSTER_SIZE);
+		final int first = toRight ? cy * CLUSTER_SIZE * columns + (cx + 1) * CLUSTER_SIZE - 1
+				: ((cy + 1) * CLUSTER_SIZE - 1) * columns + cx * CLUSTER_SIZE;
+		final int along = toRight ? columns : 1, across = toRight ? 1 : columns;
+		final int[] pairs = new int[8 * length];
+		int n = 0, begin = -1;
+		for (int i = 0; i <= length; i++) {
+			final int cell = first + i * along;
+			final boolean crossing = i < length && open[cell] && open[cell + across];
+			if (crossing && begin < 0) {
+				begin = i;
+			} else if (!crossing && begin >= 0) {
+				final int end = i - 1;
+				if (end - begin + 1 < LONG_OPENING) {
+					final int middle = first + (begin + end) / 2 * along;
+					pairs[n++] = middle;
+					pairs[n++] = middle + across;
+				} else {
+					pairs[n++] = first + begin * along;
+					pairs[n++] = first + begin * along + across;
+					pairs[n++] = first + end * along;
+					pairs[n++] = first + end * along + across;
+				}
+				begin = -1;
+			}
+		}
+		if (moves == 8) {
+			for (int i = 0; i < length; i++) {
+				final int cell = first + i * along;
+				if (!open[cell] || open[cell + across]) { continue; }
+				for (int d = -1; d <= 1; d += 2) {
+					final int j = i + d, outside = cell + across + d * along;
+					if (j >= 0 && j < length && open[outside] && !open[cell + d * along]) {
+						pairs[n++] = cell;
+						pairs[n++] = outside;
+					}
+				}
+			}
+		}
+		return n == 0 ? NONE : Arrays.copyOf(pairs, n);
+	}
+
+	/**
+	 * Finds, with 8 moves, the diagonal moves from the lower corners of a cluster to the clusters below it on the right
+	 * and on the left.
+	 *
+	 * @return the pairs of cells chosen as entrances (the one in the cluster, then the one in its neighbor)
+	 */
+	private int[] corners(final boolean[] open, final int c) {
+		final int cx = c % clusterColumns, cy = c / clusterColumns;
+		if (moves == 4 || cy + 1 >= clusterRows) return NONE;
+		final int[] pairs = new int[4];
+		int n = 0;
+		final int y = (cy + 1) * CLUSTER_SIZE - 1;
+		if (cx + 1 < clusterColumns) {
+			final int cell = y * columns + (cx + 1) * CLUSTER_SIZE - 1;
+			if (open[cell] && open[cell + columns + 1]) {
+				pairs[n++] = cell;
+				pairs[n++] = cell + columns + 1;
+			}
+		}
+		if (cx > 0) {
+			final int cell = y * columns + cx * CLUSTER_SIZE;
+			if (open[cell] && open[cell + columns - 1]) {
+				pairs[n++] = cell;
+				pairs[n++] = cell + columns - 1;
+			}
+		}
+		return n == 0 ? NONE : Arrays.copyOf(pairs, n);
+	}
+
+	/**
+	 * Collects the entrances of a cluster from the openings of its four borders and from its corners, sorted and
+	 * without duplicates.
+	 */
+	private int[] entrancesOf(final int c, final int[][] right, final int[][] below, final int[][] corners) {
+		final int cx = c % clusterColumns, cy = c / clusterColumns;
+		final int[] left = cx > 0 ? right[c - 1] : NONE, above = cy > 0 ? below[c - clusterColumns] : NONE;
+		final int[] aboveLeft = cx > 0 && cy > 0 ? corners[c - clusterColumns - 1] : NONE;
+		final int[] aboveRight = cx + 1 < clusterColumns && cy > 0 ? corners[c - clusterColumns + 1] : NONE;
+		final int[] cells = new int[(right[c].length + below[c].length + corners[c].length + left.length
+				+ above.length + aboveLeft.length + aboveRight.length) / 2];
+		int n = 0;
+		for (int i = 0; i < right[c].length; i += 2) { cells[n++] = right[c][i]; }
+		for (int i = 0; i < below[c].length; i += 2) { cells[n++] = below[c][i]; }
+		for (int i = 0; i < corners[c].length; i += 2) { cells[n++] = corners[c][i]; }
+		for (int i = 1; i < left.length; i += 2) { cells[n++] = left[i]; }
+		for (int i = 1; i < above.length; i += 2) { cells[n++] = above[i]; }
+		// The corners of the clusters above lead either to this cluster or to the one next to it
+		for (int i = 1; i < aboveLeft.length; i += 2) { if (cluster(aboveLeft[i]) == c) { cells[n++] = aboveLeft[i]; } }
+		for (int i = 1; i < aboveRight.length; i += 2) {
+			if (cluster(aboveRight[i]) == c) { cells[n++] = aboveRight[i]; }
+		}
+		if (n == 0) return NONE;
+		Arrays.sort(cells, 0, n);
+		int kept = 1;
+		for (int i = 1; i < n; i++) { if (cells[i] != cells[kept - 1]) { cells[kept++] = cells[i]; } }
+		return Arrays.copyOf(cells, kept);
+	}
+
+	/**
+	 * Computes the costs of the paths between the entrances of a cluster that do not leave it.
+	 *
+	 * @return the costs, row by row (infinite if there is no such path)
+	 */
+	private double[] distancesBetween(final boolean[] open, final int[] entrances) {
+		final int k = entrances.length;
+		final double[] result = new double[k * k];
+		final Scratch s = SCRATCH.get();
+		// The costs being symmetric, the search from an entrance stops when the next entrances have been reached
+		for (int i = 0; i < k; i++) {
+			result[i * k + i] = 0d;
+			if (i == k - 1) { break; }
+			localSearch(open, entrances[i], Arrays.copyOfRange(entrances, i + 1, k), s);
+			for (int j = i + 1; j < k; j++) { result[i * k + j] = result[j * k + i] = s.localCost(entrances[j]); }
+		}
+		return result;
+	}
+
+	/**
+	 * Searches the paths from a cell that do not leave its cluster (Dijkstra), stopping when a target is reached.
+	 *
+	 * @param from
+	 *            the cell where the paths start (which does not need to be open)
+	 * @param to
+	 *            the cell that stops the search, or -1 to reach all the cells of the cluster
+	 */
+	private void localSearch(final boolean[] open, final int from, final int to, final Scratch s) {
+		localSearch(open, from, new int[] { to }, s);
+	}
+
+	/**
+	 * Searches the paths from a cell that do not leave its cluster (Dijkstra), stopping when all the targets are
+	 * reached.
+	 *
+	 * @param from
+	 *            the cell where the paths start (which does not need to be open)
+	 * @param targets
+	 *            the cells that stop the search once reached (-1 to reach all the cells of the cluster)
+	 */
+	private void localSearch(final boolean[] open, final int from, final int[] targets, final Scratch s) {
+		final int c = cluster(from);
+		final int x0 = c % clusterColumns * CLUSTER_SIZE, y0 = c / clusterColumns * CLUSTER_SIZE;
+		final int width = Math.min(CLUSTER_SIZE, columns - x0), height = Math.min(CLUSTER_SIZE, rows - y0);
+		final Heap heap = s.heap;
+		heap.clear();
+		s.startLocal(columns);
+		int remaining = 0;
+		for (final int target : targets) { if (target >= 0 && s.markTarget(target)) { remaining++; } }
+		if (remaining == 0) { remaining = -1; }
+		// The cells are designated by their index in the cluster, as in the arrays of the scratch
+		final int mark = s.localSearch;
+		final int[] localMark = s.localMark, localParent = s.localParent, targetMark = s.targetMark;
+		final double[] localCost = s.localCost;
+		final int first = Scratch.local(from, columns);
+		localMark[first] = mark;
+		localCost[first] = 0d;
+		localParent[first] = -1;
+		heap.push(first, 0d);
+		while (!heap.isEmpty()) {
+			final double cost = heap.topKey();
+			final int l = heap.pop();
+			if (cost > localCost[l]) { continue; }
+			if (targetMark[l] == mark && --remaining == 0) return;
+			final int lx = l % CLUSTER_SIZE, ly = l / CLUSTER_SIZE;
+			final int cell = (y0 + ly) * columns + x0 + lx;
+			for (int m = 0; m < moves; m++) {
+				final int nx = lx + DX[m], ny = ly + DY[m];
+				if (nx < 0 || nx >= width || ny < 0 || ny >= height) { continue; }
+				final int next = ny * CLUSTER_SIZE + nx;
+				final double nextCost = cost + costs[m];
+				if ((localMark[next] != mark || nextCost < localCost[next]) && open[cell + DY[m] * columns + DX[m]]) {
+					localMark[next] = mark;
+					localCost[next] = nextCost;
+					localParent[next] = cell;
+					heap.push(next, nextCost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The graph of the entrances computed for a set of open cells. It is not modified once built, so that it can be
+	 * searched by several threads while a new one is computed.
+	 */
+	private final class Abstraction {
+
+		/** The open cells. */
+		final boolean[] open;
+
+		/** The openings of each cluster with the one at its right and the one below it (see {@link #openings}). */
+		final int[][] right, below;
+
+		/** The diagonal moves from the lower corners of each cluster (see {@link #corners}). */
+		final int[][] corners;
+
+		/** The cells of the entrances of each cluster, sorted. */
+		final int[][] entrances;
+
+		/** The costs between the entrances of each cluster (see {@link #distancesBetween}). */
+		final double[][] distances;
+
+		/** The number of nodes, i.e. of entrances, whose indexes follow the order of the clusters. */
+		final int nodes;
+
+		/** The index of the first node of each cluster. */
+		final int[] offsets;
+
+		/** The cell and the cluster of each node. */
+		final int[] nodeCell, nodeCluster;
+
+		/** The nodes linked to each node across a border, from linkStart[node] to linkStart[node + 1]. */
+		final int[] linkStart, links;
+
+		/**
+		 * Builds the graph of the entrances.
+		 */
+		Abstraction(final boolean[] open, final int[][] right, final int[][] below, final int[][] corners,
+				final int[][] entrances, final double[][] distances) {
+			this.open = open;
+			this.right = right;
+			this.below = below;
+			this.corners = corners;
+			this.entrances = entrances;
+			this.distances = distances;
+			offsets = new int[entrances.length];
+			int n = 0;
+			for (int c = 0; c < entrances.length; c++) {
+				offsets[c] = n;
+				n += entrances[c].length;
+			}
+			nodes = n;
+			nodeCell = new int[n];
+			nodeCluster = new int[n];
+			for (int c = 0; c < entrances.length; c++) {
+				for (int i = 0; i < entrances[c].length; i++) {
+					nodeCell[offsets[c] + i] = entrances[c][i];
+					nodeCluster[offsets[c] + i] = c;
+				}
+			}
+			// The links are counted, then stored in both directions
+			linkStart = new int[n + 1];
+			for (int c = 0; c < entrances.length; c++) {
+				for (final int[] pairs : new int[][] { right[c], below[c], corners[c] }) {
+					for (int p = 0; p < pairs.length; p += 2) {
+						linkStart[node(pairs[p]) + 1]++;
+						linkStart[node(pairs[p + 1]) + 1]++;
+					}
+				}
+			}
+			for (int u = 0; u < n; u++) { linkStart[u + 1] += linkStart[u]; }
+			links = new int[linkStart[n]];
+			final int[] filled = new int[n];
+			for (int c = 0; c < entrances.length; c++) {
+				for (final int[] pairs : new int[][] { right[c], below[c], corners[c] }) {
+					for (int p = 0; p < pairs.length; p += 2) {
+						final int u = node(pairs[p]), v = node(pairs[p + 1]);
+						links[linkStart[u] + filled[u]++] = v;
+						links[linkStart[v] + filled[v]++] = u;
+					}
+				}
+			}
+		}
+
+		/**
+		 * The node of an entrance.
+		 */
+		int node(final int cell) {
+			final int c = cluster(cell);
+			return offsets[c] + Arrays.binarySearch(entrances[c], cell);
+		}
+	}
+
+	/**
+	 * The arrays used by the searches of a thread, whose entries are marked with the number of the search that has
+	 * written them, so that they do not need to be cleared between two searches.
+	 */
+	private static final class Scratch {
+
+		/** The costs of the cells of the cluster in the local search. */
+		final double[] localCost = new double[CLUSTER_SIZE * CLUSTER_SIZE];
+
+		/** The parents of the cells, and the numbers of the local search that has written them. */
+		final int[] localParent = new int[CLUSTER_SIZE * CLUSTER_SIZE],
+				localMark = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+
+		/** The numbers of the local searches of which the cells are targets. */
+		final int[] targetMark = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+
+		/** The number of the current local search. */
+		int localSearch;
+
+		/** The number of columns of the grid of the current local search. */
+		int columns;
+
+		/** The costs and parents of the nodes of the graph of the entrances. */
+		double[] cost = {};
+
+		/** The parents, and the numbers of the search that has reached or closed the nodes. */
+		int[] parent = {}, reached = {}, closed = {};
+
+		/** The number of the current search in the graph of the entrances. */
+		int search;
+
+		/** The heap of the searches. */
+		final Heap heap = new Heap();
+
+		/**
+		 * The index of a cell in its cluster.
+		 */
+		private static int local(final int cell, final int columns) {
+			return cell / columns % CLUSTER_SIZE * CLUSTER_SIZE + cell % columns % CLUSTER_SIZE;
+		}
+
+		/**
+		 * Starts a new local search in a grid.
+		 */
+		void startLocal(final int gridColumns) {
+			columns = gridColumns;
+			if (++localSearch == Integer.MAX_VALUE) {
+				Arrays.fill(localMark, 0);
+				Arrays.fill(targetMark, 0);
+				localSearch = 1;
+			}
+		}
+
+		/**
+		 * Marks a cell as a target of the current local search.
+		 *
+		 * @return false if it was already one
+		 */
+		boolean markTarget(final int cell) {
+			final int l = local(cell, columns);
+			if (targetMark[l] == localSearch) return false;
+			targetMark[l] = localSearch;
+			return true;
+		}
+
+		/**
+		 * The cost of a cell in the current local search (infinite if it has not been reached).
+		 */
+		double localCost(final int cell) {
+			final int l = local(cell, columns);
+			return localMark[l] == localSearch ? localCost[l] : Double.POSITIVE_INFINITY;
+		}
+
+		/**
+		 * The parent of a cell in the current local search.
+		 */
+		int localParent(final int cell) {
+			return localParent[local(cell, columns)];
+		}
+
+		/**
+		 * The number of moves from a cell to another one in the current local search.
+		 */
+		int localLength(final int to, final int from) {
+			int length = 0;
+			for (int cell = to; cell != from; cell = localParent(cell)) { length++; }
+			return length;
+		}
+
+		/**
+		 * Starts a new search in a graph of entrances of a given number of nodes.
+		 */
+		void prepare(final int size) {
+			if (cost.length < size) {
+				final int capacity = Math.max(size, cost.length * 2);
+				cost = new double[capacity];
+				parent = new int[capacity];
+				reached = new int[capacity];
+				closed = new int[capacity];
+				search = 0;
+			}
+			if (++search == Integer.MAX_VALUE) {
+				Arrays.fill(reached, 0);
+				Arrays.fill(closed, 0);
+				search = 1;
+			}
+		}
+
+		/**
+		 * Records the cost and the parent of a node.
+		 */
+		void reach(final int node, final double c, final int p) {
+			reached[node] = search;
+			cost[node] = c;
+			parent[node] = p;
+		}
+
+		/**
+		 * Whether a node has been reached by the current search.
+		 */
+		boolean isReached(final int node) {
+			return reached[node] == search;
+		}
+
+		/**
+		 * Marks a node as closed.
+		 */
+		void close(final int node) {
+			closed[node] = search;
+		}
+
+		/**
+		 * Whether a node has been closed by the current search.
+		 */
+		boolean isClosed(final int node) {
+			return closed[node] == search;
+		}
+	}
+
+	/**
+	 * A binary heap of integers ordered by keys, where an integer can be present several times.
+	 */
+	private static final class Heap {
+
+		/** The items and their keys. */
+		int[] items = new int[64];
+
+		/** The keys. */
+		double[] keys = new double[64];
+
+		/** The size. */
+		int size;
+
+		/**
+		 * Empties the heap.
+		 */
+		void clear() {
+			size = 0;
+		}
+
+		/**
+		 * Whether the heap is empty.
+		 */
+		boolean isEmpty() { return size == 0; }
+
+		/**
+		 * The smallest key.
+		 */
+		double topKey() {
+			return keys[0];
+		}
+
+		/**
+		 * Adds an item.
+		 */
+		void push(final int item, final double key) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				final int up = (i - 1) / 2;
+				if (keys[up] <= key) { break; }
+				items[i] = items[up];
+				keys[i] = keys[up];
+				i = up;
+			}
+			items[i] = item;
+			keys[i] = key;
+		}
+
+		/**
+		 * Removes the item with the smallest key.
+		 */
+		int pop() {
+			final int result = items[0];
+			final int item = items[--size];
+			final double key = keys[size];
+			int i = 0;
+			while (true) {
+				int down = 2 * i + 1;
+				if (down >= size) { break; }
+				if (down + 1 < size && keys[down + 1] < keys[down]) { down++; }
+				if (keys[down] >= key) { break; }
+				items[i] = items[down];
+				keys[i] = keys[down];
+				i = down;
+			}
+			items[i] = item;
+			keys[i] = key;
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,736 @@
+/*******************************************************************************************************
+ *
+ * CompactGraph.java, in gama.core, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gama.core.util.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import gama.api.gaml.types.IType;
+import gama.api.runtime.GamaExecutorService;
+import gama.api.types.geometry.IPoint;
+import gama.api.types.geometry.IShape;
+import gama.api.types.graph.IGraph;
+import gama.api.types.list.GamaListFactory;
+import gama.api.types.list.IList;
+
+/**
+ * A frozen and compact copy of the topology and of the weights of a graph, in compressed sparse row (CSR) form. The
+ * vertices and the edges are numbered, and the arcs leaving the vertex {@code i} are stored in primitive arrays
+ * (targets, edges and weights) between {@code offsets[i]} and {@code offsets[i + 1]}; an undirected edge gives two
+ * arcs. Shortest paths are searched on these arrays by a Dijkstra algorithm using an indexed binary heap, which is much
+ * faster, and allocates much less, than searching the graph itself, whose adjacency is made of maps and objects.
+ *
+ * <p>
+ * The copy is not updated when the graph is modified: it is built by {@link PathComputer#getCompactGraph()} and
+ * discarded when the version of the graph changes. Searches can be run concurrently, each thread using its own
+ * working arrays. The centralities, which need a search from every vertex, distribute the sources among the threads of
+ * the agent pool.
+ * </p>
+ *
+ * @author drogoul
+ * @param <V>
+ *            the type of the vertices
+ * @param <E>
+ *            the type of the edges
+ */
+public class CompactGraph<V, E> {
+
+	/** The vertices, by index. */
+	final Object[] vertices;
+
+	/** The edges, by index. */
+	final Object[] edges;
+
+	/** The index of each vertex. */
+	final Map<Object, Integer> indices;
+
+	/** The first arc of each vertex (the last element is the number of arcs). */
+	final int[] offsets;
+
+	/** The target vertex of each arc. */
+	final int[] targets;
+
+	/** The edge of each arc. */
+	final int[] arcEdges;
+
+	/** The weight of each arc. */
+	final double[] weights;
+
+	/** Whether the graph is directed. */
+	final boolean directed;
+
+	/** The number of sources from which the searches are distributed among the threads of the agent pool. */
+	static final int PARALLEL_SOURCES = 64;
+
+	/**
+	 * The working arrays of the searches of each thread. They are shared by all the compact graphs (a search does not
+	 * refer to the graph it explores, so that the threads of the pool do not retain it) and grown on demand.
+	 */
+	private static final ThreadLocal<Search> SEARCHES = ThreadLocal.withInitial(Search::new);
+
+	/** The grid of the locations of the vertices, built at the first search of the vertex closest to a point. */
+	private volatile VertexGrid vertexGrid;
+
+	/**
+	 * Builds the compact copy of a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	public CompactGraph(final IGraph<V, E> graph) {
+		directed = graph.isDirected();
+		vertices = graph.vertexSet().toArray();
+		edges = graph.edgeSet().toArray();
+		final int n = vertices.length, m = edges.length;
+		indices = new HashMap<>(n * 4 / 3 + 1);
+		for (int i = 0; i < n; i++) { indices.put(vertices[i], i); }
+		final int[] sources = new int[m], ends = new int[m];
+		offsets = new int[n + 1];
+		for (int k = 0; k < m; k++) {
+			final int s = indexOf(graph.getEdgeSource(edges[k])), t = indexOf(graph.getEdgeTarget(edges[k]));
+			sources[k] = s;
+			ends[k] = t;
+			if (s < 0 || t < 0) { continue; }
+			offsets[s + 1]++;
+			if (!directed && s != t) { offsets[t + 1]++; }
+		}
+		for (int i = 1; i <= n; i++) { offsets[i] += offsets[i - 1]; }
+		targets = new int[offsets[n]];
+		arcEdges = new int[offsets[n]];
+		weights = new double[offsets[n]];
+		final int[] cursor = Arrays.copyOf(offsets, n);
+		for (int k = 0; k < m; k++) {
+			final int s = sources[k], t = ends[k];
+			if (s < 0 || t < 0) { continue; }
+			final double w = graph.getEdgeWeight(edges[k]);
+			addArc(cursor[s]++, t, k, w);
+			if (!directed && s != t) { addArc(cursor[t]++, s, k, w); }
+		}
+	}
+
+	/**
+	 * The search of the current thread, large enough for this graph.
+	 */
+	private Search search() {
+		final Search search = SEARCHES.get();
+		search.ensureCapacity(vertices.length);
+		return search;
+	}
+
+	/**
+	 * Stores an arc.
+	 */
+	private void addArc(final int arc, final int target, final int edge, final double weight) {
+		targets[arc] = target;
+		arcEdges[arc] = edge;
+		weights[arc] = weight;
+	}
+
+	/**
+	 * The index of a vertex.
+	 *
+	 * @param vertex
+	 *            the vertex
+	 * @return its index, or -1 if it is not in the graph
+	 */
+	public int indexOf(final Object vertex) {
+		final Integer i = indices.get(vertex);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * The number of vertices.
+	 *
+	 * @return the number of vertices
+	 */
+	public int vertexCount() {
+		return vertices.length;
+	}
+
+	/**
+	 * The number of edges.
+	 *
+	 * @return the number of edges
+	 */
+	public int edgeCount() {
+		return edges.length;
+	}
+
+	/**
+	 * Whether the graph is directed.
+	 *
+	 * @return true if it is directed
+	 */
+	public boolean isDirected() {
+		return directed;
+	}
+
+	/**
+	 * The vertex at an index.
+	 *
+	 * @param i
+	 *            the index
+	 * @return the vertex
+	 */
+	@SuppressWarnings ("unchecked")
+	public V vertex(final int i) {
+		return (V) vertices[i];
+	}
+
+	/**
+	 * The vertex closest to a location, in a graph whose vertices are shapes. The vertices are bucketed in a grid at
+	 * the first call, and the cells are then examined in rings around the location until no closer vertex can be found.
+	 *
+	 * @param location
+	 *            the location
+	 * @return the index of the closest vertex (the lowest one in case of ties), or -1 if there is none
+	 */
+	public int nearestVertex(final IPoint location) {
+		if (vertices.length == 0) return -1;
+		VertexGrid grid = vertexGrid;
+		if (grid == null) {
+			synchronized (this) {
+				grid = vertexGrid;
+				if (grid == null) {
+					grid = new VertexGrid(vertices);
+					vertexGrid = grid;
+				}
+			}
+		}
+		return grid.nearest(location);
+	}
+
+	/**
+	 * The edge at an index.
+	 *
+	 * @param k
+	 *            the index
+	 * @return the edge
+	 */
+	@SuppressWarnings ("unchecked")
+	public E edge(final int k) {
+		return (E) edges[k];
+	}
+
+	/**
+	 * Returns the edges of a shortest path between two vertices.
+	 *
+	 * @param edgeType
+	 *            the type of the edges
+	 * @param source
+	 *            the source
+	 * @param target
+	 *            the target
+	 * @return the list of edges, empty if there is no path
+	 */
+	public IList<E> shortestPath(final IType<?> edgeType, final V source, final V target) {
+		final int s = indexOf(source), t = indexOf(target);
+		if (s < 0 || t < 0 || s == t) return GamaListFactory.create(edgeType);
+		final Search search = search();
+		search.run(this, s, t);
+		return pathTo(search, edgeType, s, t);
+	}
+
+	/**
+	 * Returns the edges of the shortest paths from a source to several targets, computed with one search.
+	 *
+	 * @param edgeType
+	 *            the type of the edges
+	 * @param source
+	 *            the index of the source
+	 * @param targets
+	 *            the indices of the targets (negative for vertices that are not in the graph)
+	 * @return for each target, the list of edges, or null if there is no path
+	 */
+	public IList<E>[] shortestPathsFrom(final IType<?> edgeType, final int source, final int[] targets) {
+		@SuppressWarnings ("unchecked") final IList<E>[] result = new IList[targets.length];
+		if (source < 0) return result;
+		final Search search = search();
+		search.run(this, source, -1);
+		for (int j = 0; j < targets.length; j++) {
+			final int t = targets[j];
+			if (t >= 0 && search.reached(t)) { result[j] = pathTo(search, edgeType, source, t); }
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the lengths of the shortest paths from a source to several targets, with one search.
+	 *
+	 * @param source
+	 *            the index of the source
+	 * @param targets
+	 *            the indices of the targets (negative for vertices that are not in the graph)
+	 * @param result
+	 *            the array in which the distances are written, from the offset, in the order of the targets
+	 *            ({@link Double#POSITIVE_INFINITY} if there is no path)
+	 * @param offset
+	 *            the index of the first distance in the result
+	 */
+	public void distancesFrom(final int source, final int[] targets, final double[] result, final int offset) {
+		if (source < 0) {
+			Arrays.fill(result, offset, offset + targets.length, Double.POSITIVE_INFINITY);
+			return;
+		}
+		final Search search = search();
+		search.run(this, source, -1);
+		for (int j = 0; j < targets.length; j++) {
+			final int t = targets[j];
+			result[offset + j] = t >= 0 && search.reached(t) ? search.dist[t] : Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Reads the path to the target in the tree built by the last search.
+	 */
+	@SuppressWarnings ("unchecked")
+	private IList<E> pathTo(final Search search, final IType<?> edgeType, final int s, final int t) {
+		final IList<E> result = GamaListFactory.create(edgeType);
+		if (!search.reached(t)) return result;
+		for (int v = t; v != s; v = search.parent[v]) { result.add((E) edges[arcEdges[search.parentArc[v]]]); }
+		Collections.reverse(result);
+		return result;
+	}
+
+	/**
+	 * Counts, for each vertex and each edge, the number of shortest paths passing through it, considering one shortest
+	 * path for each pair of distinct vertices connected by a path (ordered pairs if the graph is directed, unordered
+	 * ones otherwise). The source and the target of a path are not counted. One Dijkstra search is done per source; the
+	 * paths to all the targets are then read from the tree of shortest paths.
+	 *
+	 * @param vertexCounts
+	 *            the counts of the vertices, by index (can be null)
+	 * @param edgeCounts
+	 *            the counts of the edges, by index (can be null)
+	 */
+	public void countShortestPaths(final int[] vertexCounts, final int[] edgeCounts) {
+		countShortestPaths(allSources(), false, vertexCounts, edgeCounts);
+	}
+
+	/**
+	 * Adds, for each vertex and each edge, the number of shortest paths from some sources passing through it (see
+	 * {@link #countShortestPaths(int[], int[])}). The dependencies of the vertices on each source are accumulated in
+	 * the reverse order of the search, as in the algorithm of Brandes.
+	 *
+	 * @param sources
+	 *            the indices of the sources
+	 * @param allTargets
+	 *            whether, in an undirected graph, the paths to all the other vertices are counted (otherwise only the
+	 *            ones to the vertices of greater index, so that each pair is counted once when all the vertices are
+	 *            sources)
+	 * @param vertexCounts
+	 *            the counts of the vertices, by index (can be null)
+	 * @param edgeCounts
+	 *            the counts of the edges, by index (can be null)
+	 */
+	public void countShortestPaths(final int[] sources, final boolean allTargets, final int[] vertexCounts,
+			final int[] edgeCounts) {
+		final int n = vertices.length;
+		forEachSource(sources,
+				() -> new Counts(vertexCounts == null ? null : new int[n],
+						edgeCounts == null ? null : new int[edges.length], new int[n]),
+				(search, s, counts) -> {
+					final int[] descendants = counts.descendants;
+					// Vertices settled in increasing distance: the descendants are accumulated in reverse order
+					for (int k = search.settled - 1; k > 0; k--) {
+						final int v = search.order[k];
+						final boolean isTarget = allTargets || directed || v > s;
+						final int below = descendants[v] + (isTarget ? 1 : 0);
+						descendants[v] = 0;
+						if (below == 0) { continue; }
+						if (counts.vertices != null) { counts.vertices[v] += below - (isTarget ? 1 : 0); }
+						if (counts.edges != null) { counts.edges[arcEdges[search.parentArc[v]]] += below; }
+						descendants[search.parent[v]] += below;
+					}
+					descendants[s] = 0;
+				}, counts -> {
+					if (vertexCounts != null) { for (int i = 0; i < n; i++) { vertexCounts[i] += counts.vertices[i]; } }
+					if (edgeCounts != null) {
+						for (int k = 0; k < edgeCounts.length; k++) { edgeCounts[k] += counts.edges[k]; }
+					}
+				});
+	}
+
+	/**
+	 * Computes the closeness and the harmonic centrality of some vertices, from the lengths of the shortest paths that
+	 * leave them. The closeness of a vertex is the number of vertices it reaches divided by the sum of their distances
+	 * (which, in a connected graph, is the inverse of their mean distance); its harmonic centrality is the sum of the
+	 * inverses of these distances divided by the number of other vertices. Both are 0 for a vertex that reaches no
+	 * other vertex.
+	 *
+	 * @param sources
+	 *            the indices of the vertices
+	 * @param closeness
+	 *            the closeness of each vertex, by index (can be null)
+	 * @param harmonic
+	 *            the harmonic centrality of each vertex, by index (can be null)
+	 */
+	public void centralitiesOf(final int[] sources, final double[] closeness, final double[] harmonic) {
+		final int others = vertices.length - 1;
+		forEachSource(sources, () -> null, (search, s, none) -> {
+			double sum = 0d, inverses = 0d;
+			for (int k = 1; k < search.settled; k++) {
+				final double d = search.dist[search.order[k]];
+				sum += d;
+				if (d > 0) { inverses += 1d / d; }
+			}
+			final int reached = search.settled - 1;
+			if (closeness != null) { closeness[s] = sum > 0 ? reached / sum : 0d; }
+			if (harmonic != null) { harmonic[s] = others > 0 ? inverses / others : 0d; }
+		}, none -> {});
+	}
+
+	/**
+	 * The indices of all the vertices.
+	 *
+	 * @return the indices, in increasing order
+	 */
+	public int[] allSources() {
+		final int[] result = new int[vertices.length];
+		for (int i = 0; i < result.length; i++) { result[i] = i; }
+		return result;
+	}
+
+	/**
+	 * The partial counts of the shortest paths computed by a thread, and its working array.
+	 *
+	 * @param vertices
+	 *            the counts of the vertices (can be null)
+	 * @param edges
+	 *            the counts of the edges (can be null)
+	 * @param descendants
+	 *            the number of targets below each vertex in the tree of shortest paths
+	 */
+	private record Counts(int[] vertices, int[] edges, int[] descendants) {}
+
+	/**
+	 * What is done with the tree of shortest paths from each source.
+	 *
+	 * @param <T>
+	 *            the type of the partial results
+	 */
+	@FunctionalInterface
+	private interface SourceVisitor<T> {
+
+		/**
+		 * Visits the tree of shortest paths from a source.
+		 *
+		 * @param search
+		 *            the search that has built the tree
+		 * @param source
+		 *            the index of the source
+		 * @param partial
+		 *            the partial result in which the visit is accumulated
+		 */
+		void visit(Search search, int source, T partial);
+	}
+
+	/**
+	 * Runs a search from each source and visits its tree. When the sources are numerous, they are split in chunks
+	 * searched in parallel in the {@link GamaExecutorService#AGENT_PARALLEL_EXECUTOR}, each with its own partial
+	 * result; the partial results are then merged in the order of the chunks.
+	 *
+	 * @param sources
+	 *            the indices of the sources
+	 * @param partial
+	 *            creates an empty partial result
+	 * @param visitor
+	 *            the visitor of the trees
+	 * @param merge
+	 *            merges a partial result in the final one
+	 */
+	private <T> void forEachSource(final int[] sources, final Supplier<T> partial, final SourceVisitor<T> visitor,
+			final Consumer<T> merge) {
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		if (pool == null || sources.length < PARALLEL_SOURCES) {
+			merge.accept(visit(sources, 0, sources.length, partial.get(), visitor));
+			return;
+		}
+		final int chunks = Math.min(sources.length, pool.getParallelism() * 4);
+		final List<ForkJoinTask<T>> tasks = new ArrayList<>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) sources.length * c / chunks);
+			final int to = (int) ((long) sources.length * (c + 1) / chunks);
+			tasks.add(pool.submit(() -> visit(sources, from, to, partial.get(), visitor)));
+		}
+		for (final ForkJoinTask<T> task : tasks) { merge.accept(task.join()); }
+	}
+
+	/**
+	 * Runs a search from the sources between two positions and visits their trees, with the search of the current
+	 * thread.
+	 */
+	private <T> T visit(final int[] sources, final int from, final int to, final T partial,
+			final SourceVisitor<T> visitor) {
+		final Search search = search();
+		for (int i = from; i < to; i++) {
+			search.run(this, sources[i], -1);
+			visitor.visit(search, sources[i], partial);
+		}
+		return partial;
+	}
+
+	/**
+	 * The locations of the vertices, bucketed in a uniform grid of about one vertex per cell. The indices of the
+	 * vertices of each cell are stored between {@code start[c]} and {@code start[c + 1]} in {@code members}.
+	 */
+	private static final class VertexGrid {
+
+		/** The locations of the vertices. */
+		final IPoint[] locations;
+
+		/** The origin and the size of the cells. */
+		final double minX, minY, size;
+
+		/** The dimensions of the grid. */
+		final int columns, rows;
+
+		/** The first member of each cell, and the members. */
+		final int[] start, members;
+
+		/**
+		 * Buckets the vertices.
+		 */
+		VertexGrid(final Object[] vertices) {
+			final int n = vertices.length;
+			locations = new IPoint[n];
+			double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+			for (int i = 0; i < n; i++) {
+				final IPoint p = ((IShape) vertices[i]).getLocation();
+				locations[i] = p;
+				x0 = Math.min(x0, p.getX());
+				y0 = Math.min(y0, p.getY());
+				x1 = Math.max(x1, p.getX());
+				y1 = Math.max(y1, p.getY());
+			}
+			final double w = x1 - x0, h = y1 - y0;
+			double s = Math.max(Math.sqrt(w * h / n), Math.max(w, h) / n);
+			if (!(s > 0)) { s = 1d; }
+			minX = x0;
+			minY = y0;
+			size = s;
+			columns = (int) (w / s) + 1;
+			rows = (int) (h / s) + 1;
+			start = new int[columns * rows + 1];
+			members = new int[n];
+			final int[] cells = new int[n];
+			for (int i = 0; i < n; i++) {
+				cells[i] = column(locations[i].getX()) + row(locations[i].getY()) * columns;
+				start[cells[i] + 1]++;
+			}
+			for (int c = 1; c < start.length; c++) { start[c] += start[c - 1]; }
+			final int[] cursor = Arrays.copyOf(start, start.length - 1);
+			for (int i = 0; i < n; i++) { members[cursor[cells[i]]++] = i; }
+		}
+
+		/** The column of an abscissa, clamped to the grid. */
+		int column(final double x) {
+			return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / size)));
+		}
+
+		/** The row of an ordinate, clamped to the grid. */
+		int row(final double y) {
+			return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / size)));
+		}
+
+		/**
+		 * The index of the vertex closest to the location. The vertices of the cells at a distance r (in cells) of the
+		 * cell of the location are at least (r - 1) * size away from it, which stops the rings.
+		 */
+		int nearest(final IPoint location) {
+			final int cx = column(location.getX()), cy = row(location.getY());
+			final int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+			int closest = -1;
+			double min = Double.MAX_VALUE;
+			for (int r = 0; r <= maxRing && (r - 1) * size <= min; r++) {
+				for (int y = Math.max(0, cy - r), yMax = Math.min(rows - 1, cy + r); y <= yMax; y++) {
+					// The rows at the top and the bottom of the ring are scanned entirely, the others at both ends
+					final boolean border = y == cy - r || y == cy + r;
+					final int step = border ? 1 : 2 * r;
+					for (int x = border ? Math.max(0, cx - r) : cx - r, xMax = Math.min(columns - 1, cx + r);
+							x <= xMax; x += step) {
+						if (x < 0) { continue; }
+						final int c = x + y * columns;
+						for (int k = start[c]; k < start[c + 1]; k++) {
+							final int i = members[k];
+							final double d = location.euclidianDistanceTo(locations[i]);
+							if (d < min || d == min && i < closest) {
+								min = d;
+								closest = i;
+							}
+						}
+					}
+				}
+			}
+			return closest;
+		}
+	}
+
+	/**
+	 * The working arrays of a Dijkstra search: distances, parents and an indexed binary heap. The arrays are reused
+	 * from one search to the next, and from one graph to the next; a generation stamp tells which entries belong to the
+	 * current search.
+	 */
+	static final class Search {
+
+		/** The distance of each vertex reached. */
+		double[] dist = {};
+
+		/** The parent of each vertex reached, and the arc followed from it. */
+		int[] parent = {}, parentArc = {};
+
+		/** The generation at which each vertex has been reached. */
+		int[] stamp = {};
+
+		/** The heap of vertices, and the position of each vertex in it (-1 once settled). */
+		int[] heap = {}, position = {};
+
+		/** The vertices in the order in which they have been settled. */
+		int[] order = {};
+
+		/** The current generation, the size of the heap and the number of vertices settled. */
+		int generation, size, settled;
+
+		/**
+		 * Grows the arrays if they cannot hold n vertices.
+		 */
+		void ensureCapacity(final int n) {
+			if (dist.length >= n) return;
+			dist = new double[n];
+			parent = new int[n];
+			parentArc = new int[n];
+			stamp = new int[n];
+			heap = new int[n];
+			position = new int[n];
+			order = new int[n];
+			generation = 0;
+		}
+
+		/**
+		 * Whether the vertex has been reached by the current search.
+		 */
+		boolean reached(final int v) {
+			return stamp[v] == generation;
+		}
+
+		/**
+		 * Runs a search from the source, until the target is settled or, if the target is negative, until all the
+		 * reachable vertices are settled.
+		 */
+		void run(final CompactGraph<?, ?> graph, final int source, final int target) {
+			final int[] offsets = graph.offsets, targets = graph.targets;
+			final double[] weights = graph.weights;
+			if (++generation == Integer.MAX_VALUE) {
+				Arrays.fill(stamp, 0);
+				generation = 1;
+			}
+			size = 0;
+			settled = 0;
+			stamp[source] = generation;
+			dist[source] = 0d;
+			parent[source] = -1;
+			parentArc[source] = -1;
+			push(source);
+			while (size > 0) {
+				final int u = poll();
+				order[settled++] = u;
+				if (u == target) return;
+				final double du = dist[u];
+				for (int a = offsets[u], end = offsets[u + 1]; a < end; a++) {
+					final int v = targets[a];
+					final double d = du + weights[a];
+					if (!reached(v)) {
+						stamp[v] = generation;
+						dist[v] = d;
+						parent[v] = u;
+						parentArc[v] = a;
+						push(v);
+					} else if (position[v] >= 0 && d < dist[v]) {
+						dist[v] = d;
+						parent[v] = u;
+						parentArc[v] = a;
+						up(position[v]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds a vertex to the heap.
+		 */
+		private void push(final int v) {
+			heap[size] = v;
+			position[v] = size;
+			up(size++);
+		}
+
+		/**
+		 * Removes the closest vertex from the heap.
+		 */
+		private int poll() {
+			final int result = heap[0];
+			position[result] = -1;
+			if (--size > 0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				down(0);
+			}
+			return result;
+		}
+
+		/**
+		 * Moves the vertex at this position up in the heap.
+		 */
+		private void up(int i) {
+			final int v = heap[i];
+			final double d = dist[v];
+			while (i > 0) {
+				final int p = i - 1 >>> 1;
+				final int pv = heap[p];
+				if (dist[pv] <= d) { break; }
+				heap[i] = pv;
+				position[pv] = i;
+				i = p;
+			}
+			heap[i] = v;
+			position[v] = i;
+		}
+
+		/**
+		 * Moves the vertex at this position down in the heap.
+		 */
+		private void down(int i) {
+			final int v = heap[i];
+			final double d = dist[v];
+			final int half = size >>> 1;
+			while (i < half) {
+				int c = 2 * i + 1;
+				final int r = c + 1;
+				if (r < size && dist[heap[r]] < dist[heap[c]]) { c = r; }
+				if (d <= dist[heap[c]]) { break; }
+				heap[i] = heap[c];
+				position[heap[i]] = i;
+				i = c;
+			}
+			heap[i] = v;
+			position[v] = i;
+		}
+	}
+
+}
@@ -1061,7 +1061,6 @@ public class GamaGraph<V, E> implements IGraph<V, E> {
 
 	@Override
 	public Set vertexSet() {
-		getPathComputer().incVersion();
 		return vertexMap.keySet();
 	}
 
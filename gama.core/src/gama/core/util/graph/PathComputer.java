@@ -9,12 +9,16 @@
  ********************************************************************************************************/
 package gama.core.util.graph;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.jgrapht.GraphPath;
 import org.jgrapht.alg.interfaces.KShortestPathAlgorithm;
@@ -23,6 +27,7 @@ import org.jgrapht.alg.shortestpath.BellmanFordShortestPath;
 import org.jgrapht.alg.shortestpath.BhandariKDisjointShortestPaths;
 import org.jgrapht.alg.shortestpath.BidirectionalDijkstraShortestPath;
 import org.jgrapht.alg.shortestpath.ContractionHierarchyBidirectionalDijkstra;
+import org.jgrapht.alg.shortestpath.ContractionHierarchyPrecomputation;
 import org.jgrapht.alg.shortestpath.DeltaSteppingShortestPath;
 import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
 import org.jgrapht.alg.shortestpath.TransitNodeRoutingShortestPath;
@@ -34,6 +39,9 @@ import org.jgrapht.graph.DefaultUndirectedGraph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.util.SupplierUtil;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 
 import gama.api.exceptions.GamaRuntimeException;
@@ -41,18 +49,22 @@ import gama.api.gaml.types.IType;
 import gama.api.gaml.types.Types;
 import gama.api.runtime.GamaExecutorService;
 import gama.api.runtime.scope.IScope;
+import gama.api.types.geometry.IShape;
 import gama.api.types.graph.IGraph;
 import gama.api.types.graph.IPath;
 import gama.api.types.graph.IPathComputer;
+import gama.api.types.graph.ISpatialGraph;
 import gama.api.types.list.GamaListFactory;
 import gama.api.types.list.IList;
 import gama.api.types.map.GamaMapFactory;
 import gama.api.types.map.IMap;
 import gama.api.types.matrix.GamaMatrixFactory;
 import gama.api.types.matrix.IMatrix;
+import gama.api.utils.prefs.GamaPreferences;
 import gama.core.topology.graph.AStar;
 import gama.core.topology.graph.FloydWarshallShortestPathsGAMA;
 import gama.core.topology.graph.NBAStarPathfinder;
+import gama.core.util.matrix.GamaFloatMatrix;
 import gama.core.util.matrix.GamaIntMatrix;
 
 /**
@@ -90,8 +102,23 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	/** The version. */
 	protected int version = 1;
 
-	/** The shortest path computed. */
-	protected volatile Map<Pair<V, V>, IList<IList<E>>> shortestPathComputed = new ConcurrentHashMap<>();
+	/** The estimated size, in bytes, of an entry of the cache (key, lists and internal node), edges excluded. */
+	static final int ENTRY_BYTES = 160;
+
+	/** The estimated size, in bytes, of a reference to an edge in a cached path. */
+	static final int EDGE_BYTES = 8;
+
+	/** The maximum memory, in MB, used by the cache of shortest paths. 0 or less means unbounded. */
+	protected int cacheMaxMemory = GamaPreferences.Runtime.CORE_PATH_CACHE_MEMORY.getValue();
+
+	/**
+	 * The shortest paths computed, bounded by {@link #cacheMaxMemory}. The least recently used paths are evicted first.
+	 * The cache is thread safe and can be shared by agents computing paths in parallel.
+	 */
+	protected volatile Cache<Pair<V, V>, IList<IList<E>>> shortestPathComputed = createCache();
+
+	/** The statistics accumulated by the caches discarded after a modification of the graph. */
+	protected CacheStats previousStatistics = new CacheStats(0, 0, 0, 0, 0, 0);
 
 	/** The shortest path matrix. */
 	protected GamaIntMatrix shortestPathMatrix = null;
@@ -109,11 +136,24 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	/** The optimizer. */
 	private FloydWarshallShortestPathsGAMA<V, E> optimizer;
 
-	/** The contraction hierarchy BD. */
-	protected ContractionHierarchyBidirectionalDijkstra<V, E> contractionHierarchyBD = null;
+	/** The contraction hierarchy BD. Built once and reused until the graph is modified */
+	protected volatile ContractionHierarchyBidirectionalDijkstra<V, E> contractionHierarchyBD = null;
 
-	/** The transit node routing. */
-	protected TransitNodeRoutingShortestPath<V, E> transitNodeRouting = null;
+	/** The transit node routing. Built once and reused until the graph is modified */
+	protected volatile TransitNodeRoutingShortestPath<V, E> transitNodeRouting = null;
+
+	/** The compact copy of the graph. Built once and reused until the graph is modified */
+	protected volatile CompactGraph<V, E> compactGraph = null;
+
+	/**
+	 * The number of single shortest path queries after which, if the graph has not been modified in between, they are
+	 * run on its compact copy: building it costs a few searches, which graphs modified at every cycle would pay again
+	 * and again
+	 */
+	static final int QUERIES_BEFORE_COMPACT_GRAPH = 16;
+
+	/** The number of single shortest path queries since the last modification of the graph. */
+	private final AtomicInteger queriesSinceModification = new AtomicInteger();
 
 	/** The linked J graph. */
 	protected AbstractBaseGraph<String, Object> linkedJGraph;
@@ -127,7 +167,65 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	 * @return the shortest path computed
 	 */
 	@Override
-	public Map<Pair<V, V>, IList<IList<E>>> getShortestPathComputed() { return shortestPathComputed; }
+	public Map<Pair<V, V>, IList<IList<E>>> getShortestPathComputed() { return shortestPathComputed.asMap(); }
+
+	/**
+	 * Creates a new cache of shortest paths, bounded by the current maximum memory. The weight of an entry is an
+	 * estimation of the memory it occupies, i.e. proportional to the number of edges of its paths.
+	 *
+	 * @return the cache
+	 */
+	private Cache<Pair<V, V>, IList<IList<E>>> createCache() {
+		final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+		if (cacheMaxMemory <= 0) return builder.build();
+		return builder.maximumWeight(cacheMaxMemory * 1024L * 1024L)
+				.<Pair<V, V>, IList<IList<E>>> weigher((k, paths) -> weightOf(paths)).build();
+	}
+
+	/**
+	 * The estimated size in bytes of the paths stored in an entry of the cache.
+	 *
+	 * @param paths
+	 *            the paths
+	 * @return the weight
+	 */
+	private static int weightOf(final IList<? extends IList<?>> paths) {
+		long weight = ENTRY_BYTES;
+		for (final IList<?> path : paths) { if (path != null) { weight += ENTRY_BYTES / 4 + path.size() * EDGE_BYTES; } }
+		return (int) Math.min(Integer.MAX_VALUE, weight);
+	}
+
+	/**
+	 * Replaces the cache by an empty one, keeping its statistics.
+	 */
+	private synchronized void resetCache() {
+		previousStatistics = previousStatistics.plus(shortestPathComputed.stats());
+		shortestPathComputed = createCache();
+	}
+
+	@Override
+	public synchronized void setCacheMaxMemory(final int megabytes) {
+		if (megabytes == cacheMaxMemory) return;
+		cacheMaxMemory = megabytes;
+		final Cache<Pair<V, V>, IList<IList<E>>> old = shortestPathComputed;
+		resetCache();
+		shortestPathComputed.putAll(old.asMap());
+	}
+
+	@Override
+	public int getCacheMaxMemory() { return cacheMaxMemory; }
+
+	@Override
+	public synchronized Map<String, Number> getCacheStatistics() {
+		final CacheStats stats = previousStatistics.plus(shortestPathComputed.stats());
+		final Map<String, Number> result = new LinkedHashMap<>();
+		result.put("size", shortestPathComputed.size());
+		result.put("hits", stats.hitCount());
+		result.put("misses", stats.missCount());
+		result.put("hit_rate", stats.hitRate());
+		result.put("evictions", stats.evictionCount());
+		return result;
+	}
 
 	/**
 	 * Gets the shortest path.
@@ -141,7 +239,7 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	@Override
 	public IList<E> getShortestPath(final V s, final V t) {
 		final Pair<V, V> vp = new Pair<>(s, t);
-		final IList<IList<E>> ppc = shortestPathComputed.get(vp);
+		final IList<IList<E>> ppc = shortestPathComputed.getIfPresent(vp);
 		if (ppc == null || ppc.isEmpty()) return null;
 		return ppc.get(0);
 	}
@@ -287,7 +385,7 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 				vc = vn;
 			} while (previous != i);
 			final Pair vv = new Pair<>(v1, vt);
-			if (!shortestPathComputed.containsKey(vv)) {
+			if (!shortestPathComputed.asMap().containsKey(vv)) {
 				final IList<IList<E>> ssp = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
 				ssp.add(edges);
 				shortestPathComputed.put(vv, ssp);
@@ -440,7 +538,7 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 			return GamaListFactory.create(scope, graph.getGamlType().getContentType(), path.getEdgeList());
 		}
 		IList<IList<E>> sp = null;
-		if (saveComputedShortestPaths) { sp = shortestPathComputed.get(new Pair<>(source, target)); }
+		if (saveComputedShortestPaths) { sp = shortestPathComputed.getIfPresent(new Pair<>(source, target)); }
 		IList<E> spl = null;
 		if (sp == null || sp.isEmpty() || sp.get(0).isEmpty()) {
 			switch (pathFindingAlgo) {
@@ -460,8 +558,18 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 					break;
 				}
 				case Dijkstra:
-					spl = getShortestPath(scope, new DijkstraShortestPath<>(graph), source, target);
+				case BidirectionalDijkstra: {
+					// Both are exact: the search is done on the compact copy of the graph once it is stable
+					final CompactGraph<V, E> compact = getCompactGraphIfStable();
+					if (compact != null) {
+						spl = compact.shortestPath(graph.getGamlType().getContentType(), source, target);
+					} else if (pathFindingAlgo == ShortestPathAlgorithmEnum.Dijkstra) {
+						spl = getShortestPath(scope, new DijkstraShortestPath<>(graph), source, target);
+					} else {
+						spl = getShortestPath(scope, new BidirectionalDijkstraShortestPath<>(graph), source, target);
+					}
 					break;
+				}
 				case BellmannFord:
 					spl = getShortestPath(scope, new BellmanFordShortestPath<>(graph), source, target);
 					break;
@@ -472,23 +580,10 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 					break;
 				}
 				case TransitNodeRouting:
-					if (transitNodeRouting == null) {
-						ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors
-								.newFixedThreadPool(GamaExecutorService.THREADS_NUMBER.getValue());
-						transitNodeRouting = new TransitNodeRoutingShortestPath<>(graph, executor);
-					}
-					spl = getShortestPath(scope, transitNodeRouting, source, target);
+					spl = getShortestPath(scope, getTransitNodeRouting(), source, target);
 					break;
 				case CHBidirectionalDijkstra:
-					if (contractionHierarchyBD == null) {
-						ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors
-								.newFixedThreadPool(GamaExecutorService.THREADS_NUMBER.getValue());
-						contractionHierarchyBD = new ContractionHierarchyBidirectionalDijkstra<>(graph, executor);
-					}
-					spl = getShortestPath(scope, contractionHierarchyBD, source, target);
-					break;
-				case BidirectionalDijkstra:
-					spl = getShortestPath(scope, new BidirectionalDijkstraShortestPath<>(graph), source, target);
+					spl = getShortestPath(scope, getContractionHierarchy(), source, target);
 					break;
 				case null:
 				default:
@@ -503,6 +598,165 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 		return spl;
 	}
 
+	/**
+	 * Returns the query engine on the contraction hierarchy of the graph, contracting it if it has not been done since
+	 * the last modification of the graph. The contraction is done once, by only one thread, even if several agents ask
+	 * for paths in parallel; the queries on the hierarchy can then be run concurrently.
+	 *
+	 * @return the contraction hierarchy bidirectional dijkstra
+	 */
+	ContractionHierarchyBidirectionalDijkstra<V, E> getContractionHierarchy() {
+		ContractionHierarchyBidirectionalDijkstra<V, E> result = contractionHierarchyBD;
+		if (result != null) return result;
+		synchronized (this) {
+			result = contractionHierarchyBD;
+			if (result == null) {
+				final ThreadPoolExecutor executor = createPrecomputationExecutor();
+				try {
+					result = new ContractionHierarchyBidirectionalDijkstra<>(
+							new ContractionHierarchyPrecomputation<>(graph, executor).computeContractionHierarchy());
+				} finally {
+					executor.shutdown();
+				}
+				contractionHierarchyBD = result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the compact (CSR) copy of the graph used to search shortest paths, building it if it has not been done
+	 * since the last modification of the graph.
+	 *
+	 * @return the compact graph
+	 */
+	public CompactGraph<V, E> getCompactGraph() {
+		CompactGraph<V, E> result = compactGraph;
+		if (result != null) return result;
+		synchronized (this) {
+			result = compactGraph;
+			if (result == null) {
+				result = new CompactGraph<>(graph);
+				compactGraph = result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the compact copy of the graph if it exists or if the graph has not been modified during the last
+	 * {@link #QUERIES_BEFORE_COMPACT_GRAPH} single queries.
+	 *
+	 * @return the compact graph, or null if the graph is searched directly
+	 */
+	private CompactGraph<V, E> getCompactGraphIfStable() {
+		final CompactGraph<V, E> result = compactGraph;
+		if (result != null) return result;
+		if (queriesSinceModification.incrementAndGet() < QUERIES_BEFORE_COMPACT_GRAPH) return null;
+		return getCompactGraph();
+	}
+
+	/**
+	 * Returns the transit node routing of the graph, precomputing it if it has not been done since the last
+	 * modification of the graph. Like {@link #getContractionHierarchy()}, the precomputation is done by only one thread.
+	 *
+	 * @return the transit node routing shortest path
+	 */
+	TransitNodeRoutingShortestPath<V, E> getTransitNodeRouting() {
+		TransitNodeRoutingShortestPath<V, E> result = transitNodeRouting;
+		if (result != null) return result;
+		synchronized (this) {
+			result = transitNodeRouting;
+			if (result == null) {
+				final ThreadPoolExecutor executor = createPrecomputationExecutor();
+				try {
+					result = new TransitNodeRoutingShortestPath<>(graph, executor);
+					result.performPrecomputation();
+				} finally {
+					executor.shutdown();
+				}
+				transitNodeRouting = result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the executor used to precompute the contraction hierarchy or the transit nodes. It is shut down as soon as
+	 * the precomputation is over, so that its threads do not outlive it.
+	 *
+	 * @return the thread pool executor
+	 */
+	private static ThreadPoolExecutor createPrecomputationExecutor() {
+		return (ThreadPoolExecutor) Executors
+				.newFixedThreadPool(Math.max(1, GamaExecutorService.THREADS_NUMBER.getValue()));
+	}
+
+	@Override
+	public IList<IPath<V, E, IGraph<V, E>>> computeShortestPathsFrom(final IScope scope, final V source,
+			final IList<V> targets) {
+		final CompactGraph<V, E> compact = getCompactGraph();
+		final int s = vertexIndexOf(scope, compact, source);
+		final int[] t = vertexIndicesOf(scope, compact, targets);
+		final IList<E>[] edges = compact.shortestPathsFrom(graph.getGamlType().getContentType(), s, t);
+		final IList<IPath<V, E, IGraph<V, E>>> result = GamaListFactory.create(Types.PATH);
+		for (int j = 0; j < t.length; j++) {
+			result.add(edges[j] == null ? null
+					: graph.pathFromEdges(scope, compact.vertex(s), compact.vertex(t[j]), edges[j]));
+		}
+		return result;
+	}
+
+	@Override
+	public IList<Double> computeDistancesFrom(final IScope scope, final V source, final IList<V> targets) {
+		final CompactGraph<V, E> compact = getCompactGraph();
+		final int[] t = vertexIndicesOf(scope, compact, targets);
+		final double[] distances = new double[t.length];
+		compact.distancesFrom(vertexIndexOf(scope, compact, source), t, distances, 0);
+		final IList<Double> result = GamaListFactory.create(Types.FLOAT, t.length);
+		for (final double d : distances) { result.add(d); }
+		return result;
+	}
+
+	@Override
+	public IMatrix<Double> computeDistanceMatrix(final IScope scope, final IList<V> sources, final IList<V> targets) {
+		final CompactGraph<V, E> compact = getCompactGraph();
+		final int[] s = vertexIndicesOf(scope, compact, sources);
+		final int[] t = vertexIndicesOf(scope, compact, targets);
+		final GamaFloatMatrix matrix = (GamaFloatMatrix) GamaMatrixFactory.create(t.length, s.length, Types.FLOAT);
+		final double[] cells = matrix.getMatrix();
+		final IntConsumer row = i -> compact.distancesFrom(s[i], t, cells, i * t.length);
+		final ForkJoinPool pool = GamaExecutorService.AGENT_PARALLEL_EXECUTOR;
+		if (pool == null || s.length < 2) {
+			for (int i = 0; i < s.length; i++) { row.accept(i); }
+		} else {
+			// Each source writes its own row, with the working arrays of the thread that computes it
+			pool.submit(() -> IntStream.range(0, s.length).parallel().forEach(row)).join();
+		}
+		return matrix;
+	}
+
+	/**
+	 * The indices in the compact graph of the vertices designated by a list of objects.
+	 */
+	private int[] vertexIndicesOf(final IScope scope, final CompactGraph<V, E> compact, final IList<V> objects) {
+		final int[] result = new int[objects.size()];
+		for (int i = 0; i < result.length; i++) { result[i] = vertexIndexOf(scope, compact, objects.get(i)); }
+		return result;
+	}
+
+	/**
+	 * The index in the compact graph of the vertex designated by an object: the object itself if it is a vertex or,
+	 * in a spatial graph, the vertex closest to its location.
+	 *
+	 * @return the index or -1 if no vertex corresponds
+	 */
+	private int vertexIndexOf(final IScope scope, final CompactGraph<V, E> compact, final Object object) {
+		final int index = compact.indexOf(object);
+		if (index >= 0 || !(graph instanceof ISpatialGraph) || !(object instanceof IShape shape)) return index;
+		return compact.nearestVertex(shape.getLocation());
+	}
+
 	/**
 	 * Save shortest paths.
 	 *
@@ -526,7 +780,7 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 			V nwS = graph.getEdgeTarget(edge);
 			if (!graph.isDirected() && nwS.equals(s)) { nwS = graph.getEdgeSource(edge); }
 			final Pair<V, V> pp = new Pair<>(nwS, target);
-			if (!shortestPathComputed.containsKey(pp)) {
+			if (!shortestPathComputed.asMap().containsKey(pp)) {
 				final IList<IList<E>> spl2 = GamaListFactory.create(graph.getGamlType().getContentType());
 				spl2.add(GamaListFactory.createWithoutCasting(graph.getGamlType().getContentType(), edges2));
 				shortestPathComputed.put(pp, spl2);
@@ -627,7 +881,7 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	@Override
 	public IList<IList<E>> computeKBestRoutesBetween(final IScope scope, final V source, final V target, final int k) {
 		final Pair<V, V> pp = new Pair<>(source, target);
-		final IList<IList<E>> sps = shortestPathComputed.get(pp);
+		final IList<IList<E>> sps = shortestPathComputed.getIfPresent(pp);
 		if (sps != null && sps.size() >= k) {
 			IList<IList<E>> paths = GamaListFactory.create(Types.LIST.of(graph.getGamlType().getContentType()));
 			for (final IList<E> sp : sps) {
@@ -714,8 +968,7 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	@Override
 	public void setVersion(final int version) {
 		this.version = version;
-		// shortestPathComputed.clear();
-		shortestPathComputed = new ConcurrentHashMap<>();
+		resetCache();
 
 	}
 
@@ -726,12 +979,14 @@ public class PathComputer<V, E> implements IPathComputer<V, E> {
 	 * @date 30 oct. 2023
 	 */
 	@Override
-	public void incVersion() {
+	public synchronized void incVersion() {
 		version++;
-		// shortestPathComputed.clear();
-		shortestPathComputed = new ConcurrentHashMap<>();
+		resetCache();
+		// The hierarchy and the transit nodes are precomputed again at the next query
 		contractionHierarchyBD = null;
 		transitNodeRouting = null;
+		compactGraph = null;
+		queriesSinceModification.set(0);
 		linkedJGraph = null;
 		fromLinkedGtoEdges = null;
 	}
@@ -11,6 +11,7 @@ package gama.gaml.operators;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -58,6 +59,7 @@ import gama.api.kernel.agent.IAgent;
 import gama.api.kernel.agent.IPopulationSet;
 import gama.api.kernel.species.ISpecies;
 import gama.api.kernel.topology.IGrid;
+import gama.api.runtime.ParallelIterators;
 import gama.api.runtime.scope.IScope;
 import gama.api.types.color.GamaColorFactory;
 import gama.api.types.color.IColor;
@@ -77,6 +79,8 @@ import gama.api.types.misc.IContainer;
 import gama.api.types.pair.GamaPairFactory;
 import gama.api.types.pair.IPair;
 import gama.api.types.topology.ITopology;
+import gama.core.population.ColumnarPopulation;
+import gama.core.population.GamaPopulation;
 import gama.core.population.MetaPopulation;
 import one.util.streamex.IntStreamEx;
 import one.util.streamex.StreamEx;
@@ -2278,6 +2282,15 @@ public class Containers {
 	@test ("[1::2, 3::4, 5::6] group_by (each > 4) = [false::[2, 4], true::[6]]")
 	public static IMap group_by(final IScope scope, final String eachName, final IContainer c, final IExpression e) {
 		final IType ct = notNull(scope, c).getGamlType().getContentType();
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, e);
+		if (elements != null) {
+			final Object[] keys = ParallelIterators.evaluate(scope, eachName, elements, e);
+			final IMap result = asMapOf(e.getGamlType(), Types.LIST.of(ct)).get();
+			for (int i = 0; i < elements.length; i++) {
+				((IList) result.computeIfAbsent(keys[i], k -> listOf(ct).get())).add(elements[i]);
+			}
+			return result;
+		}
 		return (IMap) stream(scope, c).groupingTo(buildFunctionWithEach(scope, eachName, e),
 				asMapOf(e.getGamlType(), Types.LIST.of(ct)), listOf(ct));
 	}
@@ -2386,6 +2399,8 @@ public class Containers {
 	@test ("[1,2,3,4,5,6,7,8] first_with (each > 3) = 4")
 	public static Object first_with(final IScope scope, final String eachName, final IContainer c,
 			final IExpression filter) {
+		final List<IAgent> indexed = selectIndexed(scope, eachName, c, filter);
+		if (indexed != null) return indexed.isEmpty() ? null : indexed.get(0);
 		return stream(scope, c).findFirst(buildPredicateWithEach(scope, eachName, filter)).orElse(null);
 	}
 
@@ -2531,12 +2546,20 @@ public class Containers {
 	@test ("[1,2] sum_of (each * 100 ) = 300")
 	public static Object sum_of(final IScope scope, final String eachName, final IContainer container,
 			final IExpression filter) {
-		Stream s = stream(scope, container);
+		final ColumnarPopulation<?> columnar = filter == null ? null : ColumnarPopulation.of(scope, container);
+		if (columnar != null) {
+			final Number sum = columnar.sumOf(eachName, filter);
+			if (sum != null) return sum;
+		}
+		Stream s;
 		IType t;
 		if (filter != null) {
-			s = s.map(buildFunctionWithEach(scope, eachName, filter));
+			final Object[] elements = ParallelIterators.elementsOf(scope, container, filter);
+			s = elements == null ? stream(scope, container).map(buildFunctionWithEach(scope, eachName, filter))
+					: Stream.of(ParallelIterators.evaluate(scope, eachName, elements, filter));
 			t = filter.getGamlType();
 		} else {
+			s = stream(scope, container);
 			t = container.getGamlType().getContentType();
 		}
 		s = s.map(each -> t.cast(scope, each, null, false));
@@ -2677,6 +2700,17 @@ public class Containers {
 	@test ("[1,2,4,3,5,7,6,8] sort_by (each) = [1,2,3,4,5,6,7,8]")
 	@validator (ComparableValidator.class)
 	public static IList sort(final IScope scope, final String eachName, final IContainer c, final IExpression filter) {
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) {
+			final Object[] keys = ParallelIterators.evaluate(scope, eachName, elements, filter);
+			final Integer[] order = new Integer[elements.length];
+			for (int i = 0; i < order.length; i++) { order[i] = i; }
+			// Stable, like the sequential version
+			Arrays.sort(order, (a, b) -> ((Comparable) keys[a]).compareTo(keys[b]));
+			final IList result = listLike(c).get();
+			for (final Integer i : order) { result.add(elements[i]); }
+			return result;
+		}
 		try {
 			return (IList) stream(scope, c).sortedBy(buildFunctionWithEach(scope, eachName, filter))
 					.toCollection(listLike(c));
@@ -2740,6 +2774,19 @@ public class Containers {
 	@test ("[1,2,3,4,5,6,7,8] where (each > 3) = [4, 5, 6, 7, 8] ")
 	@test ("matrix([1, 2, 3], [4, 5, 6]) where (each > 2) = [4, 5, 3, 6] ")
 	public static IList where(final IScope scope, final String eachName, final IContainer c, final IExpression filter) {
+		final ColumnarPopulation<?> columnar = ColumnarPopulation.of(scope, c);
+		if (columnar != null) {
+			final IList result = columnar.where(eachName, filter);
+			if (result != null) return result;
+		}
+		final List<IAgent> indexed = selectIndexed(scope, eachName, c, filter);
+		if (indexed != null) {
+			final IList result = listLike(c).get();
+			result.addAll(indexed);
+			return result;
+		}
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) return where(scope, eachName, elements, filter, listLike(c).get());
 		return (IList) stream(scope, c).filter(buildPredicateWithEach(scope, eachName, filter))
 				.toCollection(listLike(c));
 	}
@@ -2766,9 +2813,65 @@ public class Containers {
 			value = "Returns a list contaning only the elements that make the predicate return true")
 	@test ("[1,2,3,4,5,6,7,8] where (each != 2) = [1, 3, 4, 5, 6, 7, 8] ")
 	public static IList where(final IScope scope, final String eachName, final IList c, final IExpression filter) {
+		final ColumnarPopulation<?> columnar = ColumnarPopulation.of(scope, c);
+		if (columnar != null) {
+			final IList result = columnar.where(eachName, filter);
+			if (result != null) return result;
+		}
+		final List<IAgent> indexed = selectIndexed(scope, eachName, c, filter);
+		if (indexed != null) {
+			final IList result = listLike(c).get();
+			result.addAll(indexed);
+			return result;
+		}
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) return where(scope, eachName, elements, filter, listLike(c).get());
 		return where(scope, c.iterable(scope), c.getGamlType().getContentType(), eachName, filter);
 	}
 
+	/**
+	 * The agents of a population (or of the population of a species) that satisfy the filter, if it can be answered by
+	 * one of the indexes declared on its attributes (see {@link gama.core.population.AttributeIndexes}).
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param eachName
+	 *            the each name
+	 * @param c
+	 *            the container
+	 * @param filter
+	 *            the filter
+	 * @return the agents, in the order of their indices, or null if the filter cannot be answered by an index
+	 */
+	private static List<IAgent> selectIndexed(final IScope scope, final String eachName, final IContainer c,
+			final IExpression filter) {
+		if (filter == null) return null;
+		final GamaPopulation<?> population = GamaPopulation.indexed(scope, c);
+		return population == null ? null : population.select(scope, eachName, filter);
+	}
+
+	/**
+	 * Keeps the elements that satisfy the filter, evaluated in parallel (see {@link ParallelIterators}).
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param eachName
+	 *            the each name
+	 * @param elements
+	 *            the elements
+	 * @param filter
+	 *            the filter
+	 * @param result
+	 *            the list to fill
+	 * @return the list
+	 */
+	private static IList where(final IScope scope, final String eachName, final Object[] elements,
+			final IExpression filter, final IList result) {
+		final Object[] values = ParallelIterators.evaluate(scope, eachName, elements, filter);
+		for (int i = 0; i < elements.length; i++) { if (Cast.asBool(scope, values[i])) { result.add(elements[i]); } }
+		return result;
+	}
+
 	/**
 	 * Where.
 	 *
@@ -2820,6 +2923,19 @@ public class Containers {
 			value = "Returns a list containing only the agents of this species that make the predicate return true")
 	@no_test
 	public static IList where(final IScope scope, final String eachName, final ISpecies c, final IExpression filter) {
+		final ColumnarPopulation<?> columnar = ColumnarPopulation.of(scope, c);
+		if (columnar != null) {
+			final IList result = columnar.where(eachName, filter);
+			if (result != null) return result;
+		}
+		final List<IAgent> indexed = selectIndexed(scope, eachName, c, filter);
+		if (indexed != null) {
+			final IList result = listLike(c).get();
+			result.addAll(indexed);
+			return result;
+		}
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) return where(scope, eachName, elements, filter, listLike(c).get());
 		return where(scope, c.iterable(scope), c.getGamlType().getContentType(), eachName, filter);
 	}
 
@@ -2867,6 +2983,10 @@ public class Containers {
 	@validator (ComparableValidator.class)
 	public static Object with_max_of(final IScope scope, final String eachName, final IContainer c,
 			final IExpression filter) {
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) {
+			return withExtremumOf(elements, ParallelIterators.evaluate(scope, eachName, elements, filter), 1);
+		}
 		return stream(scope, c).maxBy(buildFunctionWithEach(scope, eachName, filter)).orElse(null);
 	}
 
@@ -2914,9 +3034,38 @@ public class Containers {
 	@validator (ComparableValidator.class)
 	public static Object with_min_of(final IScope scope, final String eachName, final IContainer c,
 			final IExpression filter) {
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) {
+			return withExtremumOf(elements, ParallelIterators.evaluate(scope, eachName, elements, filter), -1);
+		}
 		return stream(scope, c).minBy(buildFunctionWithEach(scope, eachName, filter)).orElse(null);
 	}
 
+	/**
+	 * The first element with the greatest (resp. lowest) value, the values being evaluated in parallel (see
+	 * {@link ParallelIterators}).
+	 *
+	 * @param elements
+	 *            the elements
+	 * @param values
+	 *            their values
+	 * @param sign
+	 *            1 for the greatest value, -1 for the lowest
+	 * @return the element, or null if there are none
+	 */
+	private static Object withExtremumOf(final Object[] elements, final Object[] values, final int sign) {
+		Object result = null;
+		Comparable best = null;
+		for (int i = 0; i < elements.length; i++) {
+			final Comparable value = (Comparable) values[i];
+			if (i == 0 || value.compareTo(best) * sign > 0) {
+				best = value;
+				result = elements[i];
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Accumulate.
 	 *
@@ -2958,6 +3107,14 @@ public class Containers {
 		final IType type = filter.getGamlType();
 		IType resultingContentsType = type;
 		if (resultingContentsType.isContainer()) { resultingContentsType = resultingContentsType.getContentType(); }
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) {
+			final IList result = listOf(resultingContentsType).get();
+			for (final Object value : ParallelIterators.evaluate(scope, eachName, elements, filter)) {
+				result.addAll(toLists.apply(value));
+			}
+			return result;
+		}
 		return (IList) stream(scope, c).flatCollection(buildFunctionWithEach(scope, eachName, filter).andThen(toLists))
 				.toCollection(listOf(resultingContentsType));
 
@@ -3080,6 +3237,17 @@ public class Containers {
 	@test ("[1,2] collect (i: ([1,2,3] collect (j: i+j))) = [[2,3,4],[3,4,5]]")
 	public static IList collect(final IScope scope, final String eachName, final IContainer c,
 			final IExpression filter) {
+		final ColumnarPopulation<?> columnar = ColumnarPopulation.of(scope, c);
+		if (columnar != null) {
+			final IList result = columnar.collect(eachName, filter);
+			if (result != null) return result;
+		}
+		final Object[] elements = ParallelIterators.elementsOf(scope, c, filter);
+		if (elements != null) {
+			final IList result = listOf(filter.getGamlType()).get();
+			result.addAll(Arrays.asList(ParallelIterators.evaluate(scope, eachName, elements, filter)));
+			return result;
+		}
 		return (IList) stream(scope, c).map(buildFunctionWithEach(scope, eachName, filter))
 				.toCollection(listOf(filter.getGamlType()));
 	}
@@ -3158,6 +3326,16 @@ public class Containers {
 			see = { "group_by" })
 	public static Integer count(final IScope scope, final String eachName, final IContainer original,
 			final IExpression filter) {
+		final List<IAgent> indexed = selectIndexed(scope, eachName, original, filter);
+		if (indexed != null) return indexed.size();
+		final Object[] elements = ParallelIterators.elementsOf(scope, original, filter);
+		if (elements != null) {
+			int count = 0;
+			for (final Object value : ParallelIterators.evaluate(scope, eachName, elements, filter)) {
+				if (Cast.asBool(scope, value)) { count++; }
+			}
+			return count;
+		}
 		return (int) notNull(scope, original).stream(scope).filter(buildPredicateWithEach(scope, eachName, filter))
 				.count();
 	}
@@ -3192,6 +3370,8 @@ public class Containers {
 			see = { "none_matches", "all_match", "count" })
 	public static Boolean one_matches(final IScope scope, final String eachName, final IContainer original,
 			final IExpression filter) {
+		final Object[] elements = ParallelIterators.elementsOf(scope, original, filter);
+		if (elements != null) return ParallelIterators.anyMatch(scope, eachName, elements, filter);
 		return notNull(scope, original).stream(scope).anyMatch(buildPredicateWithEach(scope, eachName, filter));
 	}
 
@@ -83,11 +83,14 @@ import gama.api.types.matrix.IMatrix;
 import gama.api.types.misc.IContainer;
 import gama.api.types.pair.IPair;
 import gama.api.types.topology.GamaTopologyFactory;
+import gama.api.types.topology.ITopology;
 import gama.api.utils.collections.Collector;
 import gama.api.utils.collections.ICollector;
 import gama.api.utils.geometry.GeometryUtils;
 import gama.api.utils.geometry.IEnvelope;
 import gama.core.topology.graph.GamaSpatialGraph;
+import gama.core.topology.graph.RelatedVertices;
+import gama.core.util.graph.CompactGraph;
 import gama.core.util.graph.EdgesToAdd;
 import gama.core.util.graph.GamaGraph;
 import gama.core.util.graph.GraphAlgorithmsHandmade;
@@ -96,6 +99,7 @@ import gama.core.util.graph.LayoutCircle;
 import gama.core.util.graph.LayoutForceDirected;
 import gama.core.util.graph.LayoutGrid;
 import gama.core.util.graph.NodesToAdd;
+import gama.core.util.graph.PathComputer;
 import gama.gaml.operators.spatial.SpatialProperties;
 import gama.gaml.operators.spatial.SpatialPunctal;
 import gama.gaml.operators.spatial.SpatialRelations;
@@ -209,6 +213,14 @@ public class Graphs {
 					SpatialTransformations.enlarged_by(scope, p2.getGeometry(), tolerance));
 		}
 
+		/**
+		 * The geometries enlarged by the tolerance can only intersect if they are within twice the tolerance.
+		 */
+		@Override
+		public double getReach(final IScope scope) {
+			return Math.max(0, 2 * tolerance);
+		}
+
 		/**
 		 * Equivalent.
 		 *
@@ -322,6 +334,14 @@ public class Graphs {
 			}
 		}
 
+		/**
+		 * The geometries must share points.
+		 */
+		@Override
+		public double getReach(final IScope scope) {
+			return 0;
+		}
+
 		/**
 		 * Equivalent.
 		 *
@@ -368,6 +388,16 @@ public class Graphs {
 			return SpatialRelations.distance_to(scope, g1.getGeometry(), g2.getGeometry()) <= distance;
 		}
 
+		/**
+		 * The distance is the one of the topology, which is the euclidean one only in continuous topologies that are
+		 * not tori.
+		 */
+		@Override
+		public double getReach(final IScope scope) {
+			final ITopology topology = scope.getTopology();
+			return topology != null && topology.isContinuous() && !topology.isTorus() ? distance : -1;
+		}
+
 		/**
 		 * @throws GamaRuntimeException
 		 */
@@ -1254,26 +1284,10 @@ public class Graphs {
 		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
 
 		final IMap mapResult = GamaMapFactory.create(graph.getGamlType().getKeyType(), Types.INT);
-		final IList vertices = GamaListFactory.castToList(scope, graph.vertexSet());
-		for (final Object v : vertices) { mapResult.put(v, 0); }
-		final boolean directed = graph.isDirected();
-		for (int i = 0; i < vertices.size(); i++) {
-			for (int j = directed ? 0 : i + 1; j < vertices.size(); j++) {
-				final Object v1 = vertices.get(i);
-				final Object v2 = vertices.get(j);
-				if (v1 == v2) { continue; }
-				final List edges = graph.getPathComputer().computeBestRouteBetween(scope, v1, v2);
-				if (edges == null) { continue; }
-				Object vc = v1;
-				for (final Object edge : edges) {
-					Object node = graph.getEdgeTarget(edge);
-
-					if (node == vc) { node = graph.getEdgeSource(edge); }
-					if (node != v2 && node != v1) { mapResult.put(node, (Integer) mapResult.get(node) + 1); }
-					vc = node;
-				}
-			}
-		}
+		final CompactGraph compact = compactGraphOf(graph);
+		final int[] counts = new int[compact.vertexCount()];
+		compact.countShortestPaths(counts, null);
+		for (int i = 0; i < counts.length; i++) { mapResult.put(compact.vertex(i), counts[i]); }
 		return mapResult;
 	}
 
@@ -1306,22 +1320,206 @@ public class Graphs {
 		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
 
 		final IMap mapResult = GamaMapFactory.create(graph.getGamlType().getContentType(), Types.INT);
-		for (final Object v : graph.edgeSet()) { mapResult.put(v, 0); }
-		final IList vertices = GamaListFactory.castToList(scope, graph.vertexSet());
-		final boolean directed = graph.isDirected();
-		for (int i = 0; i < vertices.size(); i++) {
-			for (int j = directed ? 0 : i + 1; j < vertices.size(); j++) {
-				final Object v1 = vertices.get(i);
-				final Object v2 = vertices.get(j);
-				if (v1 == v2) { continue; }
-				final List edges = graph.getPathComputer().computeBestRouteBetween(scope, v1, v2);
-				if (edges == null) { continue; }
-				for (final Object edge : edges) { mapResult.put(edge, (Integer) mapResult.get(edge) + 1); }
-			}
+		final CompactGraph compact = compactGraphOf(graph);
+		final int[] counts = new int[compact.edgeCount()];
+		compact.countShortestPaths(null, counts);
+		for (int k = 0; k < counts.length; k++) { mapResult.put(compact.edge(k), counts[k]); }
+		return mapResult;
+	}
+
+	/**
+	 * Sampled betweenness centrality.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @param samples
+	 *            the number of sources sampled
+	 * @return the i map
+	 */
+	@operator (
+			value = "betweenness_centrality",
+			type = IType.MAP,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH },
+			concept = { IConcept.GRAPH })
+	@doc (
+			value = "returns a map containing for each vertex (key), an estimate of its betweenness centrality (value), computed from the shortest paths leaving a random sample of vertices (right-hand operand) and scaled to the whole graph. Much faster than the exact betweenness centrality on large graphs",
+			examples = { @example (
+					value = "betweenness_centrality(graphEpidemio, 100)",
+					equals = "an estimate of the betweenness centrality index of the graph",
+					test = false) },
+			special_cases = {
+					"If the number of samples is greater than or equal to the number of vertices, returns the exact betweenness centrality (as floats)" },
+			see = { "edge_betweenness", "closeness_centrality", "harmonic_centrality" })
+	@no_test
+	public static IMap betweennessCentrality(final IScope scope, final IGraph graph, final Integer samples) {
+		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		final IMap mapResult = GamaMapFactory.create(graph.getGamlType().getKeyType(), Types.FLOAT);
+		final CompactGraph compact = compactGraphOf(graph);
+		final int[] counts = new int[compact.vertexCount()];
+		final double scale = countSampledShortestPaths(scope, compact, samples, counts, null);
+		for (int i = 0; i < counts.length; i++) { mapResult.put(compact.vertex(i), counts[i] * scale); }
+		return mapResult;
+	}
+
+	/**
+	 * Sampled edge betweenness.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @param samples
+	 *            the number of sources sampled
+	 * @return the i map
+	 */
+	@operator (
+			value = "edge_betweenness",
+			type = IType.MAP,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH },
+			concept = { IConcept.GRAPH })
+	@doc (
+			value = "returns a map containing for each edge (key), an estimate of its betweenness centrality (value), computed from the shortest paths leaving a random sample of vertices (right-hand operand) and scaled to the whole graph. Much faster than the exact edge betweenness on large graphs",
+			examples = { @example (
+					value = "edge_betweenness(graphEpidemio, 100)",
+					equals = "an estimate of the edge betweenness index of the graph",
+					test = false) },
+			see = { "betweenness_centrality" })
+	@no_test
+	public static IMap edgeBetweenness(final IScope scope, final IGraph graph, final Integer samples) {
+		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		final IMap mapResult = GamaMapFactory.create(graph.getGamlType().getContentType(), Types.FLOAT);
+		final CompactGraph compact = compactGraphOf(graph);
+		final int[] counts = new int[compact.edgeCount()];
+		final double scale = countSampledShortestPaths(scope, compact, samples, null, counts);
+		for (int k = 0; k < counts.length; k++) { mapResult.put(compact.edge(k), counts[k] * scale); }
+		return mapResult;
+	}
+
+	/**
+	 * Counts the shortest paths leaving a random sample of sources, and returns the factor by which the counts must be
+	 * multiplied to estimate the ones of all the sources.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param compact
+	 *            the compact graph
+	 * @param samples
+	 *            the number of sources
+	 * @param vertexCounts
+	 *            the counts of the vertices (can be null)
+	 * @param edgeCounts
+	 *            the counts of the edges (can be null)
+	 * @return the scale of the counts
+	 */
+	private static double countSampledShortestPaths(final IScope scope, final CompactGraph compact,
+			final Integer samples, final int[] vertexCounts, final int[] edgeCounts) {
+		if (samples == null || samples <= 0)
+			throw GamaRuntimeException.error("The number of samples must be positive", scope);
+		final int n = compact.vertexCount();
+		final int[] sources = compact.allSources();
+		if (samples >= n) {
+			compact.countShortestPaths(sources, false, vertexCounts, edgeCounts);
+			return 1d;
 		}
+		scope.getRandom().shuffleInPlace(sources);
+		// Every path leaving a sampled source is counted: in an undirected graph, each pair is then counted twice
+		compact.countShortestPaths(Arrays.copyOf(sources, samples), true, vertexCounts, edgeCounts);
+		return (double) n / samples / (compact.isDirected() ? 1 : 2);
+	}
+
+	/**
+	 * Closeness centrality.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @return the i map
+	 */
+	@operator (
+			value = "closeness_centrality",
+			type = IType.MAP,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH },
+			concept = { IConcept.GRAPH })
+	@doc (
+			value = "returns a map containing for each vertex (key), its closeness centrality (value): the number of vertices it reaches divided by the sum of the lengths of the shortest paths to them (i.e., in a connected graph, the inverse of its mean distance to the other vertices). The paths are the ones leaving the vertex if the graph is directed",
+			examples = { @example (
+					value = "closeness_centrality(graphEpidemio)",
+					equals = "the closeness centrality index of the graph",
+					test = false) },
+			special_cases = { "Returns 0 for a vertex that reaches no other vertex" },
+			see = { "harmonic_centrality", "betweenness_centrality" })
+	@no_test
+	public static IMap closenessCentrality(final IScope scope, final IGraph graph) {
+		return centralities(scope, graph, true);
+	}
+
+	/**
+	 * Harmonic centrality.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @return the i map
+	 */
+	@operator (
+			value = "harmonic_centrality",
+			type = IType.MAP,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH },
+			concept = { IConcept.GRAPH })
+	@doc (
+			value = "returns a map containing for each vertex (key), its harmonic centrality (value): the sum of the inverses of the lengths of the shortest paths to the other vertices, divided by their number. Unlike the closeness centrality, it is meaningful in disconnected graphs. The paths are the ones leaving the vertex if the graph is directed",
+			examples = { @example (
+					value = "harmonic_centrality(graphEpidemio)",
+					equals = "the harmonic centrality index of the graph",
+					test = false) },
+			see = { "closeness_centrality", "betweenness_centrality" })
+	@no_test
+	public static IMap harmonicCentrality(final IScope scope, final IGraph graph) {
+		return centralities(scope, graph, false);
+	}
+
+	/**
+	 * Computes the closeness or the harmonic centrality of all the vertices.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @param closeness
+	 *            true for the closeness, false for the harmonic centrality
+	 * @return the map of the centralities
+	 */
+	private static IMap centralities(final IScope scope, final IGraph graph, final boolean closeness) {
+		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		final IMap mapResult = GamaMapFactory.create(graph.getGamlType().getKeyType(), Types.FLOAT);
+		final CompactGraph compact = compactGraphOf(graph);
+		final double[] values = new double[compact.vertexCount()];
+		compact.centralitiesOf(compact.allSources(), closeness ? values : null, closeness ? null : values);
+		for (int i = 0; i < values.length; i++) { mapResult.put(compact.vertex(i), values[i]); }
 		return mapResult;
 	}
 
+	/**
+	 * Returns the compact copy of the graph kept by its path computer, or a new one if the path computer does not keep
+	 * one.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the compact graph
+	 */
+	static CompactGraph compactGraphOf(final IGraph graph) {
+		if (graph.getPathComputer() instanceof PathComputer pc) return pc.getCompactGraph();
+		return new CompactGraph(graph);
+	}
+
 	/**
 	 * Neighbors of.
 	 *
@@ -1679,13 +1877,17 @@ public class Graphs {
 	 */
 	public static IGraph spatialLineIntersectionTriangle(final IScope scope, final IContainer vertices) {
 		final IGraph g = new GamaSpatialGraph(scope, vertices.getGamlType().getContentType(), Types.GEOMETRY);
-		for (final Object o : vertices.iterable(scope)) { g.addVertex(o); }
-		for (final Object o1 : vertices.iterable(scope)) {
-			final Coordinate[] coord1 = ((IShape) o1).getInnerGeometry().getCoordinates();
-			for (final Object o2 : vertices.iterable(scope)) {
-				final Coordinate[] coord2 = ((IShape) o2).getInnerGeometry().getCoordinates();
-				if (o1 != o2 && lineInter(coord1, coord2)) { g.addEdge(o1, o2); }
-			}
+		final List<IShape> triangles = new ArrayList<>();
+		for (final Object o : vertices.iterable(scope)) {
+			g.addVertex(o);
+			triangles.add((IShape) o);
+		}
+		// Triangles that share a side have intersecting envelopes: only those are compared
+		final IShape[] shapes = triangles.toArray(new IShape[triangles.size()]);
+		final int[][] related = RelatedVertices.of(shapes, 0, false, 0, (o1, o2) -> o1 != o2
+				&& lineInter(o1.getInnerGeometry().getCoordinates(), o2.getInnerGeometry().getCoordinates()));
+		for (int i = 0; i < shapes.length; i++) {
+			for (final int j : related[i]) { g.addEdge(shapes[i], shapes[j]); }
 		}
 		return g;
 	}
@@ -1960,6 +2162,63 @@ public class Graphs {
 		return g;
 	}
 
+	/**
+	 * Sets the maximum memory used by the cache of shortest paths.
+	 *
+	 * @param g
+	 *            the g
+	 * @param megabytes
+	 *            the maximum memory in MB
+	 * @return the i graph
+	 */
+	@operator (
+			value = "with_cache_memory",
+			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
+			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
+	@doc (
+			value = "limits the memory (in MB) used by the cache of shortest paths of the operand graph. When the limit is reached, the least recently used paths are removed from the cache. 0 or a negative value removes the limit. The default value is defined in the preferences.",
+			comment = "WARNING / side effect: this operator modifies the operand and does not create a new graph.",
+			examples = @example (
+					value = "road_network <- road_network with_cache_memory 256;",
+					isExecutable = false),
+			see = { "use_cache", "cache_statistics" })
+	@no_test
+	public static IGraph setCacheMemoryForShortestPaths(final IGraph g, final int megabytes) {
+		g.getPathComputer().setCacheMaxMemory(megabytes);
+		return g;
+	}
+
+	/**
+	 * Statistics of the cache of shortest paths.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param g
+	 *            the g
+	 * @return the i map
+	 */
+	@operator (
+			value = "cache_statistics",
+			type = IType.MAP,
+			index_type = IType.STRING,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
+			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
+	@doc (
+			value = "returns the statistics of the cache of shortest paths of the graph: 'size' (the number of pairs of vertices cached), 'hits' and 'misses' (the number of times a path has been or has not been found in the cache), 'hit_rate' and 'evictions' (the number of paths removed because of the memory limit)",
+			examples = @example (
+					value = "write cache_statistics(road_network)[\"hit_rate\"];",
+					isExecutable = false),
+			see = { "use_cache", "with_cache_memory" })
+	@no_test
+	public static IMap<String, Double> cacheStatistics(final IScope scope, final IGraph g) {
+		if (g == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		final IMap<String, Double> result = GamaMapFactory.create(Types.STRING, Types.FLOAT);
+		final Map<String, Number> stats = g.getPathComputer().getCacheStatistics();
+		for (final Map.Entry<String, Number> e : stats.entrySet()) { result.put(e.getKey(), e.getValue().doubleValue()); }
+		return result;
+	}
+
 	/**
 	 * As directed graph.
 	 *
@@ -2129,7 +2388,7 @@ public class Graphs {
 					IConcept.ALGORITHM })
 	@doc (
 			value = "changes the shortest path computation algorithm of the given graph",
-			comment = "the right-hand operand can be #Djikstra, #BidirectionalDijkstra, #BellmannFord, #FloydWarshall, #Astar, #NBAStar, #NBAStarApprox, #DeltaStepping, #CHBidirectionalDijkstra, #TransitNodeRouting to use the associated algorithm. ",
+			comment = "the right-hand operand can be #Djikstra, #BidirectionalDijkstra, #BellmannFord, #FloydWarshall, #Astar, #NBAStar, #NBAStarApprox, #DeltaStepping, #CHBidirectionalDijkstra, #TransitNodeRouting to use the associated algorithm. #CHBidirectionalDijkstra and #TransitNodeRouting preprocess the graph once, at the first path computed, which makes the following queries much faster on large static graphs (e.g. road networks); this preprocessing is done again after each modification of the graph. #Djikstra and #BidirectionalDijkstra (the default) search a compact copy of the graph once it has been queried 16 times without being modified: the paths found have the same length, but, when several shortest paths exist between two vertices, the one returned may differ from the one returned before the switch. ",
 			examples = @example (
 					value = "road_network <- road_network with_shortestpath_algorithm #TransitNodeRouting;",
 					isExecutable = false))
@@ -2364,6 +2623,110 @@ public class Graphs {
 				(IShape) sourTarg.value(), k);
 	}
 
+	/**
+	 * Paths from a source to several targets.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @param source
+	 *            the source
+	 * @param targets
+	 *            the targets
+	 * @return the i list
+	 */
+	@operator (
+			value = "paths_from",
+			type = IType.LIST,
+			content_type = IType.PATH,
+			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
+			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
+	@doc (
+			value = "The shortest paths from a source to each of the targets in a graph, computed with only one search of the graph (much faster than calling path_between for each target). In a spatial graph, a source or target that is not a vertex is replaced by the vertex closest to its location.",
+			special_cases = { "The path to a target that cannot be reached is nil." },
+			examples = { @example (
+					value = "paths_from(road_network, home, list(shop))",
+					equals = "the list of the shortest paths from home to each shop",
+					isExecutable = false) },
+			see = { "path_between", "distances_from", "distance_matrix" })
+	@no_test
+	public static IList<IPath> pathsFrom(final IScope scope, final IGraph graph, final Object source,
+			final IContainer targets) {
+		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		return graph.getPathComputer().computeShortestPathsFrom(scope, source,
+				targets.listValue(scope, Types.NO_TYPE, false));
+	}
+
+	/**
+	 * Distances from a source to several targets.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @param source
+	 *            the source
+	 * @param targets
+	 *            the targets
+	 * @return the i list
+	 */
+	@operator (
+			value = "distances_from",
+			type = IType.LIST,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
+			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
+	@doc (
+			value = "The lengths (sums of the weights of the edges) of the shortest paths from a source to each of the targets in a graph, computed with only one search of the graph. In a spatial graph, a source or target that is not a vertex is replaced by the vertex closest to its location.",
+			special_cases = { "The distance to a target that cannot be reached is #infinity." },
+			examples = { @example (
+					value = "distances_from(road_network, home, list(shop))",
+					equals = "the list of the distances from home to each shop on the road network",
+					isExecutable = false) },
+			see = { "paths_from", "distance_matrix" })
+	@no_test
+	public static IList<Double> distancesFrom(final IScope scope, final IGraph graph, final Object source,
+			final IContainer targets) {
+		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		return graph.getPathComputer().computeDistancesFrom(scope, source,
+				targets.listValue(scope, Types.NO_TYPE, false));
+	}
+
+	/**
+	 * Origin-destination matrix.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @param graph
+	 *            the graph
+	 * @param sources
+	 *            the sources
+	 * @param targets
+	 *            the targets
+	 * @return the i matrix
+	 */
+	@operator (
+			value = "distance_matrix",
+			type = IType.MATRIX,
+			content_type = IType.FLOAT,
+			category = { IOperatorCategory.GRAPH, IOperatorCategory.PATH },
+			concept = { IConcept.GRAPH, IConcept.SHORTEST_PATH })
+	@doc (
+			value = "The matrix of the lengths of the shortest paths between the sources and the targets in a graph (origin-destination matrix): the element at column j and row i is the distance from the i-th source to the j-th target. One search of the graph is done per source, and the sources are processed in parallel. In a spatial graph, a source or target that is not a vertex is replaced by the vertex closest to its location.",
+			special_cases = { "The distance to a target that cannot be reached is #infinity." },
+			examples = { @example (
+					value = "matrix<float> od <- distance_matrix(road_network, list(home), list(workplace));",
+					isExecutable = false) },
+			see = { "paths_from", "distances_from" })
+	@no_test
+	public static IMatrix<Double> distanceMatrix(final IScope scope, final IGraph graph, final IContainer sources,
+			final IContainer targets) {
+		if (graph == null) throw GamaRuntimeException.error("The graph is nil", scope);
+		return graph.getPathComputer().computeDistanceMatrix(scope, sources.listValue(scope, Types.NO_TYPE, false),
+				targets.listValue(scope, Types.NO_TYPE, false));
+	}
+
 	/**
 	 * Max flow between.
 	 *
@@ -10,17 +10,51 @@
  ********************************************************************************************************/
 package gama.extension.serialize.binary;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
+import gama.api.GAMA;
+import gama.api.exceptions.GamaRuntimeException;
+import gama.api.runtime.scope.IScope;
+import gama.api.utils.files.CompressionUtils;
+import gama.api.utils.interfaces.IDisposable;
+import gama.api.utils.prefs.GamaPreferences;
 import gama.dev.DEBUG;
-import gama.extension.serialize.binary.SimulationHistory.SimulationHistoryNode;
 
 /**
- * The Class SimulationHistory.
+ * The history of the states of a simulation, used to step back. States are stored as a stack of compressed entries:
+ * every {@link #KEYFRAME_INTERVAL} entries, a full state (keyframe), and in between, the binary difference with the
+ * previous state (a xor, which is mostly made of zeros when few things change and compresses very well). When the
+ * memory occupied by the entries exceeds the preference {@link GamaPreferences.Runtime#CORE_HISTORY_MEMORY}, the
+ * oldest ones are moved to a temporary file, from which they are read back (through a memory mapping) when the
+ * simulation steps back to them.
+ *
+ * <p>
+ * The states are compressed and stored by a single background thread shared by all the histories. At most
+ * {@link #MAX_PENDING} states can wait to be stored: beyond, {@link #push(byte[], int)} blocks until the writer catches
+ * up, so that states cannot pile up in memory.
+ * </p>
+ *
+ * <p>
+ * The history is disposed with its simulation, which deletes the temporary file. If this file cannot be read back, the
+ * whole history is dropped. If a state cannot be stored, the history is dropped as well, the error is reported through
+ * the scope of the simulation and no more states are recorded.
+ * </p>
  */
-public class SimulationHistory extends LinkedList<SimulationHistoryNode> {
+public class SimulationHistory implements IDisposable {
 
 	/**
 	 * The Record SimulationHistoryNode.
@@ -31,11 +65,324 @@ public class SimulationHistory extends LinkedList<SimulationHistoryNode> {
 		DEBUG.OFF();
 	}
 
-	/** The executor. */
-	final ExecutorService executor = Executors.newCachedThreadPool();
+	/** The number of entries from one keyframe to the next. */
+	static final int KEYFRAME_INTERVAL = 10;
+
+	/** The maximum number of states waiting to be stored, per history. */
+	static final int MAX_PENDING = 2;
+
+	/** The background thread that compresses and stores the states of all the histories. */
+	static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+		final Thread t = new Thread(r, "GAMA-History-Writer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * An entry of the history. Its data is either in memory or, if {@code data} is null, in the spill file.
+	 */
+	static final class Entry {
+
+		/** The cycle. */
+		final long cycle;
+
+		/** Whether the entry contains a full state or a difference with the previous one. */
+		final boolean keyframe;
+
+		/** The compressed data, null if the entry has been spilled to disk. */
+		byte[] data;
+
+		/** The size of the compressed data. */
+		final int size;
+
+		/** The position of the data in the spill file. */
+		long offset = -1;
+
+		/**
+		 * Instantiates a new entry.
+		 */
+		Entry(final long cycle, final boolean keyframe, final byte[] data) {
+			this.cycle = cycle;
+			this.keyframe = keyframe;
+			this.data = data;
+			this.size = data.length;
+		}
+	}
+
+	/** The entries, from the oldest to the most recent. The first {@link #spilled} ones are on disk. */
+	final List<Entry> entries = new ArrayList<>();
+
+	/** The number of entries stored in the spill file. */
+	int spilled;
+
+	/** The number of bytes of the entries kept in memory. */
+	long memory;
+
+	/** The full state of the most recent entry, from which the next difference is computed. */
+	byte[] lastState;
+
+	/** The file in which the oldest entries are spilled. */
+	FileChannel spill;
+
+	/** The number of states that can still be submitted to the writer. */
+	final Semaphore pending = new Semaphore(MAX_PENDING);
+
+	/** The last state submitted to the writer. */
+	volatile Future<?> lastTask;
 
+	/** The scope of the simulation, through which the failures are reported. */
+	final IScope scope;
+
+	/** The failure that has stopped the history, if it has not been reported yet. */
+	volatile Throwable failure;
+
+	/** Whether the history has stopped recording states after a failure. */
+	volatile boolean stopped;
+
+	/**
+	 * Instantiates a new simulation history.
+	 *
+	 * @param scope
+	 *            the scope of the simulation
+	 */
+	public SimulationHistory(final IScope scope) {
+		this.scope = scope;
+	}
+
+	/**
+	 * Pushes the state of the simulation at this cycle. Returns as soon as the writer has accepted it. Does nothing if
+	 * the history has stopped recording states.
+	 *
+	 * @param state
+	 *            the serialised state
+	 * @param cycle
+	 *            the cycle
+	 */
 	public void push(final byte[] state, final int cycle) {
-		executor.execute(() -> { push(new SimulationHistoryNode(state, cycle)); });
+		reportFailure();
+		if (stopped) return;
+		pending.acquireUninterruptibly();
+		try {
+			lastTask = WRITER.submit(() -> {
+				try {
+					store(state, cycle);
+				} catch (Throwable e) {
+					fail(e);
+				} finally {
+					pending.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pending.release();
+			try {
+				store(state, cycle);
+			} catch (Throwable t) {
+				fail(t);
+			}
+			reportFailure();
+		}
+	}
+
+	/**
+	 * Drops the states of the history and stops recording new ones after a failure, which is reported by the next call
+	 * to {@link #push(byte[], int)} or {@link #pop(IScope)}.
+	 */
+	synchronized void fail(final Throwable e) {
+		if (!stopped) { failure = e; }
+		stopped = true;
+		clear();
+	}
+
+	/**
+	 * Reports the failure that has stopped the history, if it has not been reported yet.
+	 */
+	private void reportFailure() {
+		final Throwable e = failure;
+		if (e == null) return;
+		failure = null;
+		GAMA.reportError(scope, GamaRuntimeException.create(e, scope), false);
+	}
+
+	/**
+	 * Removes the most recent state and returns it.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the state, or null if the history is empty
+	 * @throws GamaRuntimeException
+	 *             if the previous state cannot be read back from the spill file, in which case the history is dropped
+	 */
+	public SimulationHistoryNode pop(final IScope scope) throws GamaRuntimeException {
+		awaitPending();
+		reportFailure();
+		synchronized (this) {
+			if (entries.isEmpty()) return null;
+			final Entry top = entries.remove(entries.size() - 1);
+			final SimulationHistoryNode result = new SimulationHistoryNode(lastState, top.cycle);
+			discard(top);
+			try {
+				lastState = entries.isEmpty() ? null : rebuildLastState();
+			} catch (final IOException e) {
+				clear();
+				throw GamaRuntimeException.create(e, scope);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Drops the states of the history and deletes its spill file.
+	 */
+	@Override
+	public void dispose() {
+		awaitPending();
+		synchronized (this) {
+			clear();
+		}
+	}
+
+	/**
+	 * Removes all the entries and closes the spill file, which deletes it.
+	 */
+	private void clear() {
+		entries.clear();
+		spilled = 0;
+		memory = 0;
+		lastState = null;
+		if (spill == null) return;
+		try {
+			spill.close();
+		} catch (final IOException e) {
+			e.printStackTrace();
+		}
+		spill = null;
+	}
+
+	/**
+	 * The number of states in the history, including the ones waiting to be stored.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		awaitPending();
+		synchronized (this) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Waits until the states already pushed are stored.
+	 */
+	private void awaitPending() {
+		final Future<?> task = lastTask;
+		if (task == null) return;
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			fail(e.getCause());
+		}
+	}
+
+	/**
+	 * Compresses and stores a state.
+	 */
+	synchronized void store(final byte[] state, final long cycle) {
+		if (stopped) return;
+		int sinceKeyframe = 0;
+		for (int i = entries.size() - 1; i >= 0 && !entries.get(i).keyframe; i--) { sinceKeyframe++; }
+		final boolean keyframe = lastState == null || sinceKeyframe >= KEYFRAME_INTERVAL - 1;
+		final Entry entry = new Entry(cycle, keyframe, CompressionUtils.zip(keyframe ? state : xor(lastState, state)));
+		entries.add(entry);
+		memory += entry.size;
+		lastState = state;
+		final long max = GamaPreferences.Runtime.CORE_HISTORY_MEMORY.getValue() * 1024L * 1024L;
+		try {
+			// The most recent entry always stays in memory
+			while (max > 0 && memory > max && spilled < entries.size() - 1) { spillOldest(); }
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Rebuilds the full state of the most recent entry from the last keyframe and the following differences.
+	 */
+	private byte[] rebuildLastState() throws IOException {
+		int k = entries.size() - 1;
+		while (k > 0 && !entries.get(k).keyframe) { k--; }
+		byte[] state = CompressionUtils.unzip(read(entries.get(k)));
+		for (int i = k + 1; i < entries.size(); i++) {
+			state = xor(state, CompressionUtils.unzip(read(entries.get(i))));
+		}
+		return state;
+	}
+
+	/**
+	 * The difference between two states, or the state obtained by applying a difference to the previous one: the bytes
+	 * are xored on their common length, the rest is copied from the second array (whose length is the one of the
+	 * result).
+	 */
+	static byte[] xor(final byte[] previous, final byte[] bytes) {
+		final byte[] result = new byte[bytes.length];
+		final int common = Math.min(previous.length, bytes.length);
+		for (int i = 0; i < common; i++) { result[i] = (byte) (previous[i] ^ bytes[i]); }
+		System.arraycopy(bytes, common, result, common, bytes.length - common);
+		return result;
+	}
+
+	/**
+	 * Moves the oldest entry still in memory to the spill file.
+	 */
+	private void spillOldest() throws IOException {
+		if (spill == null) {
+			final Path file = Files.createTempFile("gama-history", ".bin");
+			file.toFile().deleteOnExit();
+			spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+		}
+		final Entry entry = entries.get(spilled);
+		final long offset = spill.size();
+		final ByteBuffer buffer = ByteBuffer.wrap(entry.data);
+		while (buffer.hasRemaining()) { spill.write(buffer, offset + buffer.position()); }
+		entry.offset = offset;
+		entry.data = null;
+		memory -= entry.size;
+		spilled++;
+	}
+
+	/**
+	 * Reads the compressed data of an entry.
+	 */
+	private byte[] read(final Entry entry) throws IOException {
+		if (entry.data != null) return entry.data;
+		final MappedByteBuffer buffer = spill.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.size);
+		final byte[] result = new byte[entry.size];
+		buffer.get(result);
+		return result;
+	}
+
+	/**
+	 * Releases the memory or the disk space occupied by an entry removed from the top of the history.
+	 */
+	private void discard(final Entry entry) {
+		if (entry.data != null) {
+			memory -= entry.size;
+			return;
+		}
+		// Spilled entries are written in chronological order: the most recent one is at the end of the file
+		spilled--;
+		try {
+			if (spilled == 0) {
+				spill.close();
+				spill = null;
+			} else {
+				spill.truncate(entry.offset);
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
 	}
 
 }
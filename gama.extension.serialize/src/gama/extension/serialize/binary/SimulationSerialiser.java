@@ -10,7 +10,6 @@
  ********************************************************************************************************/
 package gama.extension.serialize.binary;
 
-import java.util.LinkedList;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -97,7 +96,7 @@ public class SimulationSerialiser implements IExperimentRecorder, ISerialisation
 	private SimulationHistory getSimulationHistory(final ISimulationAgent sim) {
 		SimulationHistory history = (SimulationHistory) sim.getAttribute(SerialisedAgent.HISTORY_KEY);
 		if (history == null) {
-			history = new SimulationHistory();
+			history = new SimulationHistory(sim.getScope());
 			sim.setAttribute(SerialisedAgent.HISTORY_KEY, history);
 		}
 		return history;
@@ -116,9 +115,9 @@ public class SimulationSerialiser implements IExperimentRecorder, ISerialisation
 		final ReentrantLock l = lockFor(sim);
 		l.lock();
 		try {
-			LinkedList<SimulationHistoryNode> history = getSimulationHistory(sim);
-			SimulationHistoryNode node = history.pop();
-			if (node != null && node.cycle() == sim.getClock().getCycle()) { node = history.pop(); }
+			SimulationHistory history = getSimulationHistory(sim);
+			SimulationHistoryNode node = history.pop(sim.getScope());
+			if (node != null && node.cycle() == sim.getClock().getCycle()) { node = history.pop(sim.getScope()); }
 			if (node != null) {
 				processor.restoreAgentFromBytes(sim, node.bytes());
 			}
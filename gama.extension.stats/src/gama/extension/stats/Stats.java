@@ -69,6 +69,7 @@ import gama.api.types.matrix.IMatrix;
 import gama.api.types.misc.IContainer;
 import gama.api.utils.StringUtils;
 import gama.api.utils.collections.Collector;
+import gama.core.population.ColumnarPopulation;
 import gama.core.util.matrix.GamaField;
 import gama.extension.stats.analysis.GamaAnova;
 import gama.extension.stats.analysis.GamaRegression;
@@ -3372,6 +3373,11 @@ public class Stats {
 	@test ("[1,2] mean_of (each * 10 ) = 15")
 	public static Object opMeanOf(final IScope scope, final String eachName, final IContainer container,
 			final IExpression filter) {
+		final ColumnarPopulation<?> columnar = ColumnarPopulation.of(scope, container);
+		if (columnar != null) {
+			final Double mean = columnar.meanOf(eachName, filter);
+			if (mean != null) return mean;
+		}
 		return Containers.opMean(scope, collect(scope, eachName, container, filter));
 	}
 
@@ -50,7 +50,7 @@ import gama.api.utils.collections.ICollector;
  * @author drogoul 23 august 07
  */
 @SuppressWarnings ({ "rawtypes" })
-public abstract class AbstractNAryOperator extends AbstractExpression implements IOperator {
+public abstract class AbstractNAryOperator extends AbstractOperator {
 
 	/** The exprs. */
 	public final IExpression[] exprs;
@@ -362,7 +362,9 @@ public abstract class AbstractNAryOperator extends AbstractExpression implements
 	}
 
 	@Override
-	public Object _value(final IScope scope) throws GamaRuntimeException {
+	protected Object evaluate(final IScope scope) throws GamaRuntimeException {
+		final Object result = compiledValue(scope);
+		if (result != OperatorCompiler.NONE) return result;
 		final Object[] values = new Object[exprs == null ? 0 : exprs.length];
 		try {
 			for (int i = 0; i < values.length; i++) {
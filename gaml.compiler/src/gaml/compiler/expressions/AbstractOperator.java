@@ -0,0 +1,85 @@
+/*******************************************************************************************************
+ *
+ * AbstractOperator.java, in gaml.compiler, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.compiler.expressions;
+
+import java.lang.invoke.MethodHandle;
+
+import gama.api.exceptions.GamaRuntimeException;
+import gama.api.gaml.expressions.IOperator;
+import gama.api.runtime.scope.IScope;
+
+/**
+ * What the unary and n-ary operators have in common: the values of the subexpressions they share, computed once per
+ * evaluation (see {@link ExpressionOptimizer}), and their compiled version, used once they have been evaluated
+ * {@link OperatorCompiler#THRESHOLD} times (see {@link OperatorCompiler}).
+ *
+ * @author drogoul
+ */
+public abstract class AbstractOperator extends AbstractExpression implements IOperator {
+
+	/** The number of evaluations of this operator, or -1 once it has been compiled or cannot be. */
+	int evaluations;
+
+	/** The compiled version of this operator (see {@link OperatorCompiler}). Null if not compiled. */
+	volatile MethodHandle compiled;
+
+	/** The values of the subexpressions shared by this operator (see {@link ExpressionOptimizer}). Null if none. */
+	SharedExpression.Values shared;
+
+	@Override
+	public Object _value(final IScope scope) throws GamaRuntimeException {
+		if (shared == null) return evaluate(scope);
+		final SharedExpression.Frames frames = shared.open();
+		try {
+			return evaluate(scope);
+		} finally {
+			shared.close(frames);
+		}
+	}
+
+	/**
+	 * Evaluates this operator.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the value
+	 * @throws GamaRuntimeException
+	 *             the gama runtime exception
+	 */
+	protected abstract Object evaluate(final IScope scope) throws GamaRuntimeException;
+
+	/**
+	 * Evaluates the compiled version of this operator, compiling it once it has been evaluated
+	 * {@link OperatorCompiler#THRESHOLD} times.
+	 *
+	 * @param scope
+	 *            the scope
+	 * @return the value, or {@link OperatorCompiler#NONE} if the operator has to be interpreted
+	 */
+	protected Object compiledValue(final IScope scope) {
+		if (!OperatorCompiler.isEnabled()) return OperatorCompiler.NONE;
+		final MethodHandle c = compiled;
+		if (c != null) {
+			try {
+				return OperatorCompiler.invoke(c, scope);
+			} catch (final Throwable e) {
+				// The interpreter evaluates it again (without side effects) and reports the error, if any
+				compiled = null;
+				evaluations = -1;
+			}
+		} else if (evaluations >= 0 && ++evaluations == OperatorCompiler.THRESHOLD) {
+			compiled = OperatorCompiler.compile(this);
+			evaluations = -1;
+		}
+		return OperatorCompiler.NONE;
+	}
+
+}
@@ -28,12 +28,16 @@ import gama.api.gaml.types.IType;
 import gama.api.kernel.object.IObject;
 import gama.api.runtime.scope.IScope;
 import gama.api.utils.StringUtils;
+import gama.api.utils.benchmark.StopWatch;
 
 /**
  * The Class BinaryOperator.
  */
 public class BinaryOperator extends AbstractNAryOperator {
 
+	/** The primitive version of this operator, if any (arithmetic and comparisons on int and float). */
+	final PrimitiveOperator primitive;
+
 	/**
 	 * Creates the.
 	 *
@@ -111,6 +115,7 @@ public class BinaryOperator extends AbstractNAryOperator {
 	public BinaryOperator(final IArtefact.Operator proto, final IDescription context, final IExpression... args) {
 		super(proto, args);
 		if (context != null) { prototype.verifyExpectedTypes(context, exprs[1].getGamlType()); }
+		primitive = PrimitiveOperator.of(prototype);
 	}
 
 	@Override
@@ -143,9 +148,12 @@ public class BinaryOperator extends AbstractNAryOperator {
 	}
 
 	@Override
-	public Object _value(final IScope scope) throws GamaRuntimeException {
+	protected Object evaluate(final IScope scope) throws GamaRuntimeException {
+		final Object compiledResult = compiledValue(scope);
+		if (compiledResult != OperatorCompiler.NONE) return compiledResult;
 		Object leftVal = null, rightVal = null;
 		try {
+			if (primitive != null) return primitive.value(scope, exprs[0], exprs[1]);
 			leftVal = prototype.getLazyness()[0] ? exprs[0] : exprs[0].value(scope);
 			rightVal = prototype.getLazyness()[1] ? exprs[1] : exprs[1].value(scope);
 			return prototype.getHelper().get(scope, leftVal, rightVal);
@@ -159,6 +167,30 @@ public class BinaryOperator extends AbstractNAryOperator {
 		}
 	}
 
+	@Override
+	public double valueAsDouble(final IScope scope) throws GamaRuntimeException {
+		if (primitive == null || primitive.isBoolean()) return super.valueAsDouble(scope);
+		try (StopWatch w = GAMA.benchmark(scope, this)) {
+			return primitive.doubleValue(scope, exprs[0], exprs[1]);
+		}
+	}
+
+	@Override
+	public int valueAsInt(final IScope scope) throws GamaRuntimeException {
+		if (primitive == null || !primitive.isInt()) return super.valueAsInt(scope);
+		try (StopWatch w = GAMA.benchmark(scope, this)) {
+			return primitive.intValue(scope, exprs[0], exprs[1]);
+		}
+	}
+
+	@Override
+	public boolean valueAsBoolean(final IScope scope) throws GamaRuntimeException {
+		if (primitive == null || !primitive.isBoolean()) return super.valueAsBoolean(scope);
+		try (StopWatch w = GAMA.benchmark(scope, this)) {
+			return primitive.booleanValue(scope, exprs[0], exprs[1]);
+		}
+	}
+
 	@Override
 	public BinaryOperator copy() {
 		if (exprs == null) return new BinaryOperator(prototype, null);
@@ -0,0 +1,232 @@
+/*******************************************************************************************************
+ *
+ * ExpressionOptimizer.java, in gaml.compiler, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.compiler.expressions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+
+import gama.api.compilation.artefacts.IArtefact;
+import gama.api.compilation.descriptions.IDescription;
+import gama.api.compilation.descriptions.ITypeDescription;
+import gama.api.compilation.descriptions.IVariableDescription;
+import gama.api.constants.IGamlIssue;
+import gama.api.gaml.GAML;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.expressions.IVarExpression;
+import gama.api.gaml.types.IType;
+import gama.api.utils.prefs.GamaPreferences;
+import gama.dev.DEBUG;
+
+/**
+ * The optimization pass applied to the expression of each facet once it has been compiled. Constant subtrees left by
+ * the construction of the operators are folded (if {@link GamaPreferences.Experimental#CONSTANT_OPTIMIZATION} is
+ * enabled) and the subexpressions that appear several times are computed only once per evaluation of the expression,
+ * their occurrences being replaced by a {@link SharedExpression} (if
+ * {@link GamaPreferences.Experimental#COMMON_SUBEXPRESSIONS} is enabled). What has been optimized is reported as an
+ * info of the description.
+ *
+ * <p>
+ * Only the expressions that cannot have side effects are considered: operators that can be constant (the same arguments
+ * give the same result), which are neither iterators nor lazy, applied to constants, variables and attributes (except
+ * the ones defined as functions or read by getters). The subexpressions shared are the ones that return an int, a
+ * float, a bool or a string, so that sharing their value cannot introduce aliasing. The largest ones are shared first.
+ * </p>
+ *
+ * @author drogoul
+ */
+public final class ExpressionOptimizer {
+
+	static {
+		DEBUG.OFF();
+	}
+
+	/**
+	 * Instantiates a new expression optimizer.
+	 */
+	private ExpressionOptimizer() {}
+
+	/**
+	 * Optimizes the expression of a facet.
+	 *
+	 * @param expression
+	 *            the expression, can be null
+	 * @param context
+	 *            the description in which it is compiled, which receives the report. Can be null
+	 * @param target
+	 *            the syntactic element of the expression, can be null
+	 * @return the expression (optimized in place)
+	 */
+	public static IExpression optimize(final IExpression expression, final IDescription context,
+			final EObject target) {
+		if (!isOperator(expression) || !isPure(expression)) return expression;
+		final List<String> report = new ArrayList<>();
+		if (GamaPreferences.Experimental.CONSTANT_OPTIMIZATION.getValue()) { fold(expression, report); }
+		if (GamaPreferences.Experimental.COMMON_SUBEXPRESSIONS.getValue()) { share(expression, report); }
+		if (!report.isEmpty()) {
+			DEBUG.OUT("Optimized " + expression.serializeToGaml(false) + ": " + report);
+			if (context != null) {
+				context.info("Optimized: " + String.join(", ", report), IGamlIssue.OPTIMIZED, target);
+			}
+		}
+		return expression;
+	}
+
+	/**
+	 * Whether an expression is an operator with arguments that can be replaced.
+	 */
+	private static boolean isOperator(final IExpression e) {
+		return e instanceof UnaryOperator || e instanceof AbstractNAryOperator n && n.exprs != null;
+	}
+
+	/**
+	 * Whether an expression cannot have side effects.
+	 */
+	private static boolean isPure(final IExpression e) {
+		if (e == null) return false;
+		if (e.isConst()) return true;
+		if (e instanceof VariableExpression v) return isPlain(v);
+		if (e instanceof BinaryOperator.BinaryVarOperator b) return isPure(b.exprs[0]) && isPure(b.exprs[1]);
+		if (e instanceof UnaryOperator u) return isPure(u.prototype) && isPure(u.child);
+		final Class<?> c = e.getClass();
+		if (c != BinaryOperator.class && c != NAryOperator.class) return false;
+		final AbstractNAryOperator n = (AbstractNAryOperator) e;
+		if (n.exprs == null || !isPure(n.prototype)) return false;
+		for (final IExpression arg : n.exprs) { if (!isPure(arg)) return false; }
+		return true;
+	}
+
+	/**
+	 * Whether reading a variable does not run any code: the attributes defined as functions (with '->') or read by a
+	 * getter are excluded, as they can return a different value each time they are read.
+	 */
+	private static boolean isPlain(final VariableExpression v) {
+		if (!(v instanceof IVarExpression.Agent)) return true;
+		final IDescription definition = v.getDefinitionDescription();
+		final ITypeDescription type = definition == null ? null : definition.getTypeContext();
+		final IVariableDescription var = type == null ? null : type.getAttribute(v.getName());
+		return var != null && !var.isFunction() && var.getGetter() == null;
+	}
+
+	/**
+	 * Whether an operator cannot have side effects.
+	 */
+	private static boolean isPure(final IArtefact.Operator prototype) {
+		if (prototype == null || !prototype.canBeConst() || prototype.isIterator()) return false;
+		for (final boolean lazy : prototype.getLazyness()) { if (lazy) return false; }
+		return true;
+	}
+
+	/**
+	 * The arguments of an operator (see {@link #isOperator(IExpression)}).
+	 */
+	private static IExpression[] arguments(final IExpression e) {
+		return e instanceof UnaryOperator u ? new IExpression[] { u.child } : ((AbstractNAryOperator) e).exprs;
+	}
+
+	/**
+	 * Replaces an argument of an operator.
+	 */
+	private static void replace(final IExpression e, final int i, final IExpression arg) {
+		if (e instanceof UnaryOperator u) {
+			u.child = arg;
+		} else {
+			((AbstractNAryOperator) e).exprs[i] = arg;
+		}
+	}
+
+	/**
+	 * Folds the constant arguments that are not yet constant expressions.
+	 */
+	private static void fold(final IExpression e, final List<String> report) {
+		final IExpression[] args = arguments(e);
+		for (int i = 0; i < args.length; i++) {
+			final IExpression arg = args[i];
+			if (arg.isConst() && !(arg instanceof ConstantExpression)) {
+				final String name = arg.serializeToGaml(false);
+				replace(e, i, GAML.getExpressionFactory().createConst(arg.getConstValue(), arg.getGamlType(), name));
+				report.add(name + " folded");
+			} else if (isOperator(arg)) { fold(arg, report); }
+		}
+	}
+
+	/**
+	 * Shares the subexpressions that appear several times, the largest first.
+	 */
+	private static void share(final IExpression root, final List<String> report) {
+		final SharedExpression.Values values = new SharedExpression.Values();
+		while (true) {
+			final Map<String, Integer> occurrences = new HashMap<>();
+			visit(root, occurrences, Collections.newSetFromMap(new IdentityHashMap<>()));
+			String largest = null;
+			for (final Map.Entry<String, Integer> entry : occurrences.entrySet()) {
+				final String key = entry.getKey();
+				if (entry.getValue() > 1 && (largest == null || key.length() > largest.length())) { largest = key; }
+			}
+			if (largest == null) { break; }
+			final SharedExpression[] shared = new SharedExpression[1];
+			replace(root, largest, shared, values, Collections.newSetFromMap(new IdentityHashMap<>()));
+			values.size++;
+			report.add(largest + " computed once");
+		}
+		if (values.size > 0) { ((AbstractOperator) root).shared = values; }
+	}
+
+	/**
+	 * Whether an argument can be shared.
+	 */
+	private static boolean isShareable(final IExpression e) {
+		if (!isOperator(e) || e.isConst()) return false;
+		return switch (e.getGamlType().id()) {
+			case IType.INT, IType.FLOAT, IType.BOOL, IType.STRING -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Counts the occurrences of the arguments that can be shared (the expressions already shared are visited once).
+	 */
+	private static void visit(final IExpression e, final Map<String, Integer> occurrences,
+			final Set<IExpression> visited) {
+		for (final IExpression arg : arguments(e)) {
+			if (arg instanceof SharedExpression s) {
+				if (visited.add(s) && isOperator(s.expression)) { visit(s.expression, occurrences, visited); }
+			} else {
+				if (isShareable(arg)) { occurrences.merge(arg.serializeToGaml(true), 1, Integer::sum); }
+				if (isOperator(arg)) { visit(arg, occurrences, visited); }
+			}
+		}
+	}
+
+	/**
+	 * Replaces the occurrences of a subexpression by the same shared expression (created on the first occurrence).
+	 */
+	private static void replace(final IExpression e, final String key, final SharedExpression[] shared,
+			final SharedExpression.Values values, final Set<IExpression> visited) {
+		final IExpression[] args = arguments(e);
+		for (int i = 0; i < args.length; i++) {
+			final IExpression arg = args[i];
+			if (arg instanceof SharedExpression s) {
+				if (visited.add(s) && isOperator(s.expression)) { replace(s.expression, key, shared, values, visited); }
+			} else if (isShareable(arg) && key.equals(arg.serializeToGaml(true))) {
+				if (shared[0] == null) { shared[0] = new SharedExpression(arg, values.size, values); }
+				replace(e, i, shared[0]);
+			} else if (isOperator(arg)) { replace(arg, key, shared, values, visited); }
+		}
+	}
+
+}
@@ -143,7 +143,7 @@ public class GamlExpressionCompiler implements IExpressionCompiler<Expression> {
 				final IExecutionContext context = scope.getExecutionContext();
 				return compile(s.toString(), ctx.getContext(), context);
 			}
-			return compile(expression, ctx);
+			return ExpressionOptimizer.optimize(compile(expression, ctx), ctx.getContext(), expression);
 		} catch (final Exception e) {
 			if (parsingContext != null) {
 				parsingContext.error("An internal error occurred during expression compilation: " + e.getMessage());
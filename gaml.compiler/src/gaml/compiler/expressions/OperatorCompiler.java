@@ -0,0 +1,243 @@
+/*******************************************************************************************************
+ *
+ * OperatorCompiler.java, in gaml.compiler, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.compiler.expressions;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import gama.annotations.operator;
+import gama.api.compilation.artefacts.IArtefact;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.gaml.types.Cast;
+import gama.api.runtime.scope.IScope;
+import gama.api.utils.prefs.GamaPreferences;
+import gama.dev.DEBUG;
+
+/**
+ * Compiles the trees of operators that are evaluated often into method handles, which the JVM turns into bytecode and
+ * inlines like ordinary code. The Java methods of the operators are called directly, with their arguments converted
+ * as the helpers generated by the processor do ({@code asFloat}, {@code asInt}, {@code asBool} or a cast), but without
+ * the arrays of arguments, the checks of lazyness and the try/catch of each node, and with the primitive values
+ * returned by an operator passed as is to the next one.
+ *
+ * <p>
+ * Only the trees made of pure operators (the ones that can be constant, neither lazy nor iterators, defined by a
+ * public Java method) whose leaves are constants or variables are compiled, so that they can be evaluated again by the
+ * interpreter if the compiled version fails: the interpreter is then used for good, and reports the error as usual.
+ * Enabled by the preference {@link GamaPreferences.Experimental#EXPRESSION_COMPILATION}.
+ * </p>
+ *
+ * @author drogoul
+ */
+public final class OperatorCompiler {
+
+	static {
+		DEBUG.OFF();
+		GamaPreferences.Experimental.EXPRESSION_COMPILATION.onChange(v -> ENABLED = v);
+	}
+
+	/** Whether the compilation of expressions is enabled (the value of the preference, kept up to date). */
+	private static volatile boolean ENABLED = GamaPreferences.Experimental.EXPRESSION_COMPILATION.getValue();
+
+	/** The number of evaluations after which an operator is compiled. */
+	public static final int THRESHOLD = 1000;
+
+	/** The value returned when an operator has to be interpreted. */
+	public static final Object NONE = new Object();
+
+	/** The lookup. */
+	static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	/** The handles of the conversions and of the evaluation of an expression. */
+	static final MethodHandle AS_FLOAT, AS_INT, AS_BOOL, VALUE;
+
+	static {
+		try {
+			AS_FLOAT = LOOKUP.findStatic(Cast.class, "asFloat", methodType(Double.class, IScope.class, Object.class));
+			AS_INT = LOOKUP.findStatic(Cast.class, "asInt", methodType(Integer.class, IScope.class, Object.class));
+			AS_BOOL = LOOKUP.findStatic(Cast.class, "asBool", methodType(Boolean.class, IScope.class, Object.class));
+			VALUE = LOOKUP.findVirtual(IExpression.class, "value", methodType(Object.class, IScope.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Instantiates a new operator compiler.
+	 */
+	private OperatorCompiler() {}
+
+	/**
+	 * Whether the compilation of expressions is enabled.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled() { return ENABLED; }
+
+	/**
+	 * Compiles an operator and its arguments.
+	 *
+	 * @param expression
+	 *            the operator
+	 * @return a handle of type {@code (IScope)Object}, or null if the expression cannot be compiled
+	 */
+	public static MethodHandle compile(final IExpression expression) {
+		try {
+			final MethodHandle result = compileOperator(expression);
+			if (result == null) return null;
+			DEBUG.OUT("Compiled " + expression.serializeToGaml(false));
+			return result.asType(methodType(Object.class, IScope.class));
+		} catch (final Throwable e) {
+			DEBUG.ERR("Impossible to compile " + expression.serializeToGaml(false), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Evaluates the compiled version of an operator.
+	 *
+	 * @param handle
+	 *            the handle returned by {@link #compile(IExpression)}
+	 * @param scope
+	 *            the scope
+	 * @return the value
+	 * @throws Throwable
+	 *             any error raised by the operators
+	 */
+	public static Object invoke(final MethodHandle handle, final IScope scope) throws Throwable {
+		return (Object) handle.invokeExact(scope);
+	}
+
+	/**
+	 * Compiles an operator, i.e. an instance of {@link UnaryOperator}, {@link BinaryOperator} or {@link NAryOperator}
+	 * (but not of their subclasses, which evaluate themselves differently).
+	 *
+	 * @return a handle of type {@code (IScope)R}, where R is the return type of the Java method, or null
+	 */
+	private static MethodHandle compileOperator(final IExpression expression) throws Throwable {
+		final IArtefact.Operator prototype;
+		final IExpression[] args;
+		final Class<?> c = expression.getClass();
+		if (c == UnaryOperator.class) {
+			final UnaryOperator u = (UnaryOperator) expression;
+			prototype = u.prototype;
+			args = new IExpression[] { u.child };
+		} else if (c == BinaryOperator.class || c == NAryOperator.class) {
+			final AbstractNAryOperator n = (AbstractNAryOperator) expression;
+			prototype = n.prototype;
+			args = n.exprs == null ? new IExpression[0] : n.exprs;
+		} else
+			return null;
+		final Method method = compilableMethod(prototype);
+		if (method == null) return null;
+		final boolean isStatic = Modifier.isStatic(method.getModifiers());
+		final Class<?>[] declared = method.getParameterTypes();
+		final boolean hasScope = declared.length > 0 && declared[0] == IScope.class;
+		// The position of the scope in the handle (the receiver comes first for instance methods)
+		final int scopeIndex = hasScope ? isStatic ? 0 : 1 : -1;
+		MethodHandle target = LOOKUP.unreflect(method);
+		final Class<?>[] params = target.type().parameterArray();
+		if (params.length - (hasScope ? 1 : 0) != args.length) return null;
+		int arg = 0;
+		for (int p = 0; p < params.length; p++) {
+			if (p == scopeIndex) { continue; }
+			final MethodHandle argument = compileArgument(args[arg++], params[p], !isStatic && p == 0);
+			if (argument == null) return null;
+			// Replaces the parameter by the scope needed to compute it
+			target = MethodHandles.collectArguments(target, p, argument);
+		}
+		if (params.length == 0) return MethodHandles.dropArguments(target, 0, IScope.class);
+		return MethodHandles.permuteArguments(target, methodType(target.type().returnType(), IScope.class),
+				new int[params.length]);
+	}
+
+	/**
+	 * The Java method of an operator, if it can be compiled.
+	 */
+	private static Method compilableMethod(final IArtefact.Operator prototype) {
+		if (prototype == null || !prototype.canBeConst() || prototype.isIterator()) return null;
+		for (final boolean lazy : prototype.getLazyness()) { if (lazy) return null; }
+		final AnnotatedElement base = prototype.getJavaBase();
+		if (!(base instanceof Method m) || !m.isAnnotationPresent(operator.class) || m.isVarArgs()) return null;
+		if (!Modifier.isPublic(m.getModifiers()) || !Modifier.isPublic(m.getDeclaringClass().getModifiers()))
+			return null;
+		return m;
+	}
+
+	/**
+	 * Compiles an argument and converts its value to the type of the parameter, like the helpers of the operators.
+	 *
+	 * @return a handle of type {@code (IScope)P}, or null
+	 */
+	private static MethodHandle compileArgument(final IExpression expression, final Class<?> param,
+			final boolean receiver) throws Throwable {
+		MethodHandle value = compileOperator(expression);
+		if (value == null) {
+			if (expression.getClass() == ConstantExpression.class) {
+				value = MethodHandles.dropArguments(MethodHandles.constant(Object.class, expression.getConstValue()), 0,
+						IScope.class);
+			} else if (expression instanceof VariableExpression) {
+				value = VALUE.bindTo(expression);
+			} else
+				return null;
+		}
+		final Class<?> returned = value.type().returnType();
+		// Primitive values (which cannot be null) are passed directly when a widening is enough
+		if (returned.isPrimitive() && param.isPrimitive() && returned != boolean.class && param != boolean.class
+				&& wider(param, returned) || returned == boolean.class && param == boolean.class)
+			return value.asType(methodType(param, IScope.class));
+		final MethodHandle conversion;
+		if (receiver || param == Object.class) {
+			conversion = null;
+		} else if (param == Double.class || param == double.class) {
+			conversion = AS_FLOAT;
+		} else if (param == Integer.class || param == int.class || param == long.class) {
+			conversion = AS_INT;
+		} else if (param == Boolean.class || param == boolean.class) {
+			conversion = AS_BOOL;
+		} else if (param.isPrimitive())
+			return null;
+		else {
+			conversion = null;
+		}
+		if (conversion != null && expression.getClass() == ConstantExpression.class) {
+			// Constants are converted once and for all (the conversion of numbers and booleans ignores the scope)
+			final Object constant = expression.getConstValue();
+			if (constant == null || constant instanceof Number || constant instanceof Boolean) {
+				final Object converted = conversion.invoke((IScope) null, constant);
+				return MethodHandles.dropArguments(MethodHandles.constant(param, converted), 0, IScope.class);
+			}
+		}
+		value = value.asType(methodType(Object.class, IScope.class));
+		if (conversion == null) return value.asType(methodType(param, IScope.class));
+		// (IScope, IScope) -> X, then (IScope) -> X
+		final MethodHandle converted = MethodHandles.collectArguments(conversion, 1, value);
+		return MethodHandles.permuteArguments(converted, methodType(conversion.type().returnType(), IScope.class), 0, 0)
+				.asType(methodType(param, IScope.class));
+	}
+
+	/**
+	 * Whether a primitive type can receive the values of another one by a widening conversion (or identity).
+	 */
+	private static boolean wider(final Class<?> to, final Class<?> from) {
+		if (to == from) return true;
+		if (to == double.class) return from != boolean.class;
+		if (to == long.class) return from == int.class || from == short.class || from == byte.class;
+		if (to == int.class) return from == short.class || from == byte.class;
+		return false;
+	}
+
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************************************
+ *
+ * PrimitiveOperator.java, in gaml.compiler, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.compiler.expressions;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import gama.annotations.operator;
+import gama.annotations.constants.IKeyword;
+import gama.api.compilation.artefacts.IArtefact;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.runtime.scope.IScope;
+
+/**
+ * The primitive version of the arithmetic and comparison operators defined on int and float. Their operands are
+ * evaluated with {@link IExpression#valueAsInt(IScope)} or {@link IExpression#valueAsDouble(IScope)} (which convert
+ * them exactly like the helpers of the operators do) and the result is computed on primitive values, so that a chain
+ * of such operators allocates at most the result of its root.
+ *
+ * <p>
+ * The operations are recognized by the names declared in the {@code @operator} annotation of the Java method of the
+ * prototype, and only when they have no semantics of their own besides the Java arithmetic: the divisions (which raise
+ * an error on zero) and the equality of floats (which has a tolerance) are left to their Java methods.
+ * </p>
+ *
+ * @author drogoul
+ */
+final class PrimitiveOperator {
+
+	/**
+	 * The operations.
+	 */
+	enum Operation {
+
+		/** The arithmetic operations. */
+		PLUS, MINUS, TIMES,
+
+		/** The comparisons. */
+		GREATER, LESS, GREATER_OR_EQUAL, LESS_OR_EQUAL, EQUAL, DIFFERENT;
+
+		/**
+		 * Whether it is a comparison.
+		 */
+		boolean isComparison() { return ordinal() >= GREATER.ordinal(); }
+
+		/**
+		 * Whether it is an equality test.
+		 */
+		boolean isEquality() { return this == EQUAL || this == DIFFERENT; }
+	}
+
+	/** The operations, by name of operator. */
+	private static final Map<String, Operation> OPERATIONS = Map.of(IKeyword.PLUS, Operation.PLUS, IKeyword.MINUS,
+			Operation.MINUS, IKeyword.MULTIPLY, Operation.TIMES, ">", Operation.GREATER, "<", Operation.LESS, ">=",
+			Operation.GREATER_OR_EQUAL, "<=", Operation.LESS_OR_EQUAL, IKeyword.EQUALS, Operation.EQUAL, "!=",
+			Operation.DIFFERENT);
+
+	/** The operation. */
+	final Operation operation;
+
+	/** Whether the left and right operands are ints (otherwise floats). */
+	final boolean intLeft, intRight;
+
+	/**
+	 * Instantiates a new primitive operator.
+	 */
+	private PrimitiveOperator(final Operation operation, final boolean intLeft, final boolean intRight) {
+		this.operation = operation;
+		this.intLeft = intLeft;
+		this.intRight = intRight;
+	}
+
+	/**
+	 * Returns the primitive version of a binary operator, if any.
+	 *
+	 * @param prototype
+	 *            the prototype of the operator
+	 * @return the primitive operator or null
+	 */
+	static PrimitiveOperator of(final IArtefact.Operator prototype) {
+		if (prototype == null) return null;
+		final AnnotatedElement base = prototype.getJavaBase();
+		if (!(base instanceof Method m)) return null;
+		final operator annotation = m.getAnnotation(operator.class);
+		if (annotation == null) return null;
+		Operation operation = null;
+		for (final String name : annotation.value()) {
+			operation = OPERATIONS.get(name);
+			if (operation != null) { break; }
+		}
+		if (operation == null) return null;
+		final Class<?>[] params = m.getParameterTypes();
+		final int first = params.length == 3 && params[0] == IScope.class ? 1 : 0;
+		if (params.length - first != 2 || !isNumber(params[first]) || !isNumber(params[first + 1])) return null;
+		final Class<?> returned = m.getReturnType();
+		if (operation.isComparison() ? returned != Boolean.class : !isNumber(returned)) return null;
+		final boolean intLeft = params[first] == Integer.class, intRight = params[first + 1] == Integer.class;
+		if (operation.isEquality() && !(intLeft && intRight)) return null;
+		return new PrimitiveOperator(operation, intLeft, intRight);
+	}
+
+	/**
+	 * Whether a parameter or a result is an int or a float.
+	 */
+	private static boolean isNumber(final Class<?> c) {
+		return c == Integer.class || c == Double.class;
+	}
+
+	/**
+	 * Whether the result is a boolean.
+	 */
+	boolean isBoolean() { return operation.isComparison(); }
+
+	/**
+	 * Whether the result is an int.
+	 */
+	boolean isInt() { return intLeft && intRight && !operation.isComparison(); }
+
+	/**
+	 * Computes the result, boxed once.
+	 */
+	Object value(final IScope scope, final IExpression left, final IExpression right) {
+		if (isBoolean()) return booleanValue(scope, left, right);
+		if (isInt()) return intValue(scope, left, right);
+		return doubleValue(scope, left, right);
+	}
+
+	/**
+	 * Computes the result of an arithmetic operation on ints (only valid if {@link #isInt()}).
+	 */
+	int intValue(final IScope scope, final IExpression left, final IExpression right) {
+		final int a = left.valueAsInt(scope);
+		final int b = right.valueAsInt(scope);
+		return switch (operation) {
+			case PLUS -> a + b;
+			case MINUS -> a - b;
+			default -> a * b;
+		};
+	}
+
+	/**
+	 * Computes the result of an arithmetic operation (only valid if not {@link #isBoolean()}; widens the int result).
+	 */
+	double doubleValue(final IScope scope, final IExpression left, final IExpression right) {
+		if (isInt()) return intValue(scope, left, right);
+		final double a = intLeft ? left.valueAsInt(scope) : left.valueAsDouble(scope);
+		final double b = intRight ? right.valueAsInt(scope) : right.valueAsDouble(scope);
+		return switch (operation) {
+			case PLUS -> a + b;
+			case MINUS -> a - b;
+			default -> a * b;
+		};
+	}
+
+	/**
+	 * Computes the result of a comparison (only valid if {@link #isBoolean()}).
+	 */
+	boolean booleanValue(final IScope scope, final IExpression left, final IExpression right) {
+		if (intLeft && intRight) {
+			final int a = left.valueAsInt(scope);
+			final int b = right.valueAsInt(scope);
+			return switch (operation) {
+				case GREATER -> a > b;
+				case LESS -> a < b;
+				case GREATER_OR_EQUAL -> a >= b;
+				case LESS_OR_EQUAL -> a <= b;
+				case EQUAL -> a == b;
+				default -> a != b;
+			};
+		}
+		final double a = intLeft ? left.valueAsInt(scope) : left.valueAsDouble(scope);
+		final double b = intRight ? right.valueAsInt(scope) : right.valueAsDouble(scope);
+		return switch (operation) {
+			case GREATER -> a > b;
+			case LESS -> a < b;
+			case GREATER_OR_EQUAL -> a >= b;
+			default -> a <= b;
+		};
+	}
+
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************************************
+ *
+ * SharedExpression.java, in gaml.compiler, is part of the source code of the GAMA modeling and simulation platform
+ * (v.2025-03).
+ *
+ * (c) 2007-2026 UMI 209 UMMISCO IRD/SU & Partners (IRIT, MIAT, ESPACE-DEV, CTU)
+ *
+ * Visit https://github.com/gama-platform/gama for license information and contacts.
+ *
+ ********************************************************************************************************/
+package gaml.compiler.expressions;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import gama.api.compilation.descriptions.ITypeDescription;
+import gama.api.compilation.descriptions.IVarDescriptionUser;
+import gama.api.compilation.descriptions.IVariableDescription;
+import gama.api.compilation.documentation.IGamlDocumentation;
+import gama.api.gaml.expressions.IExpression;
+import gama.api.runtime.scope.IScope;
+import gama.api.utils.collections.ICollector;
+
+/**
+ * A subexpression that appears several times in the expression of a facet and is computed only once each time this
+ * expression is evaluated (see {@link ExpressionOptimizer}). Its value is kept, during the evaluation of the root
+ * operator, in a temporary of the {@link Values} opened by this operator. Outside of this evaluation (e.g. in a copy of
+ * the root), it is simply evaluated.
+ *
+ * @author drogoul
+ */
+public class SharedExpression extends AbstractExpression {
+
+	/** The value kept for the expressions that return nil. */
+	static final Object NIL = new Object();
+
+	/**
+	 * The temporaries of a root operator. Each thread keeps a stack of arrays, one per evaluation in progress (the root
+	 * can be evaluated again while it is evaluated, e.g. through an action), which are reused by the next evaluations.
+	 */
+	static final class Values {
+
+		/** The temporaries of the evaluations in progress on each thread. */
+		final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+
+		/** The number of temporaries. */
+		int size;
+
+		/**
+		 * Opens the temporaries of a new evaluation.
+		 *
+		 * @return the temporaries of the current thread, to pass to {@link #close(Frames)}
+		 */
+		Frames open() {
+			final Frames f = frames.get();
+			if (f.depth == f.stack.length) { f.stack = Arrays.copyOf(f.stack, f.depth * 2); }
+			if (f.stack[f.depth] == null) { f.stack[f.depth] = new Object[size]; }
+			f.depth++;
+			return f;
+		}
+
+		/**
+		 * Closes the temporaries of an evaluation, which are cleared for the next one.
+		 *
+		 * @param f
+		 *            the temporaries returned by {@link #open()}
+		 */
+		void close(final Frames f) {
+			Arrays.fill(f.stack[--f.depth], null);
+		}
+
+		/**
+		 * The temporaries of the evaluation in progress on the current thread.
+		 *
+		 * @return them, or null if the root is not being evaluated
+		 */
+		Object[] current() {
+			final Frames f = frames.get();
+			return f.depth == 0 ? null : f.stack[f.depth - 1];
+		}
+	}
+
+	/**
+	 * The stack of the temporaries of the evaluations of a root operator in progress on a thread.
+	 */
+	static final class Frames {
+
+		/** The arrays of temporaries, the ones above the depth being kept for the next evaluations. */
+		Object[][] stack = new Object[1][];
+
+		/** The number of evaluations in progress. */
+		int depth;
+	}
+
+	/** The expression shared. */
+	final IExpression expression;
+
+	/** The index of its temporary. */
+	final int index;
+
+	/** The temporaries. */
+	final Values values;
+
+	/**
+	 * Instantiates a new shared expression.
+	 *
+	 * @param expression
+	 *            the expression shared
+	 * @param index
+	 *            the index of its temporary
+	 * @param values
+	 *            the temporaries of the root operator
+	 */
+	SharedExpression(final IExpression expression, final int index, final Values values) {
+		this.expression = expression;
+		this.index = index;
+		this.values = values;
+		type = expression.getGamlType();
+	}
+
+	@Override
+	protected Object _value(final IScope scope) {
+		final Object[] temporaries = values.current();
+		if (temporaries == null) return expression.value(scope);
+		final Object result = temporaries[index];
+		if (result == null) {
+			final Object value = expression.value(scope);
+			temporaries[index] = value == null ? NIL : value;
+			return value;
+		}
+		return result == NIL ? null : result;
+	}
+
+	@Override
+	public String serializeToGaml(final boolean includingBuiltIn) {
+		return expression.serializeToGaml(includingBuiltIn);
+	}
+
+	@Override
+	public boolean shouldBeParenthesized() {
+		return expression.shouldBeParenthesized();
+	}
+
+	@Override
+	public String getName() { return expression.getName(); }
+
+	@Override
+	public String getTitle() { return expression.getTitle(); }
+
+	@Override
+	public IGamlDocumentation getDocumentation() { return expression.getDocumentation(); }
+
+	@Override
+	public String getDefiningPlugin() { return expression.getDefiningPlugin(); }
+
+	@Override
+	public boolean isContextIndependant() { return expression.isContextIndependant(); }
+
+	@Override
+	public boolean isAllowedInParameters() { return expression.isAllowedInParameters(); }
+
+	@Override
+	public IExpression resolveAgainst(final IScope scope) {
+		return expression.resolveAgainst(scope);
+	}
+
+	@Override
+	public void collectUsedVarsOf(final ITypeDescription species,
+			final ICollector<IVarDescriptionUser> alreadyProcessed, final ICollector<IVariableDescription> result) {
+		expression.collectUsedVarsOf(species, alreadyProcessed, result);
+	}
+
+	@Override
+	public boolean findAny(final Predicate<IExpression> predicate) {
+		return predicate.test(this) || expression.findAny(predicate);
+	}
+
+	@Override
+	public String toString() {
+		return expression.toString();
+	}
+
+}
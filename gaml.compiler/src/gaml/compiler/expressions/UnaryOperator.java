@@ -44,10 +44,10 @@ import gama.api.utils.collections.ICollector;
  * The Class UnaryOperator.
  */
 @SuppressWarnings ({ "rawtypes" })
-public class UnaryOperator extends AbstractExpression implements IOperator {
+public class UnaryOperator extends AbstractOperator {
 
 	/** The child. */
-	final protected IExpression child;
+	protected IExpression child;
 
 	/** The prototype. */
 	protected final IArtefact.Operator prototype;
@@ -95,7 +95,9 @@ public class UnaryOperator extends AbstractExpression implements IOperator {
 	}
 
 	@Override
-	public Object _value(final IScope scope) throws GamaRuntimeException {
+	protected Object evaluate(final IScope scope) throws GamaRuntimeException {
+		final Object result = compiledValue(scope);
+		if (result != OperatorCompiler.NONE) return result;
 		final Object childValue = prototype.getLazyness()[0] ? child : child.value(scope);
 		try {
 			return prototype.getHelper().get(scope, childValue);